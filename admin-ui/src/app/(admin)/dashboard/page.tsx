@@ -2,7 +2,7 @@
 
 import { useEffect, useState } from "react";
 import Link from "next/link";
-import { apiGet, apiPost } from "@/lib/api";
+import { apiGet, apiPost, pollSendStatus } from "@/lib/api";
 import { getUserFacingError } from "@/lib/errors";
 import type { DashboardDto, ActionResult, MemberDto } from "@/lib/types";
 
@@ -149,8 +149,16 @@ export default function DashboardPage() {
             const res = await apiPost<ActionResult>("/api/admin/notify", { message: notifyText.trim() });
             setNotifySending(false);
             if (res.ok && res.data?.success) {
-              setNotifyMessage({ type: "ok", text: res.data.message ?? "Отправлено" });
+              setNotifyMessage({ type: "ok", text: res.data.message ?? "Поставлено в очередь" });
               setNotifyText("");
+              if (res.data.statusId != null) {
+                const status = await pollSendStatus(res.data.statusId);
+                if (status?.status === "DELIVERED") {
+                  setNotifyMessage({ type: "ok", text: "Уведомление доставлено в чат команды." });
+                } else if (status?.status === "FAILED") {
+                  setNotifyMessage({ type: "err", text: "Не удалось отправить: " + (status.error ?? "ошибка Telegram") });
+                }
+              }
             } else {
               setNotifyMessage({ type: "err", text: getUserFacingError(res.status, res.data?.data ?? res.error) });
             }
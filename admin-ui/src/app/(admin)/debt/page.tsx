@@ -1,7 +1,7 @@
 "use client";
 
 import { useEffect, useState } from "react";
-import { apiGet, apiPost } from "@/lib/api";
+import { apiGet, apiPost, pollSendStatus } from "@/lib/api";
 import { getUserFacingError } from "@/lib/errors";
 import type { DebtListDto, ActionResult, PlayerDto } from "@/lib/types";
 
@@ -56,6 +56,14 @@ export default function DebtPage() {
     if (res.ok && res.data) {
       setMessage({ type: res.data.success ? "ok" : "err", text: res.data.message ?? res.data.data ?? "" });
       if (res.data.success) load();
+      if (res.data.statusId != null) {
+        const status = await pollSendStatus(res.data.statusId);
+        if (status?.status === "DELIVERED") {
+          setMessage({ type: "ok", text: "Напоминание о взносе доставлено в чат команды." });
+        } else if (status?.status === "FAILED") {
+          setMessage({ type: "err", text: "Не удалось отправить напоминание: " + (status.error ?? "ошибка Telegram") });
+        }
+      }
     } else {
       setMessage({ type: "err", text: getUserFacingError(res.status, res.data?.data ?? res.error) });
     }
@@ -1,9 +1,9 @@
 "use client";
 
 import { useEffect, useState } from "react";
-import { apiGet } from "@/lib/api";
+import { apiGet, apiPost } from "@/lib/api";
 import { getUserFacingError } from "@/lib/errors";
-import type { IntegrationStatsDto, IntegrationEventDto } from "@/lib/types";
+import type { IntegrationStatsDto, IntegrationEventDto, DeadLetterDto, JobsDto } from "@/lib/types";
 
 const EVENT_TYPE_LABELS: Record<string, string> = {
   BOT_MESSAGE: "Ответ бота",
@@ -15,11 +15,16 @@ const EVENT_TYPE_LABELS: Record<string, string> = {
   INVITE_QR: "QR приглашения",
   POLL: "Опрос",
   CHANNEL_POST: "Публикация в канал",
+  TEAM_NOTIFY: "Уведомление команде",
+  EVENT_ANNOUNCE: "Анонс события",
 };
 
 export default function IntegrationPage() {
   const [stats, setStats] = useState<IntegrationStatsDto | null>(null);
   const [events, setEvents] = useState<IntegrationEventDto[]>([]);
+  const [deadLetters, setDeadLetters] = useState<DeadLetterDto[]>([]);
+  const [jobs, setJobs] = useState<JobsDto | null>(null);
+  const [retrying, setRetrying] = useState<number | null>(null);
   const [loading, setLoading] = useState(true);
   const [loadError, setLoadError] = useState<string | null>(null);
   const [periodDays, setPeriodDays] = useState(7);
@@ -35,11 +40,23 @@ export default function IntegrationPage() {
     Promise.all([
       apiGet<IntegrationStatsDto>(`/api/admin/integration/stats?from=${encodeURIComponent(fromStr)}&to=${encodeURIComponent(toStr)}`),
       apiGet<IntegrationEventDto[]>("/api/admin/integration/events?limit=100"),
-    ]).then(([statsRes, eventsRes]) => {
+      apiGet<DeadLetterDto[]>("/api/admin/integration/dead-letters?limit=100"),
+      apiGet<JobsDto>("/api/admin/integration/jobs?limit=20"),
+    ]).then(([statsRes, eventsRes, deadRes, jobsRes]) => {
       setLoading(false);
       if (statsRes.ok && statsRes.data) setStats(statsRes.data);
       else setLoadError(getUserFacingError(statsRes.status));
       if (eventsRes.ok && Array.isArray(eventsRes.data)) setEvents(eventsRes.data);
+      if (deadRes.ok && Array.isArray(deadRes.data)) setDeadLetters(deadRes.data);
+      if (jobsRes.ok && jobsRes.data) setJobs(jobsRes.data);
+    });
+  }
+
+  function retryDeadLetter(id: number) {
+    setRetrying(id);
+    apiPost(`/api/admin/integration/dead-letters/${id}/retry`, {}).then(() => {
+      setRetrying(null);
+      setDeadLetters((list) => list.filter((d) => d.id !== id));
     });
   }
 
@@ -104,7 +121,7 @@ export default function IntegrationPage() {
 
       {stats && (
         <>
-          <div className="mb-8 grid grid-cols-2 gap-4 sm:grid-cols-4">
+          <div className="mb-8 grid grid-cols-2 gap-4 sm:grid-cols-5">
             <div className="rounded-xl border border-zinc-200 bg-white p-4 shadow-sm">
               <div className="text-sm font-medium text-zinc-500">Всего отправок</div>
               <div className="mt-1 text-2xl font-semibold text-zinc-800">{stats.total}</div>
@@ -117,6 +134,10 @@ export default function IntegrationPage() {
               <div className="text-sm font-medium text-zinc-500">Ошибки</div>
               <div className="mt-1 text-2xl font-semibold text-red-600">{stats.failed}</div>
             </div>
+            <div className="rounded-xl border border-zinc-200 bg-white p-4 shadow-sm">
+              <div className="text-sm font-medium text-zinc-500">Повторы</div>
+              <div className="mt-1 text-2xl font-semibold text-amber-600">{stats.retries ?? 0}</div>
+            </div>
             <div className="rounded-xl border border-zinc-200 bg-white p-4 shadow-sm">
               <div className="text-sm font-medium text-zinc-500">% доставки</div>
               <div className="mt-1 text-2xl font-semibold text-zinc-800">
@@ -134,6 +155,7 @@ export default function IntegrationPage() {
                     <th className="px-4 py-2 text-left text-sm font-medium text-zinc-600">Тип</th>
                     <th className="px-4 py-2 text-right text-sm font-medium text-zinc-600">Доставлено</th>
                     <th className="px-4 py-2 text-right text-sm font-medium text-zinc-600">Ошибки</th>
+                    <th className="px-4 py-2 text-right text-sm font-medium text-zinc-600">Повторы</th>
                   </tr>
                 </thead>
                 <tbody>
@@ -142,6 +164,7 @@ export default function IntegrationPage() {
                       <td className="px-4 py-2">{row.label ?? row.eventType}</td>
                       <td className="px-4 py-2 text-right text-green-600">{row.success}</td>
                       <td className="px-4 py-2 text-right text-red-600">{row.failed}</td>
+                      <td className="px-4 py-2 text-right text-amber-600">{row.retries ?? 0}</td>
                     </tr>
                   ))}
                 </tbody>
@@ -151,6 +174,125 @@ export default function IntegrationPage() {
         </>
       )}
 
+      {deadLetters.length > 0 && (
+        <div className="mb-8 overflow-hidden rounded-xl border border-red-200 bg-white shadow-sm">
+          <h2 className="border-b border-zinc-100 px-4 py-3 text-lg font-medium text-zinc-800">Недоставленные сообщения</h2>
+          <p className="px-4 pt-3 text-sm text-zinc-600">
+            Попытки исчерпаны или Telegram отклонил запрос. После исправления причины (бот добавлен в чат, указан верный канал) сообщение можно отправить повторно.
+          </p>
+          <div className="overflow-x-auto">
+            <table className="w-full text-sm">
+              <thead className="bg-zinc-50">
+                <tr>
+                  <th className="px-4 py-2 text-left font-medium text-zinc-600">Время</th>
+                  <th className="px-4 py-2 text-left font-medium text-zinc-600">Тип</th>
+                  <th className="px-4 py-2 text-left font-medium text-zinc-600">Чат</th>
+                  <th className="px-4 py-2 text-left font-medium text-zinc-600">Сообщение</th>
+                  <th className="px-4 py-2 text-right font-medium text-zinc-600">Попыток</th>
+                  <th className="px-4 py-2 text-left font-medium text-zinc-600">Ошибка</th>
+                  <th className="px-4 py-2" />
+                </tr>
+              </thead>
+              <tbody>
+                {deadLetters.map((d) => (
+                  <tr key={d.id} className="border-t border-zinc-100">
+                    <td className="whitespace-nowrap px-4 py-2 text-zinc-600">
+                      {d.createdAt ? new Date(d.createdAt).toLocaleString("ru-RU") : "—"}
+                    </td>
+                    <td className="px-4 py-2">{EVENT_TYPE_LABELS[d.eventType] ?? d.eventType}</td>
+                    <td className="max-w-[120px] truncate px-4 py-2 font-mono text-zinc-500">{d.targetChatId}</td>
+                    <td className="max-w-[240px] truncate px-4 py-2" title={d.text ?? ""}>
+                      {d.photo ? "🖼 " : ""}{d.text ?? ""}
+                    </td>
+                    <td className="px-4 py-2 text-right">{d.attempts}</td>
+                    <td className="max-w-[240px] truncate px-4 py-2 text-red-600" title={d.errorMessage ?? ""}>
+                      {d.errorMessage ?? "Ошибка"}
+                    </td>
+                    <td className="px-4 py-2 text-right">
+                      <button
+                        type="button"
+                        disabled={retrying === d.id}
+                        onClick={() => retryDeadLetter(d.id)}
+                        className="rounded-lg border border-zinc-300 px-3 py-1 text-sm hover:bg-zinc-50 disabled:opacity-50"
+                      >
+                        Отправить снова
+                      </button>
+                    </td>
+                  </tr>
+                ))}
+              </tbody>
+            </table>
+          </div>
+        </div>
+      )}
+
+      {jobs && (jobs.leases.length > 0 || jobs.runs.length > 0) && (
+        <div className="mb-8 overflow-hidden rounded-xl border border-zinc-200 bg-white shadow-sm">
+          <h2 className="border-b border-zinc-100 px-4 py-3 text-lg font-medium text-zinc-800">Фоновые задания</h2>
+          <div className="overflow-x-auto">
+            <table className="w-full text-sm">
+              <thead className="bg-zinc-50">
+                <tr>
+                  <th className="px-4 py-2 text-left font-medium text-zinc-600">Задание</th>
+                  <th className="px-4 py-2 text-left font-medium text-zinc-600">Узел</th>
+                  <th className="px-4 py-2 text-left font-medium text-zinc-600">Захвачено</th>
+                  <th className="px-4 py-2 text-left font-medium text-zinc-600">Heartbeat</th>
+                  <th className="px-4 py-2 text-left font-medium text-zinc-600">Статус</th>
+                </tr>
+              </thead>
+              <tbody>
+                {jobs.leases.map((l) => (
+                  <tr key={l.jobName} className="border-t border-zinc-100">
+                    <td className="px-4 py-2 font-mono">{l.jobName}</td>
+                    <td className="px-4 py-2 text-zinc-600">{l.node ?? "—"}</td>
+                    <td className="whitespace-nowrap px-4 py-2 text-zinc-600">
+                      {l.acquiredAt ? new Date(l.acquiredAt).toLocaleString("ru-RU") : "—"}
+                    </td>
+                    <td className="whitespace-nowrap px-4 py-2 text-zinc-600">
+                      {l.heartbeatAt ? new Date(l.heartbeatAt).toLocaleString("ru-RU") : "—"}
+                    </td>
+                    <td className="px-4 py-2">{l.releasedAt ? "Свободно" : "Выполняется"}</td>
+                  </tr>
+                ))}
+              </tbody>
+            </table>
+          </div>
+          {jobs.runs.length > 0 && (
+            <div className="overflow-x-auto border-t border-zinc-100">
+              <table className="w-full text-sm">
+                <thead className="bg-zinc-50">
+                  <tr>
+                    <th className="px-4 py-2 text-left font-medium text-zinc-600">Запуск</th>
+                    <th className="px-4 py-2 text-left font-medium text-zinc-600">Задание</th>
+                    <th className="px-4 py-2 text-left font-medium text-zinc-600">Узел</th>
+                    <th className="px-4 py-2 text-right font-medium text-zinc-600">Длительность, мс</th>
+                    <th className="px-4 py-2 text-left font-medium text-zinc-600">Результат</th>
+                  </tr>
+                </thead>
+                <tbody>
+                  {jobs.runs.map((r) => (
+                    <tr key={r.id} className="border-t border-zinc-100">
+                      <td className="whitespace-nowrap px-4 py-2 text-zinc-600">
+                        {r.startedAt ? new Date(r.startedAt).toLocaleString("ru-RU") : "—"}
+                      </td>
+                      <td className="px-4 py-2 font-mono">{r.jobName}</td>
+                      <td className="px-4 py-2 text-zinc-600">{r.node ?? "—"}</td>
+                      <td className="px-4 py-2 text-right">{r.durationMs ?? "—"}</td>
+                      <td
+                        className={`max-w-[240px] truncate px-4 py-2 ${r.success ? "text-green-600" : "text-red-600"}`}
+                        title={r.error ?? ""}
+                      >
+                        {r.success ? "OK" : r.error ?? "Ошибка"}
+                      </td>
+                    </tr>
+                  ))}
+                </tbody>
+              </table>
+            </div>
+          )}
+        </div>
+      )}
+
       <div className="overflow-hidden rounded-xl border border-zinc-200 bg-white shadow-sm">
         <h2 className="border-b border-zinc-100 px-4 py-3 text-lg font-medium text-zinc-800">Последние события (лог)</h2>
         {events.length === 0 ? (
@@ -1,7 +1,7 @@
 "use client";
 
 import { useEffect, useState } from "react";
-import { apiGet, apiPost, apiPut } from "@/lib/api";
+import { apiGet, apiPost, apiPut, pollSendStatus } from "@/lib/api";
 import { apiUrl } from "@/lib/api";
 import { getUserFacingError } from "@/lib/errors";
 import type { MatchDto, MatchStatsDto, MatchAttendanceDto, ActionResult } from "@/lib/types";
@@ -210,7 +210,15 @@ export default function MatchesPage() {
     const res = await apiPost<ActionResult>(`/api/admin/matches/${id}/send-to-channel`, {});
     setSendingId(null);
     if (res.ok && res.data?.success) {
-      setMessage({ type: "ok", text: res.data.message ?? "Опубликовано" });
+      setMessage({ type: "ok", text: res.data.message ?? "Поставлено в очередь публикации" });
+      if (res.data.statusId != null) {
+        const status = await pollSendStatus(res.data.statusId);
+        if (status?.status === "DELIVERED") {
+          setMessage({ type: "ok", text: "Результат опубликован в канале." });
+        } else if (status?.status === "FAILED") {
+          setMessage({ type: "err", text: "Не удалось опубликовать: " + (status.error ?? "ошибка Telegram") });
+        }
+      }
     } else {
       setMessage({ type: "err", text: getUserFacingError(res.status, res.data?.data ?? res.error) });
     }
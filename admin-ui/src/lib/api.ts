@@ -1,3 +1,5 @@
+import type { SendStatusDto } from "./types";
+
 // Пустая строка = запросы на тот же origin (прокси в app/api/[[...path]]/route.ts)
 const getBase = () => process.env.NEXT_PUBLIC_API_URL ?? "";
 
@@ -86,3 +88,22 @@ export async function apiPatch<T>(path: string, body: unknown) {
 export async function apiDelete<T = unknown>(path: string) {
   return apiFetch<T>(path, { method: "DELETE" });
 }
+
+/**
+ * Ждёт доставки отправки, поставленной в очередь (ответ 202 со statusId): опрашивает статус,
+ * пока он PENDING или IN_FLIGHT. null — статус не получен или не изменился за timeoutMs (отправка остаётся в очереди).
+ */
+export async function pollSendStatus(
+  statusId: number,
+  timeoutMs = 30000,
+  intervalMs = 1000
+): Promise<SendStatusDto | null> {
+  const deadline = Date.now() + timeoutMs;
+  while (Date.now() < deadline) {
+    await new Promise((resolve) => setTimeout(resolve, intervalMs));
+    const res = await apiGet<SendStatusDto>(`/api/admin/send-status/${statusId}`);
+    if (!res.ok || !res.data) return null;
+    if (res.data.status !== "PENDING" && res.data.status !== "IN_FLIGHT") return res.data;
+  }
+  return null;
+}
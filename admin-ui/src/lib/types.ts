@@ -58,6 +58,16 @@ export interface ActionResult {
   success: boolean;
   message: string | null;
   data: string | null;
+  /** id отправки в очереди (ответ 202), статус — GET /api/admin/send-status/{statusId} */
+  statusId?: number | null;
+}
+
+export interface SendStatusDto {
+  id: number;
+  status: "PENDING" | "IN_FLIGHT" | "DELIVERED" | "FAILED";
+  attempts: number;
+  error: string | null;
+  deliveredAt: string | null;
 }
 
 export interface DebtListDto {
@@ -183,7 +193,9 @@ export interface IntegrationStatsDto {
   total: number;
   success: number;
   failed: number;
-  byType: Array<{ eventType: string; label: string; success: number; failed: number }>;
+  /** Повторы отправки (429, 5xx, сеть) */
+  retries: number;
+  byType: Array<{ eventType: string; label: string; success: number; failed: number; retries: number }>;
 }
 
 /** Одно событие интеграции */
@@ -195,5 +207,43 @@ export interface IntegrationEventDto {
   errorMessage: string | null;
   teamId: number | null;
   matchId: number | null;
+  retries: number;
+  createdAt: string | null;
+}
+
+/** Недоставленное сообщение (dead letter) */
+export interface JobLeaseDto {
+  jobName: string;
+  node: string | null;
+  acquiredAt: string | null;
+  heartbeatAt: string | null;
+  releasedAt: string | null;
+}
+
+export interface JobRunDto {
+  id: number;
+  jobName: string;
+  node: string | null;
+  startedAt: string | null;
+  durationMs: number | null;
+  success: boolean;
+  error: string | null;
+}
+
+export interface JobsDto {
+  leases: JobLeaseDto[];
+  runs: JobRunDto[];
+}
+
+export interface DeadLetterDto {
+  id: number;
+  eventType: string;
+  targetChatId: string;
+  text: string | null;
+  photo: boolean;
+  attempts: number;
+  errorMessage: string | null;
+  teamId: number | null;
+  matchId: number | null;
   createdAt: string | null;
 }
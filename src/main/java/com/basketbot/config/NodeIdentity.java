@@ -0,0 +1,21 @@
+package com.basketbot.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+
+/** Имя экземпляра приложения (app.node-id, по умолчанию pid@host): владелец заданий @ClusterJob и захваченных сообщений outbox. */
+@Component
+public class NodeIdentity {
+
+    private final String id;
+
+    public NodeIdentity(@Value("${app.node-id:}") String configured) {
+        this.id = configured != null && !configured.isBlank() ? configured.trim() : ManagementFactory.getRuntimeMXBean().getName();
+    }
+
+    public String getId() {
+        return id;
+    }
+}
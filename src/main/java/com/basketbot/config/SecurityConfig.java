@@ -32,7 +32,7 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .cors(cors -> {})
-                .csrf(csrf -> csrf.ignoringRequestMatchers("/api/admin/**"))
+                .csrf(csrf -> csrf.ignoringRequestMatchers("/api/admin/**", "/telegram/webhook"))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/actuator/health").permitAll()
                         .requestMatchers("/api/admin/login", "/api/admin/logout").permitAll()
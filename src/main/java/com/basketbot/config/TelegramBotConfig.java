@@ -1,19 +1,66 @@
 package com.basketbot.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.telegram.telegrambots.client.okhttp.OkHttpTelegramClient;
+import org.telegram.telegrambots.meta.TelegramUrl;
 import org.telegram.telegrambots.meta.generics.TelegramClient;
 
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 @EnableConfigurationProperties(TelegramBotProperties.class)
 public class TelegramBotConfig {
 
     @Bean
     @ConditionalOnProperty(name = "telegram.bot.token")
-    public TelegramClient telegramClient(TelegramBotProperties properties) {
-        return new OkHttpTelegramClient(properties.getToken());
+    public TelegramClient telegramClient(TelegramBotProperties properties, OkHttpClient telegramHttpClient) {
+        if (properties.getApiUrl() == null || properties.getApiUrl().isBlank()) {
+            return new OkHttpTelegramClient(telegramHttpClient, properties.getToken());
+        }
+        return new OkHttpTelegramClient(telegramHttpClient, properties.getToken(), telegramUrl(properties.getApiUrl()));
+    }
+
+    /** HTTP-клиент запросов к Bot API по telegram.bot.http.* с метриками (см. TelegramHttpMetrics). */
+    @Bean
+    @ConditionalOnProperty(name = "telegram.bot.token")
+    public OkHttpClient telegramHttpClient(TelegramBotProperties properties, MeterRegistry meterRegistry) {
+        TelegramBotProperties.Http http = properties.getHttp();
+        ConnectionPool pool = new ConnectionPool(Math.max(0, http.getMaxIdleConnections()),
+                http.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS);
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(Math.max(1, http.getMaxRequests()));
+        dispatcher.setMaxRequestsPerHost(Math.max(1, http.getMaxRequestsPerHost()));
+        TelegramHttpMetrics metrics = new TelegramHttpMetrics(meterRegistry);
+        metrics.bind(pool, dispatcher);
+        return new OkHttpClient.Builder()
+                .connectTimeout(http.getConnectTimeout())
+                .readTimeout(http.getReadTimeout())
+                .writeTimeout(http.getWriteTimeout())
+                .callTimeout(http.getCallTimeout())
+                .connectionPool(pool)
+                .dispatcher(dispatcher)
+                .retryOnConnectionFailure(http.isRetryOnConnectionFailure())
+                .addInterceptor(metrics)
+                .eventListenerFactory(metrics)
+                .build();
+    }
+
+    /** Адрес Bot API из telegram.bot.api-url: схема, хост и порт (порт по умолчанию — по схеме). */
+    public static TelegramUrl telegramUrl(String apiUrl) {
+        URI uri = URI.create(apiUrl.trim());
+        if (uri.getHost() == null) {
+            throw new IllegalArgumentException("telegram.bot.api-url: нужен адрес вида http://host:port, получено " + apiUrl);
+        }
+        String schema = uri.getScheme() != null ? uri.getScheme() : "https";
+        int port = uri.getPort() != -1 ? uri.getPort() : ("http".equals(schema) ? 80 : 443);
+        return TelegramUrl.builder().schema(schema).host(uri.getHost()).port(port).build();
     }
 }
@@ -1,12 +1,29 @@
 package com.basketbot.config;
 
+import com.basketbot.model.IntegrationEvent;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+
 @ConfigurationProperties(prefix = "telegram.bot")
 public class TelegramBotProperties {
 
     private String token = "";
     private String username = "BasketBot";
+    /** Адрес Bot API; пусто — https://api.telegram.org (для локальной заглушки, например http://localhost:8081). */
+    private String apiUrl = "";
+    /** Источник апдейтов: long-polling (по умолчанию) или webhook. */
+    private String mode = "long-polling";
+    private Dispatcher dispatcher = new Dispatcher();
+    private Webhook webhook = new Webhook();
+    private Conversation conversation = new Conversation();
+    private TeamCache teamCache = new TeamCache();
+    private Outbound outbound = new Outbound();
+    private Outbox outbox = new Outbox();
+    private Attendance attendance = new Attendance();
+    private Http http = new Http();
 
     public String getToken() {
         return token;
@@ -23,4 +40,586 @@ public class TelegramBotProperties {
     public void setUsername(String username) {
         this.username = username;
     }
+
+    public String getApiUrl() {
+        return apiUrl;
+    }
+
+    public void setApiUrl(String apiUrl) {
+        this.apiUrl = apiUrl;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public void setDispatcher(Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    public Webhook getWebhook() {
+        return webhook;
+    }
+
+    public void setWebhook(Webhook webhook) {
+        this.webhook = webhook;
+    }
+
+    public Conversation getConversation() {
+        return conversation;
+    }
+
+    public void setConversation(Conversation conversation) {
+        this.conversation = conversation;
+    }
+
+    public TeamCache getTeamCache() {
+        return teamCache;
+    }
+
+    public void setTeamCache(TeamCache teamCache) {
+        this.teamCache = teamCache;
+    }
+
+    public Outbound getOutbound() {
+        return outbound;
+    }
+
+    public void setOutbound(Outbound outbound) {
+        this.outbound = outbound;
+    }
+
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public void setOutbox(Outbox outbox) {
+        this.outbox = outbox;
+    }
+
+    public Http getHttp() {
+        return http;
+    }
+
+    public void setHttp(Http http) {
+        this.http = http;
+    }
+
+    public Attendance getAttendance() {
+        return attendance;
+    }
+
+    public void setAttendance(Attendance attendance) {
+        this.attendance = attendance;
+    }
+
+    /**
+     * Обработка входящих апдейтов: число шардов (потоков), полосы приоритета внутри шарда
+     * и размер окна недавних update_id для отбрасывания повторов.
+     */
+    public static class Dispatcher {
+
+        private int workers = 8;
+        private int dedupWindow = 4096;
+        private Lane callback = new Lane(500, "reply-busy");
+        private Lane command = new Lane(500, "block");
+        private Lane text = new Lane(1000, "block");
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public int getDedupWindow() {
+            return dedupWindow;
+        }
+
+        public void setDedupWindow(int dedupWindow) {
+            this.dedupWindow = dedupWindow;
+        }
+
+        public Lane getCallback() {
+            return callback;
+        }
+
+        public void setCallback(Lane callback) {
+            this.callback = callback;
+        }
+
+        public Lane getCommand() {
+            return command;
+        }
+
+        public void setCommand(Lane command) {
+            this.command = command;
+        }
+
+        public Lane getText() {
+            return text;
+        }
+
+        public void setText(Lane text) {
+            this.text = text;
+        }
+
+        /** Настройки полосы по имени: CALLBACK, COMMAND, TEXT. */
+        public Lane lane(String name) {
+            return switch (name) {
+                case "CALLBACK" -> callback;
+                case "COMMAND" -> command;
+                default -> text;
+            };
+        }
+    }
+
+    /**
+     * Полоса приоритета: ёмкость очереди в каждом шарде, действие при переполнении
+     * (block — ждать, drop — отбросить, reply-busy — отбросить и ответить «бот перегружен»)
+     * и максимальный возраст апдейта (старше — отбрасывается; 0 — без ограничения).
+     */
+    public static class Lane {
+
+        private int queueCapacity;
+        private String onFull;
+        private Duration maxAge = Duration.ZERO;
+
+        public Lane() {
+            this(1000, "block");
+        }
+
+        public Lane(int queueCapacity, String onFull) {
+            this.queueCapacity = queueCapacity;
+            this.onFull = onFull;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public String getOnFull() {
+            return onFull;
+        }
+
+        public void setOnFull(String onFull) {
+            this.onFull = onFull;
+        }
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+    }
+
+    /**
+     * Режим webhook: публичный URL эндпоинта /telegram/webhook (если задан — регистрируется при старте)
+     * и секрет, который Telegram передаёт в заголовке X-Telegram-Bot-Api-Secret-Token.
+     */
+    public static class Webhook {
+
+        private String url = "";
+        private String secretToken = "";
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getSecretToken() {
+            return secretToken;
+        }
+
+        public void setSecretToken(String secretToken) {
+            this.secretToken = secretToken;
+        }
+    }
+
+    /** Состояние диалогов бота (ожидание названия команды, подтверждения выхода, опроса): хранилище, лимит и время жизни. */
+    public static class Conversation {
+
+        /** memory — в памяти процесса; postgres — таблица conversation_state (общая для нескольких экземпляров). */
+        private String backend = "memory";
+        private int maxSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(30);
+        /** Для postgres: сколько держать значение из БД в памяти экземпляра (0 — всегда читать из БД). */
+        private Duration nearCacheTtl = Duration.ofSeconds(5);
+
+        public String getBackend() {
+            return backend;
+        }
+
+        public void setBackend(String backend) {
+            this.backend = backend;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getNearCacheTtl() {
+            return nearCacheTtl;
+        }
+
+        public void setNearCacheTtl(Duration nearCacheTtl) {
+            this.nearCacheTtl = nearCacheTtl;
+        }
+    }
+
+    /** Кэши определения команды по чату/пользователю и состава команд: лимит записей и время жизни. */
+    public static class TeamCache {
+
+        private int maxSize = 50_000;
+        private Duration ttl = Duration.ofMinutes(10);
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * Исходящие запросы к Bot API: общий лимит в секунду, лимиты на чат (личный / группа или канал) в минуту
+     * с допустимым всплеском, ёмкость очереди, время ожидания места в ней и число потоков отправки.
+     */
+    public static class Outbound {
+
+        private int globalPerSecond = 30;
+        private int privateChatPerMinute = 60;
+        private int groupPerMinute = 20;
+        private int burst = 3;
+        private int queueCapacity = 10_000;
+        private Duration offerTimeout = Duration.ofSeconds(5);
+        private int workers = 4;
+        private Retry retry = new Retry();
+
+        public int getGlobalPerSecond() {
+            return globalPerSecond;
+        }
+
+        public void setGlobalPerSecond(int globalPerSecond) {
+            this.globalPerSecond = globalPerSecond;
+        }
+
+        public int getPrivateChatPerMinute() {
+            return privateChatPerMinute;
+        }
+
+        public void setPrivateChatPerMinute(int privateChatPerMinute) {
+            this.privateChatPerMinute = privateChatPerMinute;
+        }
+
+        public int getGroupPerMinute() {
+            return groupPerMinute;
+        }
+
+        public void setGroupPerMinute(int groupPerMinute) {
+            this.groupPerMinute = groupPerMinute;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getOfferTimeout() {
+            return offerTimeout;
+        }
+
+        public void setOfferTimeout(Duration offerTimeout) {
+            this.offerTimeout = offerTimeout;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public Retry getRetry() {
+            return retry;
+        }
+
+        public void setRetry(Retry retry) {
+            this.retry = retry;
+        }
+    }
+
+    /**
+     * Повтор исходящих запросов: 429 — через retry_after из ответа (если он не больше max-retry-after),
+     * 5xx и сетевые ошибки — экспоненциальная задержка со случайным разбросом от initial-backoff до max-backoff.
+     * max-attempts — всего попыток, включая первую.
+     */
+    public static class Retry {
+
+        private int maxAttempts = 5;
+        private Duration initialBackoff = Duration.ofSeconds(1);
+        private Duration maxBackoff = Duration.ofMinutes(1);
+        private Duration maxRetryAfter = Duration.ofMinutes(5);
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public Duration getMaxRetryAfter() {
+            return maxRetryAfter;
+        }
+
+        public void setMaxRetryAfter(Duration maxRetryAfter) {
+            this.maxRetryAfter = maxRetryAfter;
+        }
+    }
+
+    /**
+     * Доставка сообщений из таблицы telegram_outbox: сколько сообщений может быть в отправке одновременно,
+     * на сколько экземпляр захватывает сообщение (аренда продлевается, пока отправка идёт) и сколько хранить доставленные.
+     */
+    public static class Outbox {
+
+        private int batchSize = 200;
+        private Duration lease = Duration.ofMinutes(2);
+        private Duration retention = Duration.ofDays(7);
+        private Coalesce coalesce = new Coalesce();
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getLease() {
+            return lease;
+        }
+
+        public void setLease(Duration lease) {
+            this.lease = lease;
+        }
+
+        public Duration getRetention() {
+            return retention;
+        }
+
+        public void setRetention(Duration retention) {
+            this.retention = retention;
+        }
+
+        public Coalesce getCoalesce() {
+            return coalesce;
+        }
+
+        public void setCoalesce(Coalesce coalesce) {
+            this.coalesce = coalesce;
+        }
+    }
+
+    /**
+     * Склейка некритичных сообщений в один чат: сообщения типов eventTypes без кнопок и картинок ждут window
+     * и уходят одним сообщением (до 4096 символов, в порядке постановки). window 0 — склейка выключена.
+     */
+    public static class Coalesce {
+
+        private Duration window = Duration.ZERO;
+        private Set<IntegrationEvent.EventType> eventTypes = EnumSet.of(
+                IntegrationEvent.EventType.TEAM_NOTIFY,
+                IntegrationEvent.EventType.DEBT_REMINDER,
+                IntegrationEvent.EventType.EVENT_ANNOUNCE,
+                IntegrationEvent.EventType.REMINDER_3H);
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public Set<IntegrationEvent.EventType> getEventTypes() {
+            return eventTypes;
+        }
+
+        public void setEventTypes(Set<IntegrationEvent.EventType> eventTypes) {
+            this.eventTypes = eventTypes;
+        }
+    }
+
+    /** Напоминание за 24 ч обновляется на месте при ответах игроков, но не чаще раза в editInterval на матч. */
+    public static class Attendance {
+
+        private Duration editInterval = Duration.ofSeconds(10);
+
+        public Duration getEditInterval() {
+            return editInterval;
+        }
+
+        public void setEditInterval(Duration editInterval) {
+            this.editInterval = editInterval;
+        }
+    }
+
+    /**
+     * HTTP-клиент для запросов к Bot API (OkHttp): таймауты, пул соединений, параллельность асинхронных вызовов.
+     * Long polling (getUpdates) использует свой клиент стартера и эти настройки не затрагивает.
+     */
+    public static class Http {
+
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration readTimeout = Duration.ofSeconds(30);
+        private Duration writeTimeout = Duration.ofSeconds(30);
+        /** Предел на весь вызов (0 — без предела). */
+        private Duration callTimeout = Duration.ofSeconds(60);
+        private int maxIdleConnections = 16;
+        private Duration keepAlive = Duration.ofMinutes(5);
+        private int maxRequests = 64;
+        private int maxRequestsPerHost = 32;
+        private boolean retryOnConnectionFailure = true;
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+
+        public Duration getWriteTimeout() {
+            return writeTimeout;
+        }
+
+        public void setWriteTimeout(Duration writeTimeout) {
+            this.writeTimeout = writeTimeout;
+        }
+
+        public Duration getCallTimeout() {
+            return callTimeout;
+        }
+
+        public void setCallTimeout(Duration callTimeout) {
+            this.callTimeout = callTimeout;
+        }
+
+        public int getMaxIdleConnections() {
+            return maxIdleConnections;
+        }
+
+        public void setMaxIdleConnections(int maxIdleConnections) {
+            this.maxIdleConnections = maxIdleConnections;
+        }
+
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public int getMaxRequests() {
+            return maxRequests;
+        }
+
+        public void setMaxRequests(int maxRequests) {
+            this.maxRequests = maxRequests;
+        }
+
+        public int getMaxRequestsPerHost() {
+            return maxRequestsPerHost;
+        }
+
+        public void setMaxRequestsPerHost(int maxRequestsPerHost) {
+            this.maxRequestsPerHost = maxRequestsPerHost;
+        }
+
+        public boolean isRetryOnConnectionFailure() {
+            return retryOnConnectionFailure;
+        }
+
+        public void setRetryOnConnectionFailure(boolean retryOnConnectionFailure) {
+            this.retryOnConnectionFailure = retryOnConnectionFailure;
+        }
+    }
 }
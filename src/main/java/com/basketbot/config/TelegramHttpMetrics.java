@@ -0,0 +1,126 @@
+package com.basketbot.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.Interceptor;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Метрики HTTP-клиента Bot API: время запроса по методу (sendMessage, editMessageText…) и коду ответа,
+ * число запросов в полёте, счётчики взятых и новых соединений (keep-alive), состояние пула и диспетчера OkHttp.
+ * Доля переиспользования считается на стороне мониторинга: 1 - rate(opened) / rate(acquired).
+ * Токен из URL в теги не попадает: берётся только последний сегмент пути (имя метода).
+ */
+public class TelegramHttpMetrics extends EventListener implements EventListener.Factory, Interceptor {
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter connectionsAcquired;
+    private final Counter connectionsOpened;
+
+    public TelegramHttpMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("bot.telegram.http.in.flight", inFlight, AtomicInteger::get)
+                .description("Запросы к Bot API в полёте")
+                .register(meterRegistry);
+        this.connectionsAcquired = Counter.builder("bot.telegram.http.connections")
+                .description("Соединения, взятые запросами к Bot API (opened — из них новые)")
+                .tag("type", "acquired")
+                .register(meterRegistry);
+        this.connectionsOpened = Counter.builder("bot.telegram.http.connections")
+                .description("Соединения, взятые запросами к Bot API (opened — из них новые)")
+                .tag("type", "opened")
+                .register(meterRegistry);
+    }
+
+    /** Состояние пула соединений и диспетчера клиента. */
+    public void bind(ConnectionPool pool, Dispatcher dispatcher) {
+        Gauge.builder("bot.telegram.http.pool.connections", pool, ConnectionPool::connectionCount)
+                .description("Открытые соединения к Bot API")
+                .register(meterRegistry);
+        Gauge.builder("bot.telegram.http.pool.idle", pool, ConnectionPool::idleConnectionCount)
+                .description("Простаивающие соединения к Bot API")
+                .register(meterRegistry);
+        Gauge.builder("bot.telegram.http.dispatcher.running", dispatcher, Dispatcher::runningCallsCount)
+                .description("Асинхронные вызовы OkHttp в работе")
+                .register(meterRegistry);
+        Gauge.builder("bot.telegram.http.dispatcher.queued", dispatcher, Dispatcher::queuedCallsCount)
+                .description("Асинхронные вызовы OkHttp в очереди диспетчера")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        long startedAt = System.nanoTime();
+        String status = "error";
+        try {
+            Response response = chain.proceed(request);
+            status = String.valueOf(response.code());
+            return response;
+        } finally {
+            Timer.builder("bot.telegram.http.requests")
+                    .description("Время запроса к Bot API")
+                    .tag("method", methodOf(request))
+                    .tag("status", status)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public EventListener create(Call call) {
+        return this;
+    }
+
+    @Override
+    public void callStart(Call call) {
+        inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        inFlight.decrementAndGet();
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        inFlight.decrementAndGet();
+    }
+
+    /** Только успешное подключение: при переборе адресов connectStart вызывается на каждую попытку. */
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        connectionsOpened.increment();
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        connectionsAcquired.increment();
+    }
+
+    /** /bot&lt;token&gt;/sendMessage → sendMessage. */
+    static String methodOf(Request request) {
+        List<String> segments = request.url().pathSegments();
+        if (segments == null || segments.size() < 2) return "unknown";
+        String method = segments.get(segments.size() - 1);
+        return method.isEmpty() ? "unknown" : method;
+    }
+}
@@ -7,9 +7,11 @@ import com.basketbot.model.TeamMember;
 import com.basketbot.service.EventAttendanceService;
 import com.basketbot.service.IntegrationMetricsService;
 import com.basketbot.service.InvitationService;
+import com.basketbot.service.JobRunService;
 import com.basketbot.service.MatchService;
 import com.basketbot.service.SystemSettingsService;
 import com.basketbot.service.TeamService;
+import com.basketbot.service.TelegramOutboxService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.http.HttpStatus;
@@ -44,6 +46,8 @@ public class AdminApiController {
     private final EventAttendanceService eventAttendanceService;
     private final MatchService matchService;
     private final IntegrationMetricsService integrationMetricsService;
+    private final TelegramOutboxService outboxService;
+    private final JobRunService jobRunService;
 
     public AdminApiController(AuthenticationManager authenticationManager,
                              TeamService teamService,
@@ -51,7 +55,9 @@ public class AdminApiController {
                              InvitationService invitationService,
                              EventAttendanceService eventAttendanceService,
                              MatchService matchService,
-                             IntegrationMetricsService integrationMetricsService) {
+                             IntegrationMetricsService integrationMetricsService,
+                             TelegramOutboxService outboxService,
+                             JobRunService jobRunService) {
         this.authenticationManager = authenticationManager;
         this.teamService = teamService;
         this.systemSettingsService = systemSettingsService;
@@ -59,6 +65,8 @@ public class AdminApiController {
         this.eventAttendanceService = eventAttendanceService;
         this.matchService = matchService;
         this.integrationMetricsService = integrationMetricsService;
+        this.outboxService = outboxService;
+        this.jobRunService = jobRunService;
     }
 
     @PostMapping(value = "/login", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
@@ -377,10 +385,74 @@ public class AdminApiController {
                     m.put("errorMessage", e.getErrorMessage());
                     m.put("teamId", e.getTeamId());
                     m.put("matchId", e.getMatchId());
+                    m.put("retries", e.getRetries());
                     m.put("createdAt", e.getCreatedAt() != null ? e.getCreatedAt().toString() : null);
                     return m;
                 })
                 .collect(Collectors.toList());
         return ResponseEntity.ok(dtos);
     }
+
+    /** Недоставленные сообщения (dead letter): попытки исчерпаны или Telegram отклонил запрос. */
+    @GetMapping("/integration/dead-letters")
+    public ResponseEntity<List<Map<String, Object>>> getDeadLetters(
+            @RequestParam(defaultValue = "100") int limit) {
+        List<Map<String, Object>> dtos = outboxService.findDeadLetters(limit).stream()
+                .map(o -> {
+                    Map<String, Object> m = new HashMap<>();
+                    String text = o.getText();
+                    m.put("id", o.getId());
+                    m.put("eventType", o.getEventType().name());
+                    m.put("targetChatId", o.getChatId());
+                    m.put("text", text != null && text.length() > 200 ? text.substring(0, 200) + "…" : text);
+                    m.put("photo", o.getPhoto() != null);
+                    m.put("attempts", o.getAttempts());
+                    m.put("errorMessage", o.getLastError());
+                    m.put("teamId", o.getTeamId());
+                    m.put("matchId", o.getMatchId());
+                    m.put("createdAt", o.getCreatedAt() != null ? o.getCreatedAt().toString() : null);
+                    return m;
+                })
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(dtos);
+    }
+
+    /** Задания @ClusterJob: кто держит сейчас (heartbeat) и последние запуски по узлам. */
+    @GetMapping("/integration/jobs")
+    public ResponseEntity<Map<String, Object>> getJobs(@RequestParam(defaultValue = "50") int limit) {
+        List<Map<String, Object>> leases = jobRunService.findLeases().stream()
+                .map(l -> {
+                    Map<String, Object> m = new HashMap<>();
+                    m.put("jobName", l.getJobName());
+                    m.put("node", l.getNode());
+                    m.put("acquiredAt", l.getAcquiredAt() != null ? l.getAcquiredAt().toString() : null);
+                    m.put("heartbeatAt", l.getHeartbeatAt() != null ? l.getHeartbeatAt().toString() : null);
+                    m.put("releasedAt", l.getReleasedAt() != null ? l.getReleasedAt().toString() : null);
+                    return m;
+                })
+                .collect(Collectors.toList());
+        List<Map<String, Object>> runs = jobRunService.findRecentRuns(limit).stream()
+                .map(r -> {
+                    Map<String, Object> m = new HashMap<>();
+                    m.put("id", r.getId());
+                    m.put("jobName", r.getJobName());
+                    m.put("node", r.getNode());
+                    m.put("startedAt", r.getStartedAt() != null ? r.getStartedAt().toString() : null);
+                    m.put("durationMs", r.getDurationMs());
+                    m.put("success", r.isSuccess());
+                    m.put("error", r.getError());
+                    return m;
+                })
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(Map.of("leases", leases, "runs", runs));
+    }
+
+    /** Отправить недоставленное сообщение ещё раз. */
+    @PostMapping("/integration/dead-letters/{id}/retry")
+    public ResponseEntity<Map<String, Object>> retryDeadLetter(@PathVariable long id) {
+        if (!outboxService.redrive(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("success", false, "error", "Сообщение не найдено или уже в очереди"));
+        }
+        return ResponseEntity.ok(Map.of("success", true));
+    }
 }
@@ -0,0 +1,76 @@
+package com.basketbot.controller;
+
+import com.basketbot.config.TelegramBotProperties;
+import com.basketbot.telegram.BasketTelegramBot;
+import com.basketbot.telegram.UpdateDispatcher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.regex.Pattern;
+
+/**
+ * Приём апдейтов Telegram в режиме webhook (telegram.bot.mode=webhook).
+ * Апдейт сразу ставится в очередь {@link UpdateDispatcher} и обрабатывается тем же {@link BasketTelegramBot#consume(Update)},
+ * что и в long polling; ответ 200 отдаётся без ожидания обработки. Очередь шарда заполнена — 503, Telegram повторит доставку.
+ * Эндпоинт открыт без авторизации, поэтому telegram.bot.webhook.secret-token обязателен (без него приложение не стартует):
+ * запрос без заголовка X-Telegram-Bot-Api-Secret-Token или с чужим значением — 401.
+ * Локально можно проверить: POST /telegram/webhook с JSON апдейта.
+ */
+@RestController
+@ConditionalOnProperty(name = "telegram.bot.token")
+@ConditionalOnExpression("'${telegram.bot.mode:long-polling}' == 'webhook'")
+public class TelegramWebhookController {
+
+    static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+    /** Допустимый секрет по правилам Bot API (setWebhook secret_token). */
+    private static final Pattern SECRET_FORMAT = Pattern.compile("[A-Za-z0-9_-]{1,256}");
+
+    private final TelegramBotProperties properties;
+    private final UpdateDispatcher updateDispatcher;
+    private final BasketTelegramBot bot;
+
+    public TelegramWebhookController(TelegramBotProperties properties, UpdateDispatcher updateDispatcher,
+                                     BasketTelegramBot bot) {
+        this.properties = properties;
+        this.updateDispatcher = updateDispatcher;
+        this.bot = bot;
+        requireSecret(properties.getWebhook().getSecretToken());
+    }
+
+    /** Без секрета любой может прислать поддельный апдейт от имени администратора команды. */
+    static void requireSecret(String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("telegram.bot.mode=webhook: задайте telegram.bot.webhook.secret-token (TELEGRAM_BOT_WEBHOOK_SECRET)");
+        }
+        if (!SECRET_FORMAT.matcher(secret).matches()) {
+            throw new IllegalStateException("telegram.bot.webhook.secret-token: 1–256 символов A-Z, a-z, 0-9, _ и -");
+        }
+    }
+
+    @PostMapping("/telegram/webhook")
+    public ResponseEntity<Void> receive(@RequestBody Update update,
+                                        @RequestHeader(value = SECRET_HEADER, required = false) String secretToken) {
+        if (!secretMatches(secretToken)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!updateDispatcher.tryDispatch(update, bot::consume)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    private boolean secretMatches(String provided) {
+        String expected = properties.getWebhook().getSecretToken();
+        if (expected == null || expected.isBlank() || provided == null) return false;
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), provided.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,6 +1,7 @@
 package com.basketbot.controller.admin;
 
 import com.basketbot.model.Event;
+import com.basketbot.model.IntegrationEvent;
 import com.basketbot.model.FinanceEntry;
 import com.basketbot.model.Match;
 import com.basketbot.model.LeagueTableRow;
@@ -21,11 +22,8 @@ import com.basketbot.service.MatchService;
 import com.basketbot.service.PlayerService;
 import com.basketbot.service.SystemSettingsService;
 import com.basketbot.service.TeamService;
+import com.basketbot.service.TelegramOutboxService;
 import jakarta.servlet.http.HttpSession;
-import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
-import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
-import org.telegram.telegrambots.meta.api.objects.InputFile;
-import org.telegram.telegrambots.meta.generics.TelegramClient;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -38,7 +36,6 @@ import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
@@ -61,7 +58,7 @@ public class AdminApiController {
     private final MatchService matchService;
     private final MatchPostService matchPostService;
     private final MatchImageService matchImageService;
-    private final TelegramClient telegramClient;
+    private final TelegramOutboxService outboxService;
     private final TeamMemberService teamMemberService;
     private final SystemSettingsService systemSettingsService;
     private final InvitationService invitationService;
@@ -73,17 +70,18 @@ public class AdminApiController {
 
     public AdminApiController(TeamService teamService, PlayerService playerService,
                              MatchService matchService, MatchPostService matchPostService,
-                             MatchImageService matchImageService, TelegramClient telegramClient,
+                             MatchImageService matchImageService,
                              TeamMemberService teamMemberService, SystemSettingsService systemSettingsService,
                              InvitationService invitationService, FinanceEntryService financeEntryService,
                              EventService eventService, MatchPlayerStatService matchPlayerStatService,
-                             LeagueTableService leagueTableService, AuthenticationConfiguration authConfig) {
+                             LeagueTableService leagueTableService, TelegramOutboxService outboxService,
+                             AuthenticationConfiguration authConfig) {
         this.teamService = teamService;
         this.playerService = playerService;
         this.matchService = matchService;
         this.matchPostService = matchPostService;
         this.matchImageService = matchImageService;
-        this.telegramClient = telegramClient;
+        this.outboxService = outboxService;
         this.teamMemberService = teamMemberService;
         this.systemSettingsService = systemSettingsService;
         this.invitationService = invitationService;
@@ -430,16 +428,9 @@ public class AdminApiController {
         if (png.length == 0) {
             return ResponseEntity.badRequest().body(new ActionResult(false, null, "Не удалось сгенерировать картинку."));
         }
-        try {
-            InputFile photo = new InputFile(new ByteArrayInputStream(png), "result.png");
-            telegramClient.execute(SendPhoto.builder()
-                    .chatId(team.getChannelTelegramChatId())
-                    .photo(photo)
-                    .build());
-            return ResponseEntity.ok(new ActionResult(true, "Опубликовано в канал.", null));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(new ActionResult(false, null, "Не удалось отправить: " + e.getMessage()));
-        }
+        Long statusId = outboxService.enqueuePhoto(team.getChannelTelegramChatId(), png, "result.png", null,
+                IntegrationEvent.EventType.CHANNEL_POST, teamId, id);
+        return ResponseEntity.accepted().body(new ActionResult(true, "Поставлено в очередь публикации в канал.", null, statusId));
     }
 
     @GetMapping("/debt")
@@ -483,12 +474,19 @@ public class AdminApiController {
             return ResponseEntity.badRequest().body(new ActionResult(false, null, "Введите текст уведомления."));
         }
         if (message.length() > 4000) message = message.substring(0, 4000);
-        try {
-            telegramClient.execute(SendMessage.builder().chatId(chatId).text("📢 " + message).build());
-            return ResponseEntity.ok(new ActionResult(true, "Уведомление отправлено в чат команды.", null));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(new ActionResult(false, null, "Не удалось отправить: " + e.getMessage()));
-        }
+        Long statusId = outboxService.enqueueMessage(chatId, "📢 " + message, null, IntegrationEvent.EventType.TEAM_NOTIFY, teamId, null);
+        return ResponseEntity.accepted().body(new ActionResult(true, "Уведомление поставлено в очередь отправки в чат команды.", null, statusId));
+    }
+
+    /** Статус отправки, поставленной через /notify, /notify-debt, /matches/{id}/send-to-channel (statusId из ответа 202). */
+    @GetMapping("/send-status/{id}")
+    public ResponseEntity<SendStatusDto> sendStatus(@PathVariable Long id, HttpSession session) {
+        Long teamId = requireTeamId(session);
+        if (teamId == null) return ResponseEntity.status(403).build();
+        return outboxService.findForTeam(id, teamId)
+                .map(m -> ResponseEntity.ok(new SendStatusDto(m.getId(), m.getStatus().name(), m.getAttempts(), m.getLastError(),
+                        m.getDeliveredAt() != null ? m.getDeliveredAt().toString() : null)))
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @PostMapping("/debt/paid/{playerId}")
@@ -526,14 +524,8 @@ public class AdminApiController {
             sb.append(" — ").append(p.getDebt() != null ? p.getDebt().stripTrailingZeros().toPlainString() : "0").append(" ₽\n");
         }
         sb.append("\nПросьба оплатить до следующей игры.");
-        String message = sb.toString();
-        if (message.length() > 4000) message = message.substring(0, 4000);
-        try {
-            telegramClient.execute(SendMessage.builder().chatId(chatId).text(message).build());
-            return ResponseEntity.ok(new ActionResult(true, "Напоминание о взносе отправлено в чат команды.", null));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(new ActionResult(false, null, "Не удалось отправить: " + e.getMessage()));
-        }
+        Long statusId = outboxService.enqueueMessage(chatId, sb.toString(), null, IntegrationEvent.EventType.DEBT_REMINDER, teamId, null);
+        return ResponseEntity.accepted().body(new ActionResult(true, "Напоминание о взносе поставлено в очередь отправки в чат команды.", null, statusId));
     }
 
     @GetMapping("/settings")
@@ -645,10 +637,7 @@ public class AdminApiController {
                 String timeStr = event.getEventDate().atZone(ZoneId.systemDefault()).format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm"));
                 String loc = (event.getLocation() != null && !event.getLocation().isBlank()) ? "\n🏟️ " + event.getLocation() : "";
                 String msg = "[НОВОЕ СОБЫТИЕ]\n" + (type == Event.EventType.TRAINING ? "🏋️ " : "🏀 ") + event.getTitle() + "\n📅 " + timeStr + loc;
-                try {
-                    telegramClient.execute(SendMessage.builder().chatId(chatId).text(msg).build());
-                } catch (Exception ignored) {
-                }
+                outboxService.enqueueMessage(chatId, msg, null, IntegrationEvent.EventType.EVENT_ANNOUNCE, teamId, null);
             }
         }
         return ResponseEntity.ok(new ActionResult(true, "Событие создано и отправлено в чат команды.", null));
@@ -715,7 +704,13 @@ public class AdminApiController {
     public record MatchCreateDto(String opponent, String date, String time, String location) {}
     public record MatchUpdateDto(String opponent, String date, String time, String location) {}
     public record ResultDto(int ourScore, int opponentScore) {}
-    public record ActionResult(boolean success, String message, String data) {}
+    /** statusId — id отправки в очереди (ответ 202), статус: GET /send-status/{statusId}. */
+    public record ActionResult(boolean success, String message, String data, Long statusId) {
+        public ActionResult(boolean success, String message, String data) {
+            this(success, message, data, null);
+        }
+    }
+    public record SendStatusDto(Long id, String status, int attempts, String error, String deliveredAt) {}
     public record DebtListDto(List<PlayerDto> debtors) {}
     public record DebtSetDto(String playerName, String amount) {}
     public record SettingsDto(String channelId, String groupChatId) {}
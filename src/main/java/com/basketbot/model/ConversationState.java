@@ -0,0 +1,90 @@
+package com.basketbot.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/** Состояние незавершённого диалога бота (см. ConversationStateStore): чат + сценарий -> значение до expiresAt. */
+@Entity
+@Table(name = "conversation_state")
+@IdClass(ConversationState.Key.class)
+public class ConversationState {
+
+    @Id
+    @Column(name = "chat_id", nullable = false)
+    private Long chatId;
+
+    @Id
+    @Column(nullable = false, length = 20)
+    private String flow;
+
+    @Column(name = "state_value", nullable = false, length = 255)
+    private String value;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public Long getChatId() {
+        return chatId;
+    }
+
+    public void setChatId(Long chatId) {
+        this.chatId = chatId;
+    }
+
+    public String getFlow() {
+        return flow;
+    }
+
+    public void setFlow(String flow) {
+        this.flow = flow;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public static class Key implements Serializable {
+
+        private Long chatId;
+        private String flow;
+
+        public Key() {
+        }
+
+        public Key(Long chatId, String flow) {
+            this.chatId = chatId;
+            this.flow = flow;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(chatId, key.chatId) && Objects.equals(flow, key.flow);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(chatId, flow);
+        }
+    }
+}
@@ -14,7 +14,7 @@ public class IntegrationEvent {
         REMINDER_24H,
         /** Напоминание за 3 ч до матча */
         REMINDER_3H,
-        /** Статистика подтверждений в чат */
+        /** Статистика подтверждений в чат (устарело: счётчики теперь в сообщении REMINDER_24H) */
         REMINDER_STATS,
         /** Напоминание после матча (результат) */
         REMINDER_AFTER_MATCH,
@@ -25,7 +25,11 @@ public class IntegrationEvent {
         /** Опрос в чат команды */
         POLL,
         /** Публикация в канал (карточка, пост) */
-        CHANNEL_POST
+        CHANNEL_POST,
+        /** Уведомление из админки в чат команды */
+        TEAM_NOTIFY,
+        /** Анонс нового события в чат команды */
+        EVENT_ANNOUNCE
     }
 
     @Id
@@ -51,6 +55,10 @@ public class IntegrationEvent {
     @Column(name = "match_id")
     private Long matchId;
 
+    /** Сколько раз отправка повторялась до итогового результата */
+    @Column(nullable = false)
+    private int retries;
+
     @Column(name = "created_at", nullable = false)
     private Instant createdAt = Instant.now();
 
@@ -75,6 +83,9 @@ public class IntegrationEvent {
     public Long getMatchId() { return matchId; }
     public void setMatchId(Long matchId) { this.matchId = matchId; }
 
+    public int getRetries() { return retries; }
+    public void setRetries(int retries) { this.retries = retries; }
+
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 }
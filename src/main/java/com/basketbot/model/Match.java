@@ -56,6 +56,13 @@ public class Match {
     @Column(name = "reminder_24h_sent_at")
     private Instant reminder24hSentAt;
 
+    /** Куда ушло напоминание за 24 ч (для редактирования счётчиков ответов). */
+    @Column(name = "reminder_24h_chat_id", length = 64)
+    private String reminder24hChatId;
+
+    @Column(name = "reminder_24h_message_id")
+    private Integer reminder24hMessageId;
+
     @Column(name = "reminder_stats_sent", nullable = false)
     private boolean reminderStatsSent = false;
 
@@ -145,6 +152,22 @@ public class Match {
         this.reminder24hSentAt = reminder24hSentAt;
     }
 
+    public String getReminder24hChatId() {
+        return reminder24hChatId;
+    }
+
+    public void setReminder24hChatId(String reminder24hChatId) {
+        this.reminder24hChatId = reminder24hChatId;
+    }
+
+    public Integer getReminder24hMessageId() {
+        return reminder24hMessageId;
+    }
+
+    public void setReminder24hMessageId(Integer reminder24hMessageId) {
+        this.reminder24hMessageId = reminder24hMessageId;
+    }
+
     public boolean isReminderStatsSent() {
         return reminderStatsSent;
     }
@@ -0,0 +1,130 @@
+package com.basketbot.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/** Исходящее сообщение Telegram в очереди доставки (таблица telegram_outbox, см. OutboxRelay). */
+@Entity
+@Table(name = "telegram_outbox")
+public class OutboxMessage {
+
+    public enum Status {
+        /** Ждёт отправки */
+        PENDING,
+        /** Захвачено экземпляром (claimedBy) и отправляется; после leaseUntil может быть захвачено снова */
+        IN_FLIGHT,
+        /** Доставлено */
+        DELIVERED,
+        /** Не доставлено после всех попыток (dead letter): видно в админке, можно отправить повторно */
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "chat_id", nullable = false, length = 64)
+    private String chatId;
+
+    /** Текст сообщения или подпись к фото */
+    @Column(columnDefinition = "TEXT")
+    private String text;
+
+    /** Inline-клавиатура в JSON (как в Bot API) */
+    @Column(name = "reply_markup", columnDefinition = "TEXT")
+    private String replyMarkup;
+
+    /** PNG для sendPhoto; null — обычное текстовое сообщение */
+    @Column(length = 10 * 1024 * 1024)
+    private byte[] photo;
+
+    @Column(name = "photo_name", length = 100)
+    private String photoName;
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    @Enumerated(EnumType.STRING)
+    private IntegrationEvent.EventType eventType;
+
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Column(name = "match_id")
+    private Long matchId;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now();
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt = Instant.now();
+
+    @Column(name = "delivered_at")
+    private Instant deliveredAt;
+
+    /** Экземпляр, захвативший сообщение для отправки */
+    @Column(name = "claimed_by", length = 200)
+    private String claimedBy;
+
+    @Column(name = "lease_until")
+    private Instant leaseUntil;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getChatId() { return chatId; }
+    public void setChatId(String chatId) { this.chatId = chatId; }
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    public String getReplyMarkup() { return replyMarkup; }
+    public void setReplyMarkup(String replyMarkup) { this.replyMarkup = replyMarkup; }
+
+    public byte[] getPhoto() { return photo; }
+    public void setPhoto(byte[] photo) { this.photo = photo; }
+
+    public String getPhotoName() { return photoName; }
+    public void setPhotoName(String photoName) { this.photoName = photoName; }
+
+    public IntegrationEvent.EventType getEventType() { return eventType; }
+    public void setEventType(IntegrationEvent.EventType eventType) { this.eventType = eventType; }
+
+    public Long getTeamId() { return teamId; }
+    public void setTeamId(Long teamId) { this.teamId = teamId; }
+
+    public Long getMatchId() { return matchId; }
+    public void setMatchId(Long matchId) { this.matchId = matchId; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(Instant nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public Instant getDeliveredAt() { return deliveredAt; }
+    public void setDeliveredAt(Instant deliveredAt) { this.deliveredAt = deliveredAt; }
+
+    public String getClaimedBy() { return claimedBy; }
+    public void setClaimedBy(String claimedBy) { this.claimedBy = claimedBy; }
+
+    public Instant getLeaseUntil() { return leaseUntil; }
+    public void setLeaseUntil(Instant leaseUntil) { this.leaseUntil = leaseUntil; }
+}
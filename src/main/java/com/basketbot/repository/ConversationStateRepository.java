@@ -0,0 +1,30 @@
+package com.basketbot.repository;
+
+import com.basketbot.model.ConversationState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface ConversationStateRepository extends JpaRepository<ConversationState, ConversationState.Key> {
+
+    @Query("SELECT s FROM ConversationState s WHERE s.chatId = :chatId AND s.flow = :flow AND s.expiresAt > :now")
+    Optional<ConversationState> findActive(long chatId, String flow, Instant now);
+
+    /** Вставка или замена одним запросом (PostgreSQL). */
+    @Modifying
+    @Query(value = "INSERT INTO conversation_state (chat_id, flow, state_value, expires_at) VALUES (:chatId, :flow, :value, :expiresAt) "
+            + "ON CONFLICT (chat_id, flow) DO UPDATE SET state_value = EXCLUDED.state_value, expires_at = EXCLUDED.expires_at",
+            nativeQuery = true)
+    void upsert(long chatId, String flow, String value, Instant expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM ConversationState s WHERE s.chatId = :chatId AND s.flow = :flow")
+    int deleteByKey(long chatId, String flow);
+
+    @Modifying
+    @Query("DELETE FROM ConversationState s WHERE s.expiresAt <= :now")
+    int deleteExpired(Instant now);
+}
@@ -2,7 +2,10 @@ package com.basketbot.repository;
 
 import com.basketbot.model.EventAttendance;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +16,38 @@ public interface EventAttendanceRepository extends JpaRepository<EventAttendance
     Optional<EventAttendance> findByMatchIdAndTelegramUserId(Long matchId, String telegramUserId);
 
     List<EventAttendance> findByTelegramUserId(String telegramUserId);
+
+    /** Сводка ответов по матчу: число ответов по статусам и активных участников команды матча. */
+    interface AttendanceSummary {
+        Long getMatchId();
+        long getComing();
+        long getLate();
+        long getNotComing();
+        long getActiveMembers();
+    }
+
+    /**
+     * Сводка по нескольким матчам одним запросом (GROUP BY по матчу, участники — подзапросом); строки ответов
+     * и участники не загружаются. Матчи без ответов тоже попадают в результат, несуществующие — нет.
+     */
+    @Query(value = "SELECT m.id AS \"matchId\", "
+            + "COUNT(CASE WHEN a.status = 'COMING' THEN 1 END) AS \"coming\", "
+            + "COUNT(CASE WHEN a.status = 'LATE' THEN 1 END) AS \"late\", "
+            + "COUNT(CASE WHEN a.status = 'NOT_COMING' THEN 1 END) AS \"notComing\", "
+            + "(SELECT COUNT(*) FROM team_members tm WHERE tm.team_id = m.team_id AND tm.is_active = true) AS \"activeMembers\" "
+            + "FROM matches m LEFT JOIN event_attendance a ON a.match_id = m.id "
+            + "WHERE m.id IN (:matchIds) GROUP BY m.id, m.team_id",
+            nativeQuery = true)
+    List<AttendanceSummary> summarize(Collection<Long> matchIds);
+
+    /**
+     * Ответ участника одним запросом (PostgreSQL): вставка или обновление статуса по уникальному ключу
+     * (match_id, telegram_user_id). Матч не загружается; 0 — матча нет.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO event_attendance (match_id, telegram_user_id, status, created_at) "
+            + "SELECT m.id, :telegramUserId, :status, NOW() FROM matches m WHERE m.id = :matchId "
+            + "ON CONFLICT (match_id, telegram_user_id) DO UPDATE SET status = EXCLUDED.status",
+            nativeQuery = true)
+    int upsertStatus(long matchId, String telegramUserId, String status);
 }
@@ -0,0 +1,22 @@
+package com.basketbot.repository;
+
+import com.basketbot.model.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    @Modifying
+    @Query("UPDATE JobLease l SET l.heartbeatAt = :now WHERE l.jobName = :jobName AND l.node = :node AND l.releasedAt IS NULL")
+    int heartbeat(String jobName, String node, Instant now);
+
+    @Modifying
+    @Query("UPDATE JobLease l SET l.releasedAt = :now WHERE l.jobName = :jobName AND l.node = :node")
+    int release(String jobName, String node, Instant now);
+
+    List<JobLease> findAllByOrderByJobNameAsc();
+}
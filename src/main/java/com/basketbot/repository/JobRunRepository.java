@@ -0,0 +1,17 @@
+package com.basketbot.repository;
+
+import com.basketbot.model.JobRun;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface JobRunRepository extends JpaRepository<JobRun, Long> {
+
+    Optional<JobRun> findFirstByJobNameAndSuccessTrueOrderByStartedAtDesc(String jobName);
+
+    @Query("SELECT r FROM JobRun r ORDER BY r.startedAt DESC")
+    List<JobRun> findRecent(Pageable pageable);
+}
@@ -2,6 +2,7 @@ package com.basketbot.repository;
 
 import com.basketbot.model.Match;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -25,16 +26,33 @@ public interface MatchRepository extends JpaRepository<Match, Long> {
 
     Optional<Match> findFirstByTeamIdAndStatusAndDateAfterOrderByDateAsc(Long teamId, Match.Status status, Instant after);
 
-    @Query("SELECT m FROM Match m JOIN FETCH m.team WHERE m.status = 'SCHEDULED' AND m.date BETWEEN :from AND :to AND m.reminder24hSent = false")
-    List<Match> findFor24hReminder(@Param("from") Instant from, @Param("to") Instant to);
-
-    @Query("SELECT m FROM Match m JOIN FETCH m.team WHERE m.status = 'SCHEDULED' AND m.date BETWEEN :from AND :to AND m.reminder3hSent = false")
-    List<Match> findFor3hReminder(@Param("from") Instant from, @Param("to") Instant to);
-
-    @Query("SELECT m FROM Match m JOIN FETCH m.team WHERE m.status = 'SCHEDULED' AND m.date BETWEEN :from AND :to AND m.reminderAfterSent = false")
-    List<Match> findForAfterMatchReminder(@Param("from") Instant from, @Param("to") Instant to);
-
-    /** Матчи, для которых 24h напоминание отправлено 2+ часа назад и статистику ещё не отправляли. */
-    @Query("SELECT m FROM Match m JOIN FETCH m.team WHERE m.reminder24hSentAt IS NOT NULL AND m.reminder24hSentAt < :before AND m.reminderStatsSent = false")
-    List<Match> findForAttendanceStats(@Param("before") Instant before);
+    /*
+     * Захват матчей для напоминаний (PostgreSQL): FOR UPDATE SKIP LOCKED — строки, которые уже обрабатывает
+     * другой экземпляр, пропускаются. Блокировка держится до конца транзакции, в которой ставится флаг «отправлено».
+     */
+    @Query(value = "SELECT * FROM matches WHERE status = 'SCHEDULED' AND date BETWEEN :from AND :to AND reminder_24h_sent = false "
+            + "ORDER BY date LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Match> claimFor24hReminder(@Param("from") Instant from, @Param("to") Instant to, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM matches WHERE status = 'SCHEDULED' AND date BETWEEN :from AND :to AND reminder_3h_sent = false "
+            + "ORDER BY date LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Match> claimFor3hReminder(@Param("from") Instant from, @Param("to") Instant to, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM matches WHERE status = 'SCHEDULED' AND date BETWEEN :from AND :to AND reminder_after_sent = false "
+            + "ORDER BY date LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Match> claimForAfterMatchReminder(@Param("from") Instant from, @Param("to") Instant to, @Param("limit") int limit);
+
+    /** Матч по id, если его строку сейчас никто не держит; empty — нет матча или он занят другим экземпляром. */
+    @Query(value = "SELECT * FROM matches WHERE id = :id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<Match> claimById(@Param("id") Long id);
+
+    /** Запланированные матчи с датой в (from, to], у которых отправлены не все напоминания (загрузка в ReminderTimer). */
+    @Query("SELECT m FROM Match m WHERE m.status = 'SCHEDULED' AND m.date > :from AND m.date <= :to "
+            + "AND (m.reminder24hSent = false OR m.reminder3hSent = false OR m.reminderAfterSent = false) ORDER BY m.date")
+    List<Match> findForReminderTimer(@Param("from") Instant from, @Param("to") Instant to);
+
+    /** Запомнить доставленное напоминание за 24 ч (его редактируют при ответах игроков). */
+    @Modifying
+    @Query("UPDATE Match m SET m.reminder24hChatId = :chatId, m.reminder24hMessageId = :messageId WHERE m.id = :id")
+    int setReminder24hMessage(@Param("id") Long id, @Param("chatId") String chatId, @Param("messageId") Integer messageId);
 }
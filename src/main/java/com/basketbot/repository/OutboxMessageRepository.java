@@ -0,0 +1,95 @@
+package com.basketbot.repository;
+
+import com.basketbot.model.IntegrationEvent;
+import com.basketbot.model.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /** Сообщения, которые пора отправить, в порядке постановки. */
+    @Query("SELECT m FROM OutboxMessage m WHERE m.status = :status AND m.nextAttemptAt <= :now ORDER BY m.id")
+    List<OutboxMessage> findDue(OutboxMessage.Status status, Instant now, Pageable pageable);
+
+    /**
+     * Чаты, в которых есть что отправить (ожидающие, которым пора, или захваченные с истёкшей арендой — экземпляр упал
+     * или потерял связь с БД), в порядке самого раннего такого сообщения.
+     */
+    @Query("SELECT m.chatId FROM OutboxMessage m WHERE (m.status = :pending AND m.nextAttemptAt <= :now) "
+            + "OR (m.status = :inFlight AND m.leaseUntil < :now) GROUP BY m.chatId ORDER BY MIN(m.id)")
+    List<String> findDueChats(OutboxMessage.Status pending, OutboxMessage.Status inFlight, Instant now, Pageable pageable);
+
+    /*
+     * Блокировка очереди чата: первая незавершённая строка чата FOR UPDATE (до конца транзакции захвата).
+     * Экземпляры, захватывающие один чат, выполняют захват по очереди и видят строки, захваченные предыдущим.
+     */
+    @Query(value = "SELECT id FROM telegram_outbox WHERE chat_id = :chatId AND status IN ('PENDING', 'IN_FLIGHT') "
+            + "ORDER BY id LIMIT 1 FOR UPDATE", nativeQuery = true)
+    List<Long> lockChatQueue(@Param("chatId") String chatId);
+
+    /** Незавершённые сообщения чата (ожидающие и захваченные) в порядке постановки. */
+    @Query("SELECT m FROM OutboxMessage m WHERE m.chatId = :chatId AND m.status IN :statuses ORDER BY m.id")
+    List<OutboxMessage> findChatQueue(String chatId, Collection<OutboxMessage.Status> statuses, Pageable pageable);
+
+    /**
+     * Захват: ожидающие или с истёкшей арендой строки из ids переходят в IN_FLIGHT за node. Условие проверяется
+     * в самом UPDATE, поэтому из нескольких экземпляров строку получает один (второй после ожидания блокировки
+     * видит уже IN_FLIGHT с действующей арендой).
+     */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = :inFlight, m.claimedBy = :node, m.leaseUntil = :leaseUntil "
+            + "WHERE m.id IN :ids AND (m.status = :pending OR (m.status = :inFlight AND m.leaseUntil < :now))")
+    int claim(Collection<Long> ids, String node, Instant leaseUntil, Instant now,
+              OutboxMessage.Status pending, OutboxMessage.Status inFlight);
+
+    @Query("SELECT m FROM OutboxMessage m WHERE m.id IN :ids AND m.status = :status AND m.claimedBy = :node ORDER BY m.id")
+    List<OutboxMessage> findClaimed(Collection<Long> ids, OutboxMessage.Status status, String node);
+
+    /** Продлить аренду сообщений, которые node ещё отправляет. */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.leaseUntil = :leaseUntil WHERE m.id IN :ids AND m.status = :status AND m.claimedBy = :node")
+    int renewLeases(Collection<Long> ids, OutboxMessage.Status status, String node, Instant leaseUntil);
+
+    /** Вернуть захваченное node сообщение в очередь, не засчитывая попытку (отправка не начиналась). */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = :pending, m.claimedBy = null, m.leaseUntil = null "
+            + "WHERE m.id = :id AND m.status = :inFlight AND m.claimedBy = :node")
+    int release(long id, String node, OutboxMessage.Status inFlight, OutboxMessage.Status pending);
+
+    /** Доставлено: картинка больше не нужна. */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = :status, m.deliveredAt = :now, m.attempts = m.attempts + :attempts, "
+            + "m.lastError = null, m.photo = null, m.leaseUntil = null WHERE m.id = :id")
+    int markDelivered(long id, OutboxMessage.Status status, Instant now, int attempts);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = :status, m.attempts = m.attempts + :attempts, m.lastError = :error, "
+            + "m.leaseUntil = null WHERE m.id = :id")
+    int markFailed(long id, OutboxMessage.Status status, String error, int attempts);
+
+    /** Ожидающие сообщения чата, которые можно склеить (без картинки и кнопок), в порядке постановки. */
+    @Query("SELECT m FROM OutboxMessage m WHERE m.status = :status AND m.chatId = :chatId AND m.photo IS NULL "
+            + "AND m.replyMarkup IS NULL AND m.eventType IN :types ORDER BY m.id")
+    List<OutboxMessage> findCoalescable(OutboxMessage.Status status, String chatId,
+                                        Collection<IntegrationEvent.EventType> types, Pageable pageable);
+
+    /** Недоставленные (dead letter), новые первыми. */
+    @Query("SELECT m FROM OutboxMessage m WHERE m.status = :status ORDER BY m.id DESC")
+    List<OutboxMessage> findByStatusNewestFirst(OutboxMessage.Status status, Pageable pageable);
+
+    /** Вернуть сообщение из dead letter в очередь. */
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = :to, m.nextAttemptAt = :now WHERE m.id = :id AND m.status = :from")
+    int requeue(long id, OutboxMessage.Status from, OutboxMessage.Status to, Instant now);
+
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.status = :status AND m.deliveredAt < :before")
+    int deleteDeliveredBefore(OutboxMessage.Status status, Instant before);
+}
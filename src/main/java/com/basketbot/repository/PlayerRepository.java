@@ -1,7 +1,9 @@
 package com.basketbot.repository;
 
 import com.basketbot.model.Player;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -19,4 +21,26 @@ public interface PlayerRepository extends JpaRepository<Player, Long> {
     List<Player> findByTeamIdAndDebtGreaterThan(Long teamId, BigDecimal minDebt);
 
     java.util.Optional<Player> findByTeamIdAndTelegramId(Long teamId, String telegramId);
+
+    /** Должник вместе с чатами его команды (для рассылки по всем командам без загрузки Team/Player). */
+    interface DebtorRow {
+        Long getTeamId();
+        String getTeamChatId();
+        String getGroupChatId();
+        Long getPlayerId();
+        String getName();
+        Integer getNumber();
+        BigDecimal getDebt();
+    }
+
+    /**
+     * Должники всех команд по порядку (team_id, id), страница после ключа (afterTeamId, afterPlayerId) —
+     * keyset-пагинация без OFFSET: каждая страница — проход по индексу с места остановки.
+     */
+    @Query("SELECT t.id AS teamId, t.telegramChatId AS teamChatId, t.groupTelegramChatId AS groupChatId, "
+            + "p.id AS playerId, p.name AS name, p.number AS number, p.debt AS debt "
+            + "FROM Player p JOIN p.team t WHERE p.debt > 0 "
+            + "AND (t.id > :afterTeamId OR (t.id = :afterTeamId AND p.id > :afterPlayerId)) "
+            + "ORDER BY t.id, p.id")
+    List<DebtorRow> findDebtorsAfter(Long afterTeamId, Long afterPlayerId, Pageable page);
 }
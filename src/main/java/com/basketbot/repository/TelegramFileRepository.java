@@ -0,0 +1,7 @@
+package com.basketbot.repository;
+
+import com.basketbot.model.TelegramFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TelegramFileRepository extends JpaRepository<TelegramFile, String> {
+}
@@ -0,0 +1,95 @@
+package com.basketbot.service;
+
+import com.basketbot.model.EventAttendance;
+import com.basketbot.model.Match;
+import com.basketbot.repository.EventAttendanceRepository.AttendanceSummary;
+import com.basketbot.repository.MatchRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardRow;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Сообщение «Подтвердите участие» (напоминание за 24 ч): текст, кнопки и текущие ответы.
+ * После доставки запоминается message_id, и при ответах игроков то же сообщение редактируется со счётчиками.
+ */
+@Service
+public class AttendanceMessageService {
+
+    private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("dd.MM HH:mm").withZone(ZoneId.systemDefault());
+
+    private final MatchRepository matchRepository;
+    private final EventAttendanceService eventAttendanceService;
+
+    public AttendanceMessageService(MatchRepository matchRepository, EventAttendanceService eventAttendanceService) {
+        this.matchRepository = matchRepository;
+        this.eventAttendanceService = eventAttendanceService;
+    }
+
+    /** Текст напоминания; counts == null — без счётчиков (при первой отправке ответов ещё нет). */
+    public String reminderText(Match match, Map<EventAttendance.Status, Long> counts) {
+        String timeStr = TIME_FMT.format(match.getDate());
+        String location = (match.getLocation() != null && !match.getLocation().isBlank()) ? "\n🏟️ " + match.getLocation() : "";
+        String text = "[НОВОЕ СОБЫТИЕ]\n🏀 Игра vs " + match.getOpponent() + "\n📅 " + timeStr + location + "\n\nПодтвердите участие:";
+        if (counts == null) return text;
+        return text + "\n\n🟢 Будут: " + counts.getOrDefault(EventAttendance.Status.COMING, 0L)
+                + "\n🟡 Опоздают: " + counts.getOrDefault(EventAttendance.Status.LATE, 0L)
+                + "\n🔴 Не смогут: " + counts.getOrDefault(EventAttendance.Status.NOT_COMING, 0L);
+    }
+
+    /** Текст со счётчиками из сводки; «Не ответили» — если в команде есть активные участники. */
+    public String liveText(Match match, AttendanceSummary summary) {
+        String text = reminderText(match, EventAttendanceService.countsOf(summary));
+        if (summary == null || summary.getActiveMembers() == 0) return text;
+        long silent = Math.max(0L, summary.getActiveMembers() - EventAttendanceService.respondedOf(summary));
+        return text + "\n⚪ Не ответили: " + silent;
+    }
+
+    public InlineKeyboardMarkup keyboard(long matchId) {
+        InlineKeyboardRow row = new InlineKeyboardRow();
+        row.add(InlineKeyboardButton.builder().text("🟢 Буду").callbackData("attend:" + matchId + ":COMING").build());
+        row.add(InlineKeyboardButton.builder().text("🟡 Опоздаю").callbackData("attend:" + matchId + ":LATE").build());
+        row.add(InlineKeyboardButton.builder().text("🔴 Не смогу").callbackData("attend:" + matchId + ":NOT_COMING").build());
+        return InlineKeyboardMarkup.builder().keyboard(List.of(row)).build();
+    }
+
+    /** Напоминание доставлено: сохранить, какое сообщение редактировать. */
+    @Transactional
+    public void rememberReminderMessage(Long matchId, String chatId, Integer messageId) {
+        if (matchId == null || messageId == null) return;
+        matchRepository.setReminder24hMessage(matchId, chatId, messageId);
+    }
+
+    /** Актуальное содержимое сообщения напоминания или empty, если оно не отправлено (или id не сохранён). */
+    @Transactional(readOnly = true)
+    public Optional<LiveMessage> currentMessage(long matchId) {
+        return Optional.ofNullable(currentMessages(List.of(matchId)).get(matchId));
+    }
+
+    /** То же для нескольких матчей: матчи одним запросом, счётчики всех матчей — одним сгруппированным запросом. */
+    @Transactional(readOnly = true)
+    public Map<Long, LiveMessage> currentMessages(Collection<Long> matchIds) {
+        List<Match> matches = matchRepository.findAllById(matchIds).stream()
+                .filter(m -> m.getReminder24hChatId() != null && m.getReminder24hMessageId() != null)
+                .toList();
+        if (matches.isEmpty()) return Map.of();
+        Map<Long, AttendanceSummary> summaries = eventAttendanceService.getSummaries(matches.stream().map(Match::getId).toList());
+        Map<Long, LiveMessage> result = new HashMap<>();
+        for (Match m : matches) {
+            result.put(m.getId(), new LiveMessage(m.getReminder24hChatId(), m.getReminder24hMessageId(),
+                    liveText(m, summaries.get(m.getId())), keyboard(m.getId())));
+        }
+        return result;
+    }
+
+    public record LiveMessage(String chatId, Integer messageId, String text, InlineKeyboardMarkup keyboard) {}
+}
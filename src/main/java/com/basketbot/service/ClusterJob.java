@@ -0,0 +1,27 @@
+package com.basketbot.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Задание выполняется одним экземпляром кластера (см. {@link JobCoordinator}): остальные экземпляры пропускают запуск.
+ * Ставится рядом с {@code @Scheduled}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ClusterJob {
+
+    /** Имя задания (ключ блокировки и строка в истории запусков). */
+    String value();
+
+    /**
+     * Не запускать, если успешный запуск был раньше, чем столько назад (например "1h").
+     * Нужен для коротких заданий по cron: экземпляр с отстающими часами иначе возьмёт уже отпущенную блокировку
+     * и выполнит то же задание второй раз. Пусто — без ограничения.
+     */
+    String minInterval() default "";
+}
@@ -4,12 +4,15 @@ import com.basketbot.model.EventAttendance;
 import com.basketbot.model.Match;
 import com.basketbot.model.TeamMember;
 import com.basketbot.repository.EventAttendanceRepository;
+import com.basketbot.repository.EventAttendanceRepository.AttendanceSummary;
 import com.basketbot.repository.MatchRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -57,23 +60,50 @@ public class EventAttendanceService {
                 );
     }
 
+    /**
+     * Быстрый путь для кнопок «Буду/Опоздаю/Не смогу»: один INSERT … ON CONFLICT DO UPDATE без загрузки матча.
+     * false — матч не найден.
+     */
+    @Transactional
+    public boolean upsertAttendance(long matchId, String telegramUserId, EventAttendance.Status status) {
+        if (telegramUserId == null || telegramUserId.isBlank() || status == null) return false;
+        return eventAttendanceRepository.upsertStatus(matchId, telegramUserId, status.name()) > 0;
+    }
+
     /** Статистика по матчу: количество по каждому статусу и не ответивших (всего участников - ответивших). */
     @Transactional(readOnly = true)
     public Map<EventAttendance.Status, Long> getCountsByStatus(Long matchId) {
-        Map<EventAttendance.Status, Long> counts = new HashMap<>();
-        for (EventAttendance.Status s : EventAttendance.Status.values()) {
-            counts.put(s, 0L);
-        }
-        List<EventAttendance> list = eventAttendanceRepository.findByMatchId(matchId);
-        for (EventAttendance a : list) {
-            counts.merge(a.getStatus(), 1L, Long::sum);
-        }
-        return counts;
+        return countsOf(getSummaries(List.of(matchId)).get(matchId));
     }
 
     @Transactional(readOnly = true)
     public int getRespondedCount(Long matchId) {
-        return eventAttendanceRepository.findByMatchId(matchId).size();
+        AttendanceSummary summary = getSummaries(List.of(matchId)).get(matchId);
+        return summary != null ? (int) respondedOf(summary) : 0;
+    }
+
+    /** Сводки ответов по матчам (один запрос на все matchIds); ключ — id матча. */
+    @Transactional(readOnly = true)
+    public Map<Long, AttendanceSummary> getSummaries(Collection<Long> matchIds) {
+        if (matchIds == null || matchIds.isEmpty()) return Map.of();
+        Map<Long, AttendanceSummary> result = new HashMap<>();
+        for (AttendanceSummary s : eventAttendanceRepository.summarize(matchIds)) {
+            result.put(s.getMatchId(), s);
+        }
+        return result;
+    }
+
+    /** Количество по каждому статусу (все статусы присутствуют); summary == null — нули. */
+    public static Map<EventAttendance.Status, Long> countsOf(AttendanceSummary summary) {
+        Map<EventAttendance.Status, Long> counts = new EnumMap<>(EventAttendance.Status.class);
+        counts.put(EventAttendance.Status.COMING, summary != null ? summary.getComing() : 0L);
+        counts.put(EventAttendance.Status.LATE, summary != null ? summary.getLate() : 0L);
+        counts.put(EventAttendance.Status.NOT_COMING, summary != null ? summary.getNotComing() : 0L);
+        return counts;
+    }
+
+    public static long respondedOf(AttendanceSummary summary) {
+        return summary.getComing() + summary.getLate() + summary.getNotComing();
     }
 
     /** Состав матча по подтверждениям: кто ответил (с именем и статусом) и кто не ответил. */
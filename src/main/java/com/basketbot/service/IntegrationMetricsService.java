@@ -27,6 +27,13 @@ public class IntegrationMetricsService {
     @Transactional
     public void record(IntegrationEvent.EventType eventType, String targetChatId, boolean success,
                        String errorMessage, Long teamId, Long matchId) {
+        record(eventType, targetChatId, success, errorMessage, teamId, matchId, 0);
+    }
+
+    /** retries — сколько раз отправка повторялась (429, 5xx, сеть) до итогового результата. */
+    @Transactional
+    public void record(IntegrationEvent.EventType eventType, String targetChatId, boolean success,
+                       String errorMessage, Long teamId, Long matchId, int retries) {
         IntegrationEvent e = new IntegrationEvent();
         e.setEventType(eventType);
         e.setTargetChatId(targetChatId != null && targetChatId.length() > 50 ? targetChatId.substring(0, 50) : targetChatId);
@@ -34,6 +41,7 @@ public class IntegrationMetricsService {
         e.setErrorMessage(errorMessage != null && errorMessage.length() > 2000 ? errorMessage.substring(0, 2000) : errorMessage);
         e.setTeamId(teamId);
         e.setMatchId(matchId);
+        e.setRetries(Math.max(0, retries));
         repository.save(e);
     }
 
@@ -51,17 +59,20 @@ public class IntegrationMetricsService {
         long total = events.size();
         long successCount = events.stream().filter(IntegrationEvent::isSuccess).count();
         long failCount = total - successCount;
+        long retries = events.stream().mapToLong(IntegrationEvent::getRetries).sum();
 
         List<Map<String, Object>> byType = new ArrayList<>();
         for (IntegrationEvent.EventType type : IntegrationEvent.EventType.values()) {
             long ok = events.stream().filter(ev -> ev.getEventType() == type && ev.isSuccess()).count();
             long fail = events.stream().filter(ev -> ev.getEventType() == type && !ev.isSuccess()).count();
+            long typeRetries = events.stream().filter(ev -> ev.getEventType() == type).mapToLong(IntegrationEvent::getRetries).sum();
             if (ok > 0 || fail > 0) {
                 Map<String, Object> row = new LinkedHashMap<>();
                 row.put("eventType", type.name());
                 row.put("label", eventTypeLabel(type));
                 row.put("success", ok);
                 row.put("failed", fail);
+                row.put("retries", typeRetries);
                 byType.add(row);
             }
         }
@@ -72,6 +83,7 @@ public class IntegrationMetricsService {
         result.put("total", total);
         result.put("success", successCount);
         result.put("failed", failCount);
+        result.put("retries", retries);
         result.put("byType", byType);
         return result;
     }
@@ -87,6 +99,8 @@ public class IntegrationMetricsService {
             case INVITE_QR -> "QR приглашения";
             case POLL -> "Опрос";
             case CHANNEL_POST -> "Публикация в канал";
+            case TEAM_NOTIFY -> "Уведомление команде";
+            case EVENT_ANNOUNCE -> "Анонс события";
         };
     }
 }
@@ -0,0 +1,162 @@
+package com.basketbot.service;
+
+import com.basketbot.config.NodeIdentity;
+import jakarta.annotation.PreDestroy;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Одно выполнение задания {@link ClusterJob} на кластер: перед запуском берётся pg_try_advisory_lock на отдельном
+ * соединении (держится до конца задания, при падении узла Postgres снимает его сам). Не взяли — задание уже
+ * выполняет другой узел, запуск пропускается. Пока задание идёт, в job_leases обновляется heartbeat;
+ * каждый запуск (узел, длительность, ошибка) пишется в job_runs.
+ * Не на PostgreSQL (тесты на H2) блокировка не берётся.
+ */
+@Aspect
+@Component
+public class JobCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(JobCoordinator.class);
+
+    /** Пространство ключей advisory-блокировок заданий (первый аргумент pg_try_advisory_lock(int, int)). */
+    private static final int LOCK_NAMESPACE = 0x4A0B;
+
+    private final DataSource dataSource;
+    private final JobRunService jobRunService;
+    private final String node;
+    private final long heartbeatMs;
+    private final ScheduledExecutorService heartbeats;
+
+    public JobCoordinator(DataSource dataSource, JobRunService jobRunService,
+                          NodeIdentity nodeIdentity,
+                          @Value("${app.jobs.heartbeat-interval:10000}") long heartbeatMs) {
+        this.dataSource = dataSource;
+        this.jobRunService = jobRunService;
+        this.node = nodeIdentity.getId();
+        this.heartbeatMs = Math.max(1000L, heartbeatMs);
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "job-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Тело задания. */
+    @FunctionalInterface
+    public interface JobBody {
+        void run() throws Throwable;
+    }
+
+    @Around("@annotation(job)")
+    public Object around(ProceedingJoinPoint joinPoint, ClusterJob job) throws Throwable {
+        Duration minInterval = job.minInterval().isBlank() ? null : DurationStyle.detectAndParse(job.minInterval());
+        runExclusive(job.value(), minInterval, joinPoint::proceed);
+        // Задания @Scheduled ничего не возвращают
+        return null;
+    }
+
+    /**
+     * Выполнить body, если задание jobName сейчас не выполняет другой узел и (при minInterval) успешного запуска
+     * не было последние minInterval. true — выполнено на этом узле.
+     */
+    public boolean runExclusive(String jobName, Duration minInterval, JobBody body) throws Throwable {
+        try (Connection lockConnection = dataSource.getConnection()) {
+            boolean postgres = isPostgres(lockConnection);
+            if (postgres && !tryLock(lockConnection, jobName)) {
+                log.debug("Job {} is running on another node, skipped", jobName);
+                return false;
+            }
+            try {
+                if (minInterval != null) {
+                    Optional<Instant> last = jobRunService.lastSuccessfulStart(jobName);
+                    if (last.isPresent() && last.get().isAfter(Instant.now().minus(minInterval))) {
+                        log.debug("Job {} already ran at {}, skipped", jobName, last.get());
+                        return false;
+                    }
+                }
+                run(jobName, body);
+                return true;
+            } finally {
+                if (postgres) unlock(lockConnection, jobName);
+            }
+        }
+    }
+
+    private void run(String jobName, JobBody body) throws Throwable {
+        Instant startedAt = Instant.now();
+        jobRunService.acquired(jobName, node);
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(() -> {
+            try {
+                jobRunService.heartbeat(jobName, node);
+            } catch (Exception e) {
+                log.warn("Job {}: heartbeat failed: {}", jobName, e.getMessage());
+            }
+        }, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        boolean success = false;
+        String error = null;
+        try {
+            body.run();
+            success = true;
+        } catch (Throwable t) {
+            error = t.toString();
+            throw t;
+        } finally {
+            heartbeat.cancel(false);
+            try {
+                jobRunService.released(jobName, node);
+                jobRunService.recordRun(jobName, node, startedAt, success, error);
+            } catch (Exception e) {
+                log.warn("Job {}: failed to record run", jobName, e);
+            }
+        }
+    }
+
+    private static boolean isPostgres(Connection connection) throws SQLException {
+        return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+    }
+
+    private static boolean tryLock(Connection connection, String jobName) throws SQLException {
+        try (PreparedStatement st = connection.prepareStatement("SELECT pg_try_advisory_lock(?, hashtext(?))")) {
+            st.setInt(1, LOCK_NAMESPACE);
+            st.setString(2, jobName);
+            try (ResultSet rs = st.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static void unlock(Connection connection, String jobName) {
+        try (PreparedStatement st = connection.prepareStatement("SELECT pg_advisory_unlock(?, hashtext(?))")) {
+            st.setInt(1, LOCK_NAMESPACE);
+            st.setString(2, jobName);
+            st.execute();
+        } catch (SQLException e) {
+            // Соединение закроется и блокировка снимется вместе с сессией
+            log.warn("Job {}: failed to release advisory lock: {}", jobName, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+    }
+}
@@ -0,0 +1,80 @@
+package com.basketbot.service;
+
+import com.basketbot.model.JobLease;
+import com.basketbot.model.JobRun;
+import com.basketbot.repository.JobLeaseRepository;
+import com.basketbot.repository.JobRunRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/** Владельцы заданий @ClusterJob и история запусков (для админки: какой узел что выполнял и сколько). */
+@Service
+public class JobRunService {
+
+    private static final int MAX_ERROR = 2000;
+
+    private final JobLeaseRepository leaseRepository;
+    private final JobRunRepository runRepository;
+
+    public JobRunService(JobLeaseRepository leaseRepository, JobRunRepository runRepository) {
+        this.leaseRepository = leaseRepository;
+        this.runRepository = runRepository;
+    }
+
+    @Transactional
+    public void acquired(String jobName, String node) {
+        Instant now = Instant.now();
+        JobLease lease = leaseRepository.findById(jobName).orElseGet(JobLease::new);
+        lease.setJobName(jobName);
+        lease.setNode(node);
+        lease.setAcquiredAt(now);
+        lease.setHeartbeatAt(now);
+        lease.setReleasedAt(null);
+        leaseRepository.save(lease);
+    }
+
+    @Transactional
+    public void heartbeat(String jobName, String node) {
+        leaseRepository.heartbeat(jobName, node, Instant.now());
+    }
+
+    @Transactional
+    public void released(String jobName, String node) {
+        leaseRepository.release(jobName, node, Instant.now());
+    }
+
+    @Transactional
+    public void recordRun(String jobName, String node, Instant startedAt, boolean success, String error) {
+        Instant finishedAt = Instant.now();
+        JobRun run = new JobRun();
+        run.setJobName(jobName);
+        run.setNode(node);
+        run.setStartedAt(startedAt);
+        run.setFinishedAt(finishedAt);
+        run.setDurationMs(finishedAt.toEpochMilli() - startedAt.toEpochMilli());
+        run.setSuccess(success);
+        run.setError(error != null && error.length() > MAX_ERROR ? error.substring(0, MAX_ERROR) : error);
+        runRepository.save(run);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Instant> lastSuccessfulStart(String jobName) {
+        return runRepository.findFirstByJobNameAndSuccessTrueOrderByStartedAtDesc(jobName).map(JobRun::getStartedAt);
+    }
+
+    @Transactional(readOnly = true)
+    public List<JobLease> findLeases() {
+        return leaseRepository.findAllByOrderByJobNameAsc();
+    }
+
+    @Transactional(readOnly = true)
+    public List<JobRun> findRecentRuns(int limit) {
+        if (limit <= 0 || limit > 500) limit = 100;
+        return runRepository.findRecent(PageRequest.of(0, limit));
+    }
+}
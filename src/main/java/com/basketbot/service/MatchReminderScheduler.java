@@ -3,182 +3,342 @@ package com.basketbot.service;
 import com.basketbot.model.Match;
 import com.basketbot.model.Team;
 import com.basketbot.util.TelegramChatIdUtil;
-import com.basketbot.model.EventAttendance;
 import com.basketbot.model.IntegrationEvent;
-import com.basketbot.model.Player;
 import com.basketbot.repository.MatchRepository;
-import com.basketbot.service.PlayerService;
-import com.basketbot.service.TeamService;
+import com.basketbot.repository.PlayerRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
-import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
-import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
-import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardRow;
-import org.telegram.telegrambots.meta.generics.TelegramClient;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Напоминания о матчах: за 24 ч — сообщение с кнопками подтверждения (Буду/Опоздаю/Не смогу), за 3 ч — напоминание, после матча — запрос результата.
+ * Время отправки отслеживает ReminderTimer (очередь точных сроков), runReminders — редкий страховочный скан.
+ * Счётчики ответов показываются в самом сообщении за 24 ч (его правит AttendanceMessageUpdater), отдельной статистики нет.
+ * Сообщения пишутся в очередь telegram_outbox в той же транзакции, что и флаги «отправлено» (см. TelegramOutboxService);
+ * HTTP-запросов внутри транзакции нет, доставляет OutboxRelay.
+ * При reminder-concurrency > 1 скан обрабатывает матчи параллельно, каждый в своей транзакции.
  */
 @Component
 @ConditionalOnProperty(name = "telegram.bot.token")
 public class MatchReminderScheduler {
 
+    private static final Logger log = LoggerFactory.getLogger(MatchReminderScheduler.class);
+    /** Должников за одну страницу в еженедельном напоминании о долгах. */
+    private static final int DEBTOR_PAGE = 500;
     private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("dd.MM HH:mm").withZone(ZoneId.systemDefault());
 
     private final MatchRepository matchRepository;
-    private final TelegramClient telegramClient;
-    private final EventAttendanceService eventAttendanceService;
-    private final TeamMemberService teamMemberService;
-    private final TeamService teamService;
+    private final TelegramOutboxService outboxService;
+    private final AttendanceMessageService attendanceMessageService;
     private final PlayerService playerService;
-    private final IntegrationMetricsService integrationMetricsService;
+    private final TransactionTemplate transactionTemplate;
+    private final int claimBatch;
+    /** Пул параллельного скана; null — матчи обрабатываются последовательно пачками. */
+    private final ExecutorService fanOut;
+    private final Timer tickTimer;
+    private final DistributionSummary tickItems;
+    private final Map<Reminder, Timer> matchTimers = new EnumMap<>(Reminder.class);
 
-    public MatchReminderScheduler(MatchRepository matchRepository, TelegramClient telegramClient,
-                                  EventAttendanceService eventAttendanceService,
-                                  TeamMemberService teamMemberService,
-                                  TeamService teamService,
+    public MatchReminderScheduler(MatchRepository matchRepository, TelegramOutboxService outboxService,
+                                  AttendanceMessageService attendanceMessageService,
                                   PlayerService playerService,
-                                  IntegrationMetricsService integrationMetricsService) {
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${telegram.bot.reminder-claim-batch:20}") int claimBatch,
+                                  @Value("${telegram.bot.reminder-concurrency:1}") int concurrency) {
         this.matchRepository = matchRepository;
-        this.telegramClient = telegramClient;
-        this.eventAttendanceService = eventAttendanceService;
-        this.teamMemberService = teamMemberService;
-        this.teamService = teamService;
+        this.outboxService = outboxService;
+        this.attendanceMessageService = attendanceMessageService;
         this.playerService = playerService;
-        this.integrationMetricsService = integrationMetricsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.claimBatch = Math.max(1, claimBatch);
+        if (concurrency > 1) {
+            AtomicInteger threadNo = new AtomicInteger();
+            this.fanOut = Executors.newFixedThreadPool(concurrency, r -> {
+                Thread t = new Thread(r, "reminder-fanout-" + threadNo.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            this.fanOut = null;
+        }
+        this.tickTimer = Timer.builder("bot.reminders.tick")
+                .description("Длительность страховочного скана напоминаний")
+                .register(meterRegistry);
+        this.tickItems = DistributionSummary.builder("bot.reminders.tick.items")
+                .description("Напоминаний отправлено за скан")
+                .register(meterRegistry);
+        for (Reminder reminder : Reminder.values()) {
+            matchTimers.put(reminder, Timer.builder("bot.reminders.match")
+                    .description("Обработка одного матча: захват, текст, постановка в outbox")
+                    .tag("reminder", reminder.name())
+                    .register(meterRegistry));
+        }
     }
 
-    @Scheduled(cron = "${telegram.bot.reminder-cron:0 */15 * * * ?}")
-    @Transactional
+    /** Напоминание о матче: когда отправлять (смещение от даты матча) и до какого момента оно ещё уместно. */
+    public enum Reminder {
+        BEFORE_24H(Duration.ofHours(-24), Duration.ofHours(-23)),
+        BEFORE_3H(Duration.ofHours(-3), Duration.ofMinutes(-150)),
+        AFTER_MATCH(Duration.ofMinutes(30), Duration.ofHours(25));
+
+        private final Duration due;
+        private final Duration last;
+
+        Reminder(Duration due, Duration last) {
+            this.due = due;
+            this.last = last;
+        }
+
+        public Instant dueAt(Instant matchDate) {
+            return matchDate.plus(due);
+        }
+
+        /** Позже этого момента напоминание не отправляется (опоздали — пропускаем). */
+        public Instant lastAt(Instant matchDate) {
+            return matchDate.plus(last);
+        }
+
+        /** Даты матчей, для которых к моменту now срок напоминания наступил, но не истёк: [earliest, latest]. */
+        public Instant earliestMatchDate(Instant now) {
+            return now.minus(last);
+        }
+
+        public Instant latestMatchDate(Instant now) {
+            return now.minus(due);
+        }
+    }
+
+    /**
+     * Точное время отправки задаёт ReminderTimer; этот скан — страховка (перезапуск, потерянная задача):
+     * отправляет напоминания, срок которых наступил, но ещё не истёк (24 ч — матчи через 23–24 ч,
+     * 3 ч — через 2ч30–3ч, после матча — 0.5–25 ч назад).
+     * Матчи захватываются пачками по claim-batch, каждая пачка — своя короткая транзакция (SKIP LOCKED):
+     * несколько экземпляров делят работу и не отправляют напоминание дважды.
+     * При reminder-concurrency > 1 — параллельно (см. {@link #runParallel}).
+     */
+    @Scheduled(cron = "${telegram.bot.reminder-cron:0 */30 * * * ?}")
     public void runReminders() {
         Instant now = Instant.now();
-        // Окно 24 ч: матчи через 23–25 ч
-        Instant from24 = now.plusSeconds(23 * 3600);
-        Instant to24 = now.plusSeconds(25 * 3600);
-        List<Match> for24 = matchRepository.findFor24hReminder(from24, to24);
-        for (Match m : for24) {
-            send24hReminder(m);
-            m.setReminder24hSent(true);
-            m.setReminder24hSentAt(Instant.now());
-            matchRepository.save(m);
-        }
-
-        // Статистика подтверждений через ~2 ч после 24h напоминания
-        Instant twoHoursAgo = now.minusSeconds(2 * 3600);
-        List<Match> forStats = matchRepository.findForAttendanceStats(twoHoursAgo);
-        for (Match m : forStats) {
-            sendAttendanceStats(m);
-            m.setReminderStatsSent(true);
-            matchRepository.save(m);
-        }
-
-        // Окно 3 ч: матчи через 2ч30 – 3ч30
-        Instant from3 = now.plusSeconds((long) (2.5 * 3600));
-        Instant to3 = now.plusSeconds((long) (3.5 * 3600));
-        List<Match> for3 = matchRepository.findFor3hReminder(from3, to3);
-        for (Match m : for3) {
-            send3hReminder(m);
-            m.setReminder3hSent(true);
-            matchRepository.save(m);
-        }
-
-        // После матча: матч был 0.5–25 ч назад
-        Instant afterFrom = now.minusSeconds(25 * 3600);
-        Instant afterTo = now.minusSeconds((long) (0.5 * 3600));
-        List<Match> forAfter = matchRepository.findForAfterMatchReminder(afterFrom, afterTo);
-        for (Match m : forAfter) {
-            sendAfterMatchReminder(m);
-            m.setReminderAfterSent(true);
-            matchRepository.save(m);
-        }
-    }
-
-    /** Раз в неделю (понедельник 10:00): напоминание о долгах в чат команды. Отключить: telegram.bot.debt-reminder-cron=- */
+        long start = System.nanoTime();
+        int sent = fanOut != null ? runParallel(now) : runSequential(now);
+        tickTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        tickItems.record(sent);
+        if (sent > 0) {
+            log.info("Reminder scan: {} sent in {} ms", sent, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private int runSequential(Instant now) {
+        int sent = 0;
+        for (Reminder reminder : Reminder.values()) {
+            int claimed;
+            do {
+                Integer n = transactionTemplate.execute(status -> claimAndDeliver(reminder, now));
+                claimed = n != null ? n : 0;
+                sent += claimed;
+            } while (claimed == claimBatch);
+        }
+        return sent;
+    }
+
+    /**
+     * Снимок матчей, которым пора отправить напоминание (без блокировок), затем каждый матч — отдельная задача пула:
+     * своя транзакция с claimById (SKIP LOCKED) и повторной проверкой флага. Ошибка по одному матчу откатывает
+     * только его (он уйдёт в следующем скане), остальные отправляются. Сообщения ставятся в outbox, поэтому
+     * общий лимит Bot API соблюдает OutboundDispatcher при доставке, а не пул скана.
+     */
+    private int runParallel(Instant now) {
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (Reminder reminder : Reminder.values()) {
+            List<Long> due = transactionTemplate.execute(status -> matchRepository
+                    .findForReminderTimer(reminder.earliestMatchDate(now), reminder.latestMatchDate(now)).stream()
+                    .filter(m -> !isSent(m, reminder))
+                    .map(Match::getId)
+                    .toList());
+            if (due == null) continue;
+            for (Long matchId : due) {
+                tasks.add(() -> Boolean.TRUE.equals(transactionTemplate.execute(status -> claimAndDeliver(matchId, reminder, now))));
+            }
+        }
+        if (tasks.isEmpty()) return 0;
+        int sent = 0;
+        try {
+            for (Future<Boolean> f : fanOut.invokeAll(tasks)) {
+                try {
+                    if (f.get()) sent++;
+                } catch (ExecutionException e) {
+                    log.warn("Reminder failed: {}", e.getCause() != null ? e.getCause().toString() : e.toString());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return sent;
+    }
+
+    private int claimAndDeliver(Reminder reminder, Instant now) {
+        Instant from = reminder.earliestMatchDate(now);
+        Instant to = reminder.latestMatchDate(now);
+        List<Match> claimed = switch (reminder) {
+            case BEFORE_24H -> matchRepository.claimFor24hReminder(from, to, claimBatch);
+            case BEFORE_3H -> matchRepository.claimFor3hReminder(from, to, claimBatch);
+            case AFTER_MATCH -> matchRepository.claimForAfterMatchReminder(from, to, claimBatch);
+        };
+        for (Match m : claimed) {
+            long start = System.nanoTime();
+            deliver(m, reminder);
+            matchTimers.get(reminder).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return claimed.size();
+    }
+
+    /**
+     * Отправить напоминание по матчу, если оно ещё не отправлено и сейчас его время (вызывает ReminderTimer).
+     * false — пропущено: матч отменён или перенесён, уже отправлено, срок истёк или матч сейчас обрабатывает
+     * другой экземпляр.
+     */
+    @Transactional
+    public boolean fireReminder(Long matchId, Reminder reminder) {
+        return claimAndDeliver(matchId, reminder, Instant.now());
+    }
+
+    private boolean claimAndDeliver(Long matchId, Reminder reminder, Instant now) {
+        long start = System.nanoTime();
+        Match match = matchRepository.claimById(matchId).orElse(null);
+        if (match == null || match.getStatus() != Match.Status.SCHEDULED || isSent(match, reminder)) return false;
+        // Задача на старое время после переноса матча: новая уже запланирована
+        if (now.isBefore(reminder.dueAt(match.getDate()).minusSeconds(1)) || now.isAfter(reminder.lastAt(match.getDate()))) {
+            return false;
+        }
+        deliver(match, reminder);
+        matchTimers.get(reminder).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return true;
+    }
+
+    /** Отправлено ли напоминание по матчу. */
+    public static boolean isSent(Match match, Reminder reminder) {
+        return switch (reminder) {
+            case BEFORE_24H -> match.isReminder24hSent();
+            case BEFORE_3H -> match.isReminder3hSent();
+            case AFTER_MATCH -> match.isReminderAfterSent();
+        };
+    }
+
+    private void deliver(Match match, Reminder reminder) {
+        switch (reminder) {
+            case BEFORE_24H -> {
+                send24hReminder(match);
+                match.setReminder24hSent(true);
+                match.setReminder24hSentAt(Instant.now());
+            }
+            case BEFORE_3H -> {
+                send3hReminder(match);
+                match.setReminder3hSent(true);
+            }
+            case AFTER_MATCH -> {
+                sendAfterMatchReminder(match);
+                match.setReminderAfterSent(true);
+            }
+        }
+        matchRepository.save(match);
+    }
+
+    /**
+     * Раз в неделю (понедельник 10:00): напоминание о долгах в чат команды. Отключить: telegram.bot.debt-reminder-cron=-
+     * Должники всех команд читаются одним упорядоченным по (команда, игрок) потоком страницами по DEBTOR_PAGE
+     * (keyset, каждая страница — своя короткая транзакция); текст команды собирается по мере чтения и ставится
+     * в outbox, как только пошла следующая команда. В памяти — одна страница и текст одной команды.
+     */
     @Scheduled(cron = "${telegram.bot.debt-reminder-cron:0 0 10 ? * MON}")
-    @Transactional(readOnly = true)
+    @ClusterJob(value = "weekly-debt-reminders", minInterval = "1h")
     public void sendWeeklyDebtReminders() {
-        for (Team team : teamService.findAll()) {
-            String chatId = (team.getGroupTelegramChatId() != null && !team.getGroupTelegramChatId().isBlank())
-                    ? TelegramChatIdUtil.normalizeGroupChatId(team.getGroupTelegramChatId())
-                    : team.getTelegramChatId();
-            if (chatId == null || chatId.isBlank()) continue;
-            List<Player> debtors = playerService.findWithDebt(team.getId());
-            if (debtors.isEmpty()) continue;
-            StringBuilder sb = new StringBuilder("💰 Напоминание: кто не оплатил взносы?\n\n");
-            for (Player p : debtors) {
-                sb.append("• ").append(p.getName() != null ? p.getName() : "—");
-                if (p.getNumber() != null) sb.append(" №").append(p.getNumber());
-                sb.append(" — ").append(p.getDebt() != null ? p.getDebt().stripTrailingZeros().toPlainString() : "0").append(" ₽\n");
-            }
-            String text = sb.toString();
-            if (text.length() > 4000) text = text.substring(0, 4000);
-            try {
-                telegramClient.execute(SendMessage.builder().chatId(chatId).text(text).build());
-                integrationMetricsService.record(IntegrationEvent.EventType.DEBT_REMINDER, chatId, true, null, team.getId(), null);
-            } catch (Exception e) {
-                integrationMetricsService.record(IntegrationEvent.EventType.DEBT_REMINDER, chatId, false, e.getMessage(), team.getId(), null);
+        long afterTeamId = 0L;
+        long afterPlayerId = 0L;
+        DebtMessage current = null;
+        while (true) {
+            List<PlayerRepository.DebtorRow> page = playerService.findDebtorsAfter(afterTeamId, afterPlayerId, DEBTOR_PAGE);
+            for (PlayerRepository.DebtorRow row : page) {
+                if (current == null || !current.teamId.equals(row.getTeamId())) {
+                    if (current != null) current.enqueue();
+                    current = new DebtMessage(row);
+                }
+                current.add(row);
             }
+            if (page.size() < DEBTOR_PAGE) break;
+            PlayerRepository.DebtorRow last = page.get(page.size() - 1);
+            afterTeamId = last.getTeamId();
+            afterPlayerId = last.getPlayerId();
         }
+        if (current != null) current.enqueue();
     }
 
-    private void send24hReminder(Match match) {
-        Team team = match.getTeam();
-        String chatId = (team.getGroupTelegramChatId() != null && !team.getGroupTelegramChatId().isBlank())
-                ? TelegramChatIdUtil.normalizeGroupChatId(team.getGroupTelegramChatId())
-                : team.getTelegramChatId();
-        if (chatId == null || chatId.isBlank()) return;
-        String timeStr = TIME_FMT.format(match.getDate());
-        String location = (match.getLocation() != null && !match.getLocation().isBlank()) ? "\n🏟️ " + match.getLocation() : "";
-        String text = "[НОВОЕ СОБЫТИЕ]\n🏀 Игра vs " + match.getOpponent() + "\n📅 " + timeStr + location + "\n\nПодтвердите участие:";
-        InlineKeyboardRow row = new InlineKeyboardRow();
-        row.add(InlineKeyboardButton.builder().text("🟢 Буду").callbackData("attend:" + match.getId() + ":COMING").build());
-        row.add(InlineKeyboardButton.builder().text("🟡 Опоздаю").callbackData("attend:" + match.getId() + ":LATE").build());
-        row.add(InlineKeyboardButton.builder().text("🔴 Не смогу").callbackData("attend:" + match.getId() + ":NOT_COMING").build());
-        InlineKeyboardMarkup keyboard = InlineKeyboardMarkup.builder().keyboard(List.of(row)).build();
-        try {
-            telegramClient.execute(SendMessage.builder()
-                    .chatId(chatId)
-                    .text(text)
-                    .replyMarkup(keyboard)
-                    .build());
-            integrationMetricsService.record(IntegrationEvent.EventType.REMINDER_24H, chatId, true, null, team.getId(), match.getId());
-        } catch (Exception e) {
-            integrationMetricsService.record(IntegrationEvent.EventType.REMINDER_24H, chatId, false, e.getMessage(), team.getId(), match.getId());
+    /** Напоминание о долгах одной команды; chatId == null — писать некуда, строки пропускаются. */
+    private final class DebtMessage {
+        private final Long teamId;
+        private final String chatId;
+        private final StringBuilder sb = new StringBuilder("💰 Напоминание: кто не оплатил взносы?\n\n");
+
+        DebtMessage(PlayerRepository.DebtorRow first) {
+            this.teamId = first.getTeamId();
+            String chat = (first.getGroupChatId() != null && !first.getGroupChatId().isBlank())
+                    ? TelegramChatIdUtil.normalizeGroupChatId(first.getGroupChatId())
+                    : first.getTeamChatId();
+            this.chatId = chat != null && !chat.isBlank() ? chat : null;
+        }
+
+        void add(PlayerRepository.DebtorRow p) {
+            if (chatId == null) return;
+            sb.append("• ").append(p.getName() != null ? p.getName() : "—");
+            if (p.getNumber() != null) sb.append(" №").append(p.getNumber());
+            sb.append(" — ").append(p.getDebt() != null ? p.getDebt().stripTrailingZeros().toPlainString() : "0").append(" ₽\n");
+        }
+
+        void enqueue() {
+            if (chatId == null) return;
+            outboxService.enqueueMessage(chatId, sb.toString(), null, IntegrationEvent.EventType.DEBT_REMINDER, teamId, null);
         }
     }
 
-    private void sendAttendanceStats(Match match) {
+    @PreDestroy
+    public void shutdown() {
+        if (fanOut != null) fanOut.shutdownNow();
+    }
+
+    private void send24hReminder(Match match) {
         Team team = match.getTeam();
         String chatId = (team.getGroupTelegramChatId() != null && !team.getGroupTelegramChatId().isBlank())
                 ? TelegramChatIdUtil.normalizeGroupChatId(team.getGroupTelegramChatId())
                 : team.getTelegramChatId();
         if (chatId == null || chatId.isBlank()) return;
-        var counts = eventAttendanceService.getCountsByStatus(match.getId());
-        long coming = counts.getOrDefault(EventAttendance.Status.COMING, 0L);
-        long late = counts.getOrDefault(EventAttendance.Status.LATE, 0L);
-        long notComing = counts.getOrDefault(EventAttendance.Status.NOT_COMING, 0L);
-        int responded = eventAttendanceService.getRespondedCount(match.getId());
-        int totalMembers = teamMemberService.findByTeamId(team.getId()).stream().filter(m -> m.isActive()).toList().size();
-        int noResponse = Math.max(0, totalMembers - responded);
-        String text = "[Статистика голосования]\n✅ Подтвердили: " + coming
-                + "\n🟡 Опоздают: " + late
-                + "\n❌ Отказались: " + notComing
-                + "\n❓ Не ответили: " + noResponse + (noResponse > 0 ? " (разошлём напоминание)" : "");
-        try {
-            telegramClient.execute(SendMessage.builder().chatId(chatId).text(text).build());
-            integrationMetricsService.record(IntegrationEvent.EventType.REMINDER_STATS, chatId, true, null, team.getId(), match.getId());
-        } catch (Exception e) {
-            integrationMetricsService.record(IntegrationEvent.EventType.REMINDER_STATS, chatId, false, e.getMessage(), team.getId(), match.getId());
-        }
+        outboxService.enqueueMessage(chatId, attendanceMessageService.reminderText(match, null),
+                attendanceMessageService.keyboard(match.getId()), IntegrationEvent.EventType.REMINDER_24H, team.getId(), match.getId());
     }
 
     private void send3hReminder(Match match) {
@@ -189,12 +349,7 @@ public class MatchReminderScheduler {
         if (chatId == null || chatId.isBlank()) return;
         String timeStr = TIME_FMT.format(match.getDate());
         String text = "⏰ Через ~3 часа матч с «" + match.getOpponent() + "» (" + timeStr + "). Удачи!";
-        try {
-            telegramClient.execute(SendMessage.builder().chatId(chatId).text(text).build());
-            integrationMetricsService.record(IntegrationEvent.EventType.REMINDER_3H, chatId, true, null, team.getId(), match.getId());
-        } catch (Exception e) {
-            integrationMetricsService.record(IntegrationEvent.EventType.REMINDER_3H, chatId, false, e.getMessage(), team.getId(), match.getId());
-        }
+        outboxService.enqueueMessage(chatId, text, null, IntegrationEvent.EventType.REMINDER_3H, team.getId(), match.getId());
     }
 
     private void sendAfterMatchReminder(Match match) {
@@ -204,11 +359,6 @@ public class MatchReminderScheduler {
                 : team.getTelegramChatId();
         if (chatId == null || chatId.isBlank()) return;
         String text = "Матч с «" + match.getOpponent() + "» прошёл. Введите результат и статистику: /result";
-        try {
-            telegramClient.execute(SendMessage.builder().chatId(chatId).text(text).build());
-            integrationMetricsService.record(IntegrationEvent.EventType.REMINDER_AFTER_MATCH, chatId, true, null, team.getId(), match.getId());
-        } catch (Exception e) {
-            integrationMetricsService.record(IntegrationEvent.EventType.REMINDER_AFTER_MATCH, chatId, false, e.getMessage(), team.getId(), match.getId());
-        }
+        outboxService.enqueueMessage(chatId, text, null, IntegrationEvent.EventType.REMINDER_AFTER_MATCH, team.getId(), match.getId());
     }
 }
@@ -0,0 +1,5 @@
+package com.basketbot.service;
+
+/** Матч создан, перенесён или отменён: расписание напоминаний нужно пересчитать. */
+public record MatchScheduleChangedEvent(Long matchId) {
+}
@@ -4,6 +4,7 @@ import com.basketbot.model.Match;
 import com.basketbot.model.Team;
 import com.basketbot.repository.MatchRepository;
 import com.basketbot.repository.TeamRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,10 +17,13 @@ public class MatchService {
 
     private final MatchRepository matchRepository;
     private final TeamRepository teamRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public MatchService(MatchRepository matchRepository, TeamRepository teamRepository) {
+    public MatchService(MatchRepository matchRepository, TeamRepository teamRepository,
+                        ApplicationEventPublisher eventPublisher) {
         this.matchRepository = matchRepository;
         this.teamRepository = teamRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional(readOnly = true)
@@ -47,7 +51,9 @@ public class MatchService {
         match.setOpponent(opponent.trim());
         match.setDate(date != null ? date : Instant.now());
         match.setLocation(location != null && !location.isBlank() ? location.trim() : null);
-        return matchRepository.save(match);
+        Match saved = matchRepository.save(match);
+        eventPublisher.publishEvent(new MatchScheduleChangedEvent(saved.getId()));
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -86,7 +92,9 @@ public class MatchService {
         if (opponent != null && !opponent.isBlank()) match.setOpponent(opponent.trim());
         if (date != null) match.setDate(date);
         if (location != null) match.setLocation(location.isBlank() ? null : location.trim());
-        return matchRepository.save(match);
+        Match saved = matchRepository.save(match);
+        eventPublisher.publishEvent(new MatchScheduleChangedEvent(saved.getId()));
+        return saved;
     }
 
     @Transactional
@@ -96,5 +104,6 @@ public class MatchService {
                 .orElseThrow(() -> new IllegalArgumentException("Матч не найден"));
         match.setStatus(Match.Status.CANCELLED);
         matchRepository.save(match);
+        eventPublisher.publishEvent(new MatchScheduleChangedEvent(matchId));
     }
 }
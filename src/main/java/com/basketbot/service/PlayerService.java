@@ -4,6 +4,7 @@ import com.basketbot.model.Player;
 import com.basketbot.model.Team;
 import com.basketbot.repository.PlayerRepository;
 import com.basketbot.repository.TeamRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -57,6 +58,12 @@ public class PlayerService {
         return playerRepository.findByTeamIdAndDebtGreaterThan(teamId, BigDecimal.ZERO);
     }
 
+    /** Страница должников всех команд после ключа (afterTeamId, afterPlayerId); начало — (0, 0). */
+    @Transactional(readOnly = true)
+    public List<PlayerRepository.DebtorRow> findDebtorsAfter(long afterTeamId, long afterPlayerId, int limit) {
+        return playerRepository.findDebtorsAfter(afterTeamId, afterPlayerId, PageRequest.of(0, limit));
+    }
+
     @Transactional
     public Player setDebt(Long teamId, String playerName, BigDecimal amount) {
         String search = playerName != null ? playerName.trim() : "";
@@ -0,0 +1,168 @@
+package com.basketbot.service;
+
+import com.basketbot.model.Match;
+import com.basketbot.repository.MatchRepository;
+import com.basketbot.service.MatchReminderScheduler.Reminder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Напоминания о матчах в точное время: очередь сроков (DelayQueue) вместо скана окон по расписанию.
+ * Загрузка инкрементальная: раз в reminder-load-interval подгружаются матчи, чьи сроки попадают в следующий
+ * горизонт (2 × интервал); создание, перенос и отмена матча (MatchScheduleChangedEvent) пересчитывают его задачи сразу.
+ * Очередь живёт в памяти экземпляра; пропущенное (перезапуск) отправит страховочный скан MatchReminderScheduler.runReminders.
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.bot.token")
+public class ReminderTimer {
+
+    private static final Logger log = LoggerFactory.getLogger(ReminderTimer.class);
+
+    /** Самое раннее напоминание — за 24 ч до матча, самое позднее уместное — через 25 ч после. */
+    private static final Duration EARLIEST_OFFSET = Duration.ofHours(24);
+    private static final Duration LATEST_OFFSET = Duration.ofHours(25);
+
+    private final MatchReminderScheduler scheduler;
+    private final MatchRepository matchRepository;
+    private final Duration lookahead;
+    private final DelayQueue<Task> queue = new DelayQueue<>();
+    private final Map<TaskKey, Task> tasks = new ConcurrentHashMap<>();
+    private final Thread worker;
+    /** Матчи с датой до этого момента уже загружены; позже — подгрузит следующий load(). */
+    private volatile Instant loadedUntil;
+
+    public ReminderTimer(MatchReminderScheduler scheduler, MatchRepository matchRepository, MeterRegistry meterRegistry,
+                         @Value("${telegram.bot.reminder-load-interval:1800000}") long loadIntervalMs) {
+        this.scheduler = scheduler;
+        this.matchRepository = matchRepository;
+        this.lookahead = Duration.ofMillis(Math.max(60_000L, loadIntervalMs) * 2);
+        Gauge.builder("bot.reminders.scheduled", tasks, Map::size)
+                .description("Напоминания о матчах в очереди сроков")
+                .register(meterRegistry);
+        this.worker = new Thread(this::loop, "reminder-timer");
+        this.worker.setDaemon(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        load();
+        worker.start();
+    }
+
+    /** Подгрузить матчи, чьи напоминания наступают в ближайшие lookahead. */
+    @Scheduled(fixedDelayString = "${telegram.bot.reminder-load-interval:1800000}",
+            initialDelayString = "${telegram.bot.reminder-load-interval:1800000}")
+    public synchronized void load() {
+        Instant now = Instant.now();
+        Instant from = loadedUntil != null ? loadedUntil : now.minus(LATEST_OFFSET);
+        Instant to = now.plus(lookahead).plus(EARLIEST_OFFSET);
+        if (!to.isAfter(from)) return;
+        List<Match> matches = matchRepository.findForReminderTimer(from, to);
+        loadedUntil = to;
+        matches.forEach(this::schedule);
+        log.debug("Reminder timer: loaded {} matches up to {}, {} reminders queued", matches.size(), to, tasks.size());
+    }
+
+    /** Создание, перенос или отмена матча: пересчитать его задачи после коммита. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMatchChanged(MatchScheduleChangedEvent event) {
+        if (event.matchId() == null) return;
+        matchRepository.findById(event.matchId()).ifPresentOrElse(this::schedule, () -> {
+            for (Reminder r : Reminder.values()) cancel(new TaskKey(event.matchId(), r));
+        });
+    }
+
+    void schedule(Match match) {
+        Instant now = Instant.now();
+        Instant horizon = loadedUntil;
+        for (Reminder r : Reminder.values()) {
+            TaskKey key = new TaskKey(match.getId(), r);
+            boolean wanted = match.getStatus() == Match.Status.SCHEDULED
+                    && !MatchReminderScheduler.isSent(match, r)
+                    && now.isBefore(r.lastAt(match.getDate()))
+                    // За горизонтом — подгрузит следующий load()
+                    && horizon != null && !match.getDate().isAfter(horizon);
+            if (!wanted) {
+                cancel(key);
+                continue;
+            }
+            Instant fireAt = r.dueAt(match.getDate());
+            Task current = tasks.get(key);
+            if (current != null && current.fireAt.equals(fireAt)) continue;
+            Task task = new Task(key, fireAt);
+            Task previous = tasks.put(key, task);
+            if (previous != null) queue.remove(previous);
+            queue.add(task);
+        }
+    }
+
+    private void cancel(TaskKey key) {
+        Task previous = tasks.remove(key);
+        if (previous != null) queue.remove(previous);
+    }
+
+    private void loop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Task task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            tasks.remove(task.key, task);
+            try {
+                scheduler.fireReminder(task.key.matchId(), task.key.reminder());
+            } catch (Exception e) {
+                log.warn("Reminder {} for match {} failed, the safety scan will retry", task.key.reminder(), task.key.matchId(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.interrupt();
+    }
+
+    private record TaskKey(Long matchId, Reminder reminder) {}
+
+    private static final class Task implements Delayed {
+        private final TaskKey key;
+        private final Instant fireAt;
+
+        Task(TaskKey key, Instant fireAt) {
+            this.key = key;
+            this.fireAt = fireAt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(Instant.now(), fireAt));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return other instanceof Task t ? fireAt.compareTo(t.fireAt)
+                    : Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
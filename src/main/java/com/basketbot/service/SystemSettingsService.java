@@ -10,6 +10,8 @@ public class SystemSettingsService {
 
     public static final String KEY_ADMIN_TELEGRAM_ID = "admin_telegram_id";
     public static final String KEY_ADMIN_TELEGRAM_USERNAME = "admin_telegram_username";
+    /** Последний обработанный update_id бота (апдейты не новее него после перезапуска отбрасываются). */
+    public static final String KEY_TELEGRAM_UPDATE_OFFSET = "telegram_update_offset";
 
     private final SystemSettingRepository repository;
 
@@ -57,6 +59,27 @@ public class SystemSettingsService {
         repository.save(setting);
     }
 
+    @Transactional(readOnly = true)
+    public long getTelegramUpdateOffset() {
+        return repository.findById(KEY_TELEGRAM_UPDATE_OFFSET)
+                .map(SystemSetting::getValue)
+                .filter(v -> v != null && !v.isBlank())
+                .map(Long::parseLong)
+                .orElse(0L);
+    }
+
+    @Transactional
+    public void setTelegramUpdateOffset(long offset) {
+        SystemSetting setting = repository.findById(KEY_TELEGRAM_UPDATE_OFFSET)
+                .orElseGet(() -> {
+                    SystemSetting s = new SystemSetting();
+                    s.setKey(KEY_TELEGRAM_UPDATE_OFFSET);
+                    return s;
+                });
+        setting.setValue(String.valueOf(offset));
+        repository.save(setting);
+    }
+
     /** Разрешить создание команды без приглашения: по Telegram ID или по @username. Пусто = никто. */
     @Transactional(readOnly = true)
     public boolean canCreateTeamWithoutInvite(String telegramUserId, String telegramUsername) {
@@ -5,6 +5,7 @@ import com.basketbot.model.Team;
 import com.basketbot.model.TeamMember;
 import com.basketbot.repository.TeamMemberRepository;
 import com.basketbot.repository.TeamRepository;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,17 +19,24 @@ public class TeamMemberService {
     private final TeamMemberRepository teamMemberRepository;
     private final TeamRepository teamRepository;
     private final PlayerService playerService;
+    private final TeamResolutionCache teamResolutionCache;
+    private final TeamMembershipCache teamMembershipCache;
 
     public TeamMemberService(TeamMemberRepository teamMemberRepository, TeamRepository teamRepository,
-                             PlayerService playerService) {
+                             PlayerService playerService, TeamResolutionCache teamResolutionCache,
+                             TeamMembershipCache teamMembershipCache) {
         this.teamMemberRepository = teamMemberRepository;
         this.teamRepository = teamRepository;
         this.playerService = playerService;
+        this.teamResolutionCache = teamResolutionCache;
+        this.teamMembershipCache = teamMembershipCache;
     }
 
     /** Добавить участника как админа (создатель команды). */
     @Transactional
     public TeamMember addAsAdmin(Long teamId, String telegramUserId) {
+        teamResolutionCache.invalidateUser(telegramUserId);
+        teamMembershipCache.invalidate(teamId);
         Team team = teamRepository.getReferenceById(teamId);
         return teamMemberRepository.findByTeamIdAndTelegramUserId(teamId, telegramUserId)
                 .map(existing -> {
@@ -48,9 +56,13 @@ public class TeamMemberService {
      * Для команд без записей в team_members (legacy) считаем любого пользователя админом. */
     @Transactional(readOnly = true)
     public Optional<TeamMember.Role> getRole(Long teamId, String telegramUserId) {
-        if (teamMemberRepository.findByTeamId(teamId).isEmpty()) {
+        TeamMembershipCache.Snapshot members = membership(teamId);
+        if (members.isLegacy()) {
             return Optional.of(TeamMember.Role.ADMIN);
         }
+        if (members.canAnswer(telegramUserId)) {
+            return Optional.ofNullable(members.activeRole(telegramUserId));
+        }
         return teamMemberRepository.findByTeamIdAndTelegramUserId(teamId, telegramUserId)
                 .filter(TeamMember::isActive)
                 .map(TeamMember::getRole);
@@ -93,14 +105,17 @@ public class TeamMemberService {
         return teamMemberRepository.findByTelegramUserId(telegramUserId).stream()
                 .filter(TeamMember::isActive)
                 .findFirst()
-                .map(TeamMember::getTeam);
+                // Команда — lazy-прокси: загрузить в транзакции, бот читает её поля уже вне сессии
+                .map(m -> Hibernate.unproxy(m.getTeam(), Team.class));
     }
 
     /** Может ли участник пользоваться ботом: активен в команде. Деактивированные в админке — нет. */
     @Transactional(readOnly = true)
     public boolean canUseBot(Long teamId, String telegramUserId) {
         if (teamId == null || telegramUserId == null || telegramUserId.isBlank()) return false;
-        if (teamMemberRepository.findByTeamId(teamId).isEmpty()) return true; // legacy: команда без записей
+        TeamMembershipCache.Snapshot members = membership(teamId);
+        if (members.isLegacy()) return true; // legacy: команда без записей
+        if (members.canAnswer(telegramUserId)) return members.isActiveMember(telegramUserId);
         return teamMemberRepository.findByTeamIdAndTelegramUserId(teamId, telegramUserId)
                 .filter(TeamMember::isActive)
                 .isPresent();
@@ -133,8 +148,15 @@ public class TeamMemberService {
                                   Boolean isActive, Integer number, Player.PlayerStatus status, BigDecimal debt) {
         teamMemberRepository.findByTeamIdAndTelegramUserId(teamId, telegramUserId).ifPresent(m -> {
             if (displayName != null) m.setDisplayName(displayName.isBlank() ? null : displayName.trim());
-            if (role != null) m.setRole(role);
-            if (isActive != null) m.setActive(isActive);
+            if (role != null) {
+                m.setRole(role);
+                teamMembershipCache.invalidate(teamId);
+            }
+            if (isActive != null) {
+                teamMembershipCache.invalidate(teamId);
+                m.setActive(isActive);
+                teamResolutionCache.invalidateUser(telegramUserId);
+            }
             teamMemberRepository.save(m);
             String name = m.getDisplayName() != null ? m.getDisplayName() : ("ID " + m.getTelegramUserId());
             playerService.upsertPlayerForMember(teamId, telegramUserId, name, number, status, debt, isActive != null ? isActive : m.isActive());
@@ -147,10 +169,19 @@ public class TeamMemberService {
         teamMemberRepository.findByTeamIdAndTelegramUserId(teamId, telegramUserId).ifPresent(m -> {
             m.setActive(false);
             teamMemberRepository.save(m);
+            teamResolutionCache.invalidateUser(telegramUserId);
+            teamMembershipCache.invalidate(teamId);
         });
     }
 
+    private TeamMembershipCache.Snapshot membership(Long teamId) {
+        if (teamId == null) return TeamMembershipCache.Snapshot.of(0, teamMemberRepository.findByTeamId(null));
+        return teamMembershipCache.get(teamId, () -> teamMemberRepository.findByTeamId(teamId));
+    }
+
     private TeamMember setRoleInternal(Long teamId, String targetTelegramUserId, TeamMember.Role role) {
+        teamResolutionCache.invalidateUser(targetTelegramUserId);
+        teamMembershipCache.invalidate(teamId);
         Team team = teamRepository.getReferenceById(teamId);
         TeamMember member = teamMemberRepository.findByTeamIdAndTelegramUserId(teamId, targetTelegramUserId)
                 .orElseGet(() -> {
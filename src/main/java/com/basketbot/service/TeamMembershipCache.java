@@ -0,0 +1,169 @@
+package com.basketbot.service;
+
+import com.basketbot.config.TelegramBotProperties;
+import com.basketbot.model.TeamMember;
+import com.basketbot.util.LongKeyLruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Снимки состава команд для проверок прав (getRole / canUseBot): teamId -> telegramUserId -> роль и активность.
+ * Снимок неизменяемый, поиск O(1) без аллокаций. Любая запись в team_members сбрасывает снимок команды
+ * (сразу и после коммита) и увеличивает счётчик версий — снимок, загруженный параллельно с записью, не кэшируется.
+ * Метрики: bot.membership.cache.hits / misses.
+ */
+@Component
+public class TeamMembershipCache {
+
+    private final LongKeyLruCache<Snapshot> snapshots;
+    private final AtomicLong version = new AtomicLong();
+
+    public TeamMembershipCache(TelegramBotProperties properties, MeterRegistry meterRegistry) {
+        TelegramBotProperties.TeamCache config = properties.getTeamCache();
+        this.snapshots = new LongKeyLruCache<>(config.getMaxSize(), config.getTtl());
+        FunctionCounter.builder("bot.membership.cache.hits", snapshots, LongKeyLruCache::hitCount).register(meterRegistry);
+        FunctionCounter.builder("bot.membership.cache.misses", snapshots, LongKeyLruCache::missCount).register(meterRegistry);
+    }
+
+    /** Снимок команды; при отсутствии — загрузить участников через loader. */
+    public Snapshot get(long teamId, Supplier<List<TeamMember>> loader) {
+        Snapshot snapshot = snapshots.get(teamId);
+        if (snapshot != null) return snapshot;
+        long loadedAt = version.get();
+        snapshot = Snapshot.of(loadedAt, loader.get());
+        if (version.get() == loadedAt) {
+            snapshots.put(teamId, snapshot);
+        }
+        return snapshot;
+    }
+
+    /** Состав команды изменился: сбросить снимок (сразу и повторно после коммита текущей транзакции). */
+    public void invalidate(Long teamId) {
+        if (teamId == null) return;
+        Runnable invalidation = () -> {
+            version.incrementAndGet();
+            snapshots.remove(teamId);
+        };
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Состав команды: открытая адресация по telegramUserId (число), в flags — роль и активность.
+     * Пустой состав — legacy-команда без записей в team_members.
+     */
+    public static final class Snapshot {
+
+        private static final byte ACTIVE = 1;
+        private static final byte ADMIN = 2;
+
+        private final long version;
+        private final int memberCount;
+        private final long[] userIds;
+        /** 0 — пустая ячейка, иначе 0b100 | ADMIN? | ACTIVE?. */
+        private final byte[] flags;
+        private final int mask;
+        /** Есть участники с нечисловым telegramUserId — для них нужен запрос в БД. */
+        private final boolean hasNonNumericIds;
+
+        private Snapshot(long version, List<TeamMember> members) {
+            this.version = version;
+            this.memberCount = members.size();
+            int capacity = Integer.highestOneBit(Math.max(4, memberCount * 2 - 1)) << 1;
+            this.userIds = new long[capacity];
+            this.flags = new byte[capacity];
+            this.mask = capacity - 1;
+            boolean nonNumeric = false;
+            for (TeamMember member : members) {
+                long userId = parseUserId(member.getTelegramUserId());
+                if (userId == Long.MIN_VALUE) {
+                    nonNumeric = true;
+                    continue;
+                }
+                int i = index(userId);
+                while (flags[i] != 0 && userIds[i] != userId) {
+                    i = (i + 1) & mask;
+                }
+                userIds[i] = userId;
+                flags[i] = (byte) (4 | (member.getRole() == TeamMember.Role.ADMIN ? ADMIN : 0) | (member.isActive() ? ACTIVE : 0));
+            }
+            this.hasNonNumericIds = nonNumeric;
+        }
+
+        static Snapshot of(long version, List<TeamMember> members) {
+            return new Snapshot(version, members);
+        }
+
+        public long version() {
+            return version;
+        }
+
+        /** Команда без записей в team_members (legacy: любой пользователь — админ). */
+        public boolean isLegacy() {
+            return memberCount == 0;
+        }
+
+        /** false — ответ по снимку дать нельзя (нечисловой id), нужен запрос в БД. */
+        public boolean canAnswer(String telegramUserId) {
+            return parseUserId(telegramUserId) != Long.MIN_VALUE || !hasNonNumericIds;
+        }
+
+        /** Роль активного участника или null (не в составе / деактивирован). */
+        public TeamMember.Role activeRole(String telegramUserId) {
+            int f = flagsOf(telegramUserId);
+            if ((f & ACTIVE) == 0) return null;
+            return (f & ADMIN) != 0 ? TeamMember.Role.ADMIN : TeamMember.Role.PLAYER;
+        }
+
+        public boolean isActiveMember(String telegramUserId) {
+            return (flagsOf(telegramUserId) & ACTIVE) != 0;
+        }
+
+        private int flagsOf(String telegramUserId) {
+            long userId = parseUserId(telegramUserId);
+            if (userId == Long.MIN_VALUE) return 0;
+            int i = index(userId);
+            while (flags[i] != 0) {
+                if (userIds[i] == userId) return flags[i];
+                i = (i + 1) & mask;
+            }
+            return 0;
+        }
+
+        private int index(long userId) {
+            long h = userId * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        /** Число в канонической записи (без пробелов, «+» и ведущих нулей), иначе Long.MIN_VALUE. Без аллокаций. */
+        static long parseUserId(String s) {
+            if (s == null) return Long.MIN_VALUE;
+            int len = s.length();
+            int start = len > 0 && s.charAt(0) == '-' ? 1 : 0;
+            if (len == start || len - start > 18) return Long.MIN_VALUE;
+            if (s.charAt(start) == '0' && len - start > 1) return Long.MIN_VALUE;
+            long value = 0;
+            for (int i = start; i < len; i++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') return Long.MIN_VALUE;
+                value = value * 10 + (c - '0');
+            }
+            if (start == 1 && value == 0) return Long.MIN_VALUE;
+            return start == 1 ? -value : value;
+        }
+    }
+}
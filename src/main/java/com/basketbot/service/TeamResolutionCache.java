@@ -0,0 +1,136 @@
+package com.basketbot.service;
+
+import com.basketbot.config.TelegramBotProperties;
+import com.basketbot.model.Team;
+import com.basketbot.util.LongKeyLruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Кэш определения команды ботом: chatId -> команда, созданная в этом чате, и telegramUserId -> первая команда,
+ * где пользователь активен. Хранит поля команды, нужные обработчикам ({@link TeamRef}), поэтому попадание
+ * в кэш обходится без запроса в БД; отрицательный результат хранится как NO_TEAM.
+ * Сбрасывается при создании команды, смене группы, вступлении/выходе участника; TTL ограничивает устаревание
+ * при нескольких экземплярах. Метрики: bot.team.cache.hits / misses / hit.ratio / size (тег key=chat|user).
+ */
+@Component
+public class TeamResolutionCache {
+
+    /** Неизменяемый снимок команды для обработчиков бота. */
+    public record TeamRef(Long id, String name, String telegramChatId, String groupTelegramChatId) {
+
+        public static TeamRef of(Team team) {
+            return new TeamRef(team.getId(), team.getName(), team.getTelegramChatId(), team.getGroupTelegramChatId());
+        }
+    }
+
+    /** Команды нет (закэшированный отрицательный результат). */
+    private static final TeamRef NO_TEAM = new TeamRef(null, null, null, null);
+
+    private final LongKeyLruCache<TeamRef> byChat;
+    private final LongKeyLruCache<TeamRef> byUser;
+
+    public TeamResolutionCache(TelegramBotProperties properties, MeterRegistry meterRegistry) {
+        TelegramBotProperties.TeamCache config = properties.getTeamCache();
+        this.byChat = new LongKeyLruCache<>(config.getMaxSize(), config.getTtl());
+        this.byUser = new LongKeyLruCache<>(config.getMaxSize(), config.getTtl());
+        registerMetrics(meterRegistry, byChat, "chat");
+        registerMetrics(meterRegistry, byUser, "user");
+    }
+
+    /** Команда чата: из кэша или через loader (результат, в том числе пустой, кэшируется). */
+    public Optional<TeamRef> getByChat(long chatId, Supplier<Optional<Team>> loader) {
+        return get(byChat, chatId, loader);
+    }
+
+    /** Команда пользователя: из кэша или через loader (результат, в том числе пустой, кэшируется). */
+    public Optional<TeamRef> getByUser(long telegramUserId, Supplier<Optional<Team>> loader) {
+        return get(byUser, telegramUserId, loader);
+    }
+
+    private static Optional<TeamRef> get(LongKeyLruCache<TeamRef> cache, long key, Supplier<Optional<Team>> loader) {
+        TeamRef cached = cache.get(key);
+        if (cached == null) {
+            cached = loader.get().map(TeamRef::of).orElse(NO_TEAM);
+            cache.put(key, cached);
+        }
+        return cached == NO_TEAM ? Optional.empty() : Optional.of(cached);
+    }
+
+    /** Сбросить запись чата (сразу и повторно после коммита текущей транзакции). */
+    public void invalidateChat(String telegramChatId) {
+        Long chatId = parseId(telegramChatId);
+        if (chatId == null) {
+            if (telegramChatId != null && !telegramChatId.isBlank()) afterCommit(byChat::clear);
+            return;
+        }
+        afterCommit(() -> byChat.remove(chatId));
+    }
+
+    /**
+     * Сбросить все записи после изменения полей команды: снимок команды может лежать под ключом любого
+     * чата и любого участника. Настройки команды меняются редко, поэтому кэш очищается целиком.
+     */
+    public void invalidateTeam() {
+        afterCommit(() -> {
+            byChat.clear();
+            byUser.clear();
+        });
+    }
+
+    /** Сбросить запись пользователя (сразу и повторно после коммита текущей транзакции). */
+    public void invalidateUser(String telegramUserId) {
+        Long userId = parseId(telegramUserId);
+        if (userId == null) return;
+        afterCommit(() -> byUser.remove(userId));
+    }
+
+    /**
+     * Сброс до коммита не даёт читать старое значение внутри транзакции, повторный после коммита —
+     * убирает значение, которое параллельный запрос успел прочитать из БД до коммита.
+     */
+    private static void afterCommit(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    private static Long parseId(String id) {
+        if (id == null || id.isBlank()) return null;
+        try {
+            return Long.parseLong(id.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void registerMetrics(MeterRegistry meterRegistry, LongKeyLruCache<?> cache, String key) {
+        FunctionCounter.builder("bot.team.cache.hits", cache, LongKeyLruCache::hitCount)
+                .tag("key", key).register(meterRegistry);
+        FunctionCounter.builder("bot.team.cache.misses", cache, LongKeyLruCache::missCount)
+                .tag("key", key).register(meterRegistry);
+        Gauge.builder("bot.team.cache.hit.ratio", cache, TeamResolutionCache::hitRatio)
+                .tag("key", key).register(meterRegistry);
+        Gauge.builder("bot.team.cache.size", cache, LongKeyLruCache::size)
+                .tag("key", key).register(meterRegistry);
+    }
+
+    private static double hitRatio(LongKeyLruCache<?> cache) {
+        long hits = cache.hitCount();
+        long total = hits + cache.missCount();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
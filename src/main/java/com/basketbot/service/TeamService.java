@@ -12,9 +12,11 @@ import java.util.Optional;
 public class TeamService {
 
     private final TeamRepository teamRepository;
+    private final TeamResolutionCache teamResolutionCache;
 
-    public TeamService(TeamRepository teamRepository) {
+    public TeamService(TeamRepository teamRepository, TeamResolutionCache teamResolutionCache) {
         this.teamRepository = teamRepository;
+        this.teamResolutionCache = teamResolutionCache;
     }
 
     @Transactional(readOnly = true)
@@ -37,6 +39,7 @@ public class TeamService {
         Team team = new Team();
         team.setName(name.trim());
         team.setTelegramChatId(telegramChatId);
+        teamResolutionCache.invalidateChat(telegramChatId);
         return teamRepository.save(team);
     }
 
@@ -50,6 +53,7 @@ public class TeamService {
     @Transactional
     public Team setGroupChatId(Long teamId, String groupTelegramChatId) {
         Team team = teamRepository.getReferenceById(teamId);
+        teamResolutionCache.invalidateTeam();
         team.setGroupTelegramChatId(groupTelegramChatId != null && !groupTelegramChatId.isBlank() ? groupTelegramChatId.trim() : null);
         return teamRepository.save(team);
     }
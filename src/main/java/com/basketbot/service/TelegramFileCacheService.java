@@ -0,0 +1,55 @@
+package com.basketbot.service;
+
+import com.basketbot.model.TelegramFile;
+import com.basketbot.repository.TelegramFileRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Кэш file_id загруженных картинок: SHA-256 содержимого → file_id из ответа Telegram.
+ * Повторная отправка того же PNG (репост карточки в канал, тот же QR) ссылается на file_id без загрузки файла.
+ */
+@Service
+public class TelegramFileCacheService {
+
+    private final TelegramFileRepository repository;
+
+    public TelegramFileCacheService(TelegramFileRepository repository) {
+        this.repository = repository;
+    }
+
+    /** SHA-256 содержимого в hex (ключ кэша). */
+    public static String contentHash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<String> findFileId(String contentHash) {
+        return repository.findById(contentHash).map(TelegramFile::getFileId);
+    }
+
+    @Transactional
+    public void remember(String contentHash, String fileId) {
+        TelegramFile file = repository.findById(contentHash).orElseGet(TelegramFile::new);
+        file.setContentHash(contentHash);
+        file.setFileId(fileId);
+        file.setCreatedAt(Instant.now());
+        repository.save(file);
+    }
+
+    /** file_id больше не принимается Telegram: следующая отправка загрузит файл заново. */
+    @Transactional
+    public void forget(String contentHash) {
+        repository.deleteById(contentHash);
+    }
+}
@@ -0,0 +1,249 @@
+package com.basketbot.service;
+
+import com.basketbot.config.TelegramBotProperties;
+import com.basketbot.model.IntegrationEvent;
+import com.basketbot.model.OutboxMessage;
+import com.basketbot.repository.OutboxMessageRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Очередь исходящих сообщений Telegram в БД (transactional outbox). enqueue* присоединяются к транзакции вызывающего:
+ * сообщение появится в очереди только вместе с остальными изменениями (например, флагом «напоминание отправлено»).
+ * Доставляет сообщения OutboxRelay, результат пишется в IntegrationEvent. Перед отправкой экземпляр захватывает
+ * сообщения (claim*): при нескольких экземплярах каждое сообщение отправляет один, а чат в каждый момент — один.
+ */
+@Service
+public class TelegramOutboxService {
+
+    private static final int MAX_TEXT = 4000;
+
+    private final OutboxMessageRepository repository;
+    private final IntegrationMetricsService integrationMetricsService;
+    private final ObjectMapper objectMapper;
+    private final TelegramBotProperties.Coalesce coalesce;
+    private final Duration lease;
+    private final TransactionTemplate transactionTemplate;
+
+    public TelegramOutboxService(OutboxMessageRepository repository,
+                                 IntegrationMetricsService integrationMetricsService,
+                                 ObjectMapper objectMapper,
+                                 TelegramBotProperties properties,
+                                 PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.integrationMetricsService = integrationMetricsService;
+        this.objectMapper = objectMapper;
+        this.coalesce = properties.getOutbox().getCoalesce();
+        Duration configuredLease = properties.getOutbox().getLease();
+        this.lease = configuredLease != null && configuredLease.compareTo(Duration.ofSeconds(10)) >= 0
+                ? configuredLease : Duration.ofSeconds(10);
+    }
+
+    /** Поставить текстовое сообщение (keyboard — inline-кнопки или null). Возвращает id записи. */
+    @Transactional
+    public Long enqueueMessage(String chatId, String text, InlineKeyboardMarkup keyboard,
+                               IntegrationEvent.EventType eventType, Long teamId, Long matchId) {
+        OutboxMessage m = newMessage(chatId, eventType, teamId, matchId);
+        m.setText(text != null && text.length() > MAX_TEXT ? text.substring(0, MAX_TEXT) : text);
+        if (keyboard != null) {
+            try {
+                m.setReplyMarkup(objectMapper.writeValueAsString(keyboard));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Не удалось сохранить клавиатуру сообщения", e);
+            }
+        }
+        // Склеиваемое сообщение ждёт окно: за это время в чат могут прийти другие и уйти вместе с ним
+        if (isCoalescable(m)) {
+            m.setNextAttemptAt(m.getCreatedAt().plus(coalesce.getWindow()));
+        }
+        return repository.save(m).getId();
+    }
+
+    /** Поставить картинку (PNG) с необязательной подписью. Возвращает id записи. */
+    @Transactional
+    public Long enqueuePhoto(String chatId, byte[] png, String fileName, String caption,
+                             IntegrationEvent.EventType eventType, Long teamId, Long matchId) {
+        OutboxMessage m = newMessage(chatId, eventType, teamId, matchId);
+        m.setPhoto(png);
+        m.setPhotoName(fileName);
+        m.setText(caption);
+        return repository.save(m).getId();
+    }
+
+    /** Ожидающие отправки сообщения (без захвата). */
+    @Transactional(readOnly = true)
+    public List<OutboxMessage> findDue(int limit) {
+        return repository.findDue(OutboxMessage.Status.PENDING, Instant.now(), PageRequest.of(0, Math.max(1, limit)));
+    }
+
+    /**
+     * Захватить за node до limit сообщений, которые пора отправить (и брошенных упавшими экземплярами — с истёкшей
+     * арендой). Захват идёт по чатам, каждый в своей короткой транзакции: чат, в котором другой экземпляр ещё
+     * отправляет, пропускается, поэтому сообщения одного чата уходят с одного экземпляра — по порядку и с лимитом
+     * чата OutboundDispatcher. Результат сгруппирован по чатам, внутри чата — в порядке постановки.
+     * exclude — сообщения, которые node уже отправляет.
+     */
+    public List<OutboxMessage> claimDue(String node, int limit, Collection<Long> exclude) {
+        Instant now = Instant.now();
+        int max = Math.max(1, limit);
+        List<String> chats = repository.findDueChats(OutboxMessage.Status.PENDING, OutboxMessage.Status.IN_FLIGHT, now,
+                PageRequest.of(0, max + exclude.size()));
+        List<OutboxMessage> claimed = new ArrayList<>();
+        for (String chatId : chats) {
+            int room = max - claimed.size();
+            if (room <= 0) break;
+            List<OutboxMessage> fromChat = transactionTemplate.execute(status -> claimChat(node, chatId, room, exclude, now));
+            if (fromChat != null) claimed.addAll(fromChat);
+        }
+        return claimed;
+    }
+
+    /**
+     * Захват в очереди одного чата; пусто — чат отправляет другой экземпляр или отправлять нечего.
+     * Порядок постановки сохраняется: берётся начало очереди до последнего сообщения, которое пора отправить,
+     * вместе с ждущими окна склейки перед ним (более позднее сообщение их не обгоняет, окно обрывается),
+     * и следующие за ним склеиваемые — они уйдут в том же сообщении.
+     */
+    private List<OutboxMessage> claimChat(String node, String chatId, int limit, Collection<Long> exclude, Instant now) {
+        if (repository.lockChatQueue(chatId).isEmpty()) return List.of();
+        List<OutboxMessage> queue = new ArrayList<>();
+        int lastDue = -1;
+        for (OutboxMessage m : repository.findChatQueue(chatId,
+                List.of(OutboxMessage.Status.PENDING, OutboxMessage.Status.IN_FLIGHT), PageRequest.of(0, limit + exclude.size()))) {
+            if (exclude.contains(m.getId())) continue;
+            if (queue.size() >= limit) break;
+            if (m.getStatus() == OutboxMessage.Status.IN_FLIGHT) {
+                // Действующая аренда не нашего запуска: чат сейчас отправляет другой экземпляр
+                if (m.getLeaseUntil() == null || !m.getLeaseUntil().isBefore(now)) return List.of();
+                lastDue = queue.size();
+            } else if (!m.getNextAttemptAt().isAfter(now)) {
+                lastDue = queue.size();
+            }
+            queue.add(m);
+        }
+        if (lastDue < 0) return List.of();
+        int end = lastDue + 1;
+        while (end < queue.size() && isCoalescable(queue.get(end - 1)) && isCoalescable(queue.get(end))) {
+            end++;
+        }
+        return claim(node, queue.subList(0, end).stream().map(OutboxMessage::getId).toList(), now);
+    }
+
+    private List<OutboxMessage> claim(String node, Collection<Long> ids, Instant now) {
+        if (ids.isEmpty()) return List.of();
+        int claimed = repository.claim(ids, node, now.plus(lease), now, OutboxMessage.Status.PENDING, OutboxMessage.Status.IN_FLIGHT);
+        if (claimed == 0) return List.of();
+        return repository.findClaimed(ids, OutboxMessage.Status.IN_FLIGHT, node);
+    }
+
+    /** Продлить аренду сообщений, которые node ещё отправляет. */
+    @Transactional
+    public void renewLeases(String node, Collection<Long> ids) {
+        if (ids.isEmpty()) return;
+        repository.renewLeases(ids, OutboxMessage.Status.IN_FLIGHT, node, Instant.now().plus(lease));
+    }
+
+    public Duration getLease() {
+        return lease;
+    }
+
+    /** Можно ли отправить сообщение вместе с другими в тот же чат (склейка включена, без картинки и кнопок). */
+    public boolean isCoalescable(OutboxMessage m) {
+        return coalesceEnabled() && m.getPhoto() == null && m.getReplyMarkup() == null
+                && coalesce.getEventTypes().contains(m.getEventType());
+    }
+
+    /** Ожидающие склеиваемые сообщения чата в порядке постановки, в том числе ещё не дождавшиеся окна. */
+    @Transactional(readOnly = true)
+    public List<OutboxMessage> findCoalescable(String chatId, int limit) {
+        if (!coalesceEnabled()) return List.of();
+        return repository.findCoalescable(OutboxMessage.Status.PENDING, chatId, coalesce.getEventTypes(),
+                PageRequest.of(0, Math.max(1, limit)));
+    }
+
+    /** Клавиатура из сохранённого JSON (null — без клавиатуры). */
+    public InlineKeyboardMarkup keyboardOf(OutboxMessage m) {
+        if (m.getReplyMarkup() == null || m.getReplyMarkup().isBlank()) return null;
+        try {
+            return objectMapper.readValue(m.getReplyMarkup(), InlineKeyboardMarkup.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Повреждена клавиатура сообщения " + m.getId(), e);
+        }
+    }
+
+    /** Доставлено; retries — сколько было повторов до успеха. */
+    @Transactional
+    public void markDelivered(OutboxMessage m, int retries) {
+        repository.markDelivered(m.getId(), OutboxMessage.Status.DELIVERED, Instant.now(), retries + 1);
+        integrationMetricsService.record(m.getEventType(), m.getChatId(), true, null, m.getTeamId(), m.getMatchId(), retries);
+    }
+
+    /**
+     * Сообщение не отправлялось (очередь отправки переполнена или остановлена): вернуть в очередь без попытки
+     * и без записи в IntegrationEvent. Если вернуть не удалось, его подхватят по истечении аренды.
+     */
+    @Transactional
+    public void release(OutboxMessage m, String node) {
+        repository.release(m.getId(), node, OutboxMessage.Status.IN_FLIGHT, OutboxMessage.Status.PENDING);
+    }
+
+    /** Попытки исчерпаны или ошибка не временная: сообщение уходит в dead letter. */
+    @Transactional
+    public void markFailed(OutboxMessage m, String error, int retries) {
+        repository.markFailed(m.getId(), OutboxMessage.Status.FAILED, error, retries + 1);
+        integrationMetricsService.record(m.getEventType(), m.getChatId(), false, error, m.getTeamId(), m.getMatchId(), retries);
+    }
+
+    /** Отправка команды teamId (для проверки статуса из админки). */
+    @Transactional(readOnly = true)
+    public Optional<OutboxMessage> findForTeam(Long id, Long teamId) {
+        return repository.findById(id).filter(m -> teamId.equals(m.getTeamId()));
+    }
+
+    @Transactional(readOnly = true)
+    public List<OutboxMessage> findDeadLetters(int limit) {
+        if (limit <= 0 || limit > 200) limit = 100;
+        return repository.findByStatusNewestFirst(OutboxMessage.Status.FAILED, PageRequest.of(0, limit));
+    }
+
+    /** Отправить недоставленное сообщение ещё раз. false — нет такого сообщения в dead letter. */
+    @Transactional
+    public boolean redrive(long id) {
+        return repository.requeue(id, OutboxMessage.Status.FAILED, OutboxMessage.Status.PENDING, Instant.now()) > 0;
+    }
+
+    /** Удалить доставленные раньше before. Возвращает число удалённых. */
+    @Transactional
+    public int purgeDelivered(Instant before) {
+        return repository.deleteDeliveredBefore(OutboxMessage.Status.DELIVERED, before);
+    }
+
+    private boolean coalesceEnabled() {
+        Duration window = coalesce.getWindow();
+        return window != null && !window.isNegative() && !window.isZero()
+                && coalesce.getEventTypes() != null && !coalesce.getEventTypes().isEmpty();
+    }
+
+    private static OutboxMessage newMessage(String chatId, IntegrationEvent.EventType eventType, Long teamId, Long matchId) {
+        OutboxMessage m = new OutboxMessage();
+        m.setChatId(chatId);
+        m.setEventType(eventType);
+        m.setTeamId(teamId);
+        m.setMatchId(matchId);
+        return m;
+    }
+}
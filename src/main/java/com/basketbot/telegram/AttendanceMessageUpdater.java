@@ -0,0 +1,90 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.TelegramBotProperties;
+import com.basketbot.service.AttendanceMessageService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обновляет счётчики ответов в напоминании за 24 ч (editMessageText вместо отдельного сообщения со статистикой).
+ * Правки по матчу не чаще раза в telegram.bot.attendance.edit-interval: ответы за интервал попадают в одну правку
+ * с актуальными числами из БД.
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.bot.token")
+public class AttendanceMessageUpdater {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceMessageUpdater.class);
+
+    private final AttendanceMessageService attendanceMessageService;
+    private final OutboundDispatcher outbound;
+    private final long intervalNanos;
+    private final ScheduledExecutorService timer;
+    /** Матчи с запланированной правкой. */
+    private final Map<Long, Boolean> pending = new ConcurrentHashMap<>();
+    /** Время последней правки по матчу (System.nanoTime). */
+    private final Map<Long, Long> lastEditAt = new ConcurrentHashMap<>();
+
+    public AttendanceMessageUpdater(AttendanceMessageService attendanceMessageService, OutboundDispatcher outbound,
+                                    TelegramBotProperties properties) {
+        this.attendanceMessageService = attendanceMessageService;
+        this.outbound = outbound;
+        Duration interval = properties.getAttendance().getEditInterval();
+        this.intervalNanos = interval != null && !interval.isNegative() ? interval.toNanos() : 0L;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "attendance-edit");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Игрок ответил на напоминание: запланировать правку сообщения матча (если ещё не запланирована). */
+    public void attendanceChanged(long matchId) {
+        if (pending.putIfAbsent(matchId, Boolean.TRUE) != null) return;
+        Long last = lastEditAt.get(matchId);
+        long delay = last == null ? 0L : Math.max(0L, last + intervalNanos - System.nanoTime());
+        timer.schedule(() -> edit(matchId), delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void edit(long matchId) {
+        // Снимаем отметку до чтения счётчиков: ответ, пришедший во время правки, запланирует следующую
+        pending.remove(matchId);
+        lastEditAt.put(matchId, System.nanoTime());
+        try {
+            attendanceMessageService.currentMessage(matchId).ifPresent(message -> {
+                EditMessageText edit = EditMessageText.builder()
+                        .chatId(message.chatId())
+                        .messageId(message.messageId())
+                        .text(message.text())
+                        .replyMarkup(message.keyboard())
+                        .build();
+                outbound.submit(message.chatId(), client -> client.execute(edit)).whenComplete((ok, e) -> {
+                    // 400 «message is not modified» — числа не изменились, это не ошибка
+                    if (e != null && !String.valueOf(e.getMessage()).contains("message is not modified")) {
+                        log.warn("Failed to update attendance message for match {}: {}", matchId, e.getMessage());
+                    }
+                });
+            });
+        } catch (Exception e) {
+            log.warn("Failed to build attendance message for match {}", matchId, e);
+        }
+        // Старые отметки не нужны: следующая правка после паузы идёт сразу
+        lastEditAt.entrySet().removeIf(en -> System.nanoTime() - en.getValue() > intervalNanos);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+}
@@ -15,19 +15,18 @@ import com.basketbot.service.QrCodeService;
 import com.basketbot.service.PlayerService;
 import com.basketbot.service.TeamMemberService;
 import com.basketbot.service.SystemSettingsService;
+import com.basketbot.service.TeamResolutionCache;
+import com.basketbot.service.TeamResolutionCache.TeamRef;
 import com.basketbot.service.TeamService;
-import com.basketbot.config.TelegramBotProperties;
 import com.basketbot.util.TelegramChatIdUtil;
 import jakarta.annotation.PostConstruct;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
-import org.telegram.telegrambots.longpolling.starter.SpringLongPollingBot;
 import org.telegram.telegrambots.longpolling.util.LongPollingSingleThreadUpdateConsumer;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
-import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
 import org.telegram.telegrambots.meta.api.methods.polls.SendPoll;
-import org.telegram.telegrambots.meta.api.objects.InputFile;
 import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
 import org.telegram.telegrambots.meta.api.objects.polls.input.InputPollOption;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.KeyboardRow;
@@ -36,11 +35,9 @@ import org.telegram.telegrambots.meta.api.methods.commands.SetMyCommands;
 import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
 import org.telegram.telegrambots.meta.api.objects.commands.BotCommand;
 import org.telegram.telegrambots.meta.api.objects.commands.scope.BotCommandScopeDefault;
-import org.telegram.telegrambots.meta.generics.TelegramClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -49,11 +46,17 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Обработчик апдейтов бота. Источник апдейтов — {@link BotLongPollingRegistration} (long polling)
+ * или {@link com.basketbot.controller.TelegramWebhookController} (webhook); оба идут через {@link UpdateDispatcher}.
+ */
 @Component
 @ConditionalOnProperty(name = "telegram.bot.token")
-public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingleThreadUpdateConsumer {
+public class BasketTelegramBot implements LongPollingSingleThreadUpdateConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(BasketTelegramBot.class);
     private static final String BTN_SCHEDULE = "Расписание";
@@ -74,8 +77,7 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
             .map(InputPollOption::new)
             .toList();
 
-    private final TelegramBotProperties properties;
-    private final TelegramClient telegramClient;
+    private final OutboundDispatcher outbound;
     private final TeamService teamService;
     private final TeamMemberService teamMemberService;
     private final MatchService matchService;
@@ -83,18 +85,17 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
     private final SystemSettingsService systemSettingsService;
     private final InvitationService invitationService;
     private final QrCodeService qrCodeService;
+    private final PhotoUploader photoUploader;
+    private final AttendanceMessageUpdater attendanceMessageUpdater;
     private final EventAttendanceService eventAttendanceService;
     private final IntegrationMetricsService integrationMetricsService;
+    private final UpdateDispatcher updateDispatcher;
+    private final TeamResolutionCache teamResolutionCache;
 
-    /** Ожидание названия команды после /start (chatId -> true) */
-    private final Map<Long, Boolean> pendingTeamName = new ConcurrentHashMap<>();
-    /** Ожидание подтверждения выхода (chatId -> teamId) */
-    private final Map<Long, Long> pendingLeaveTeamId = new ConcurrentHashMap<>();
-    /** Создание опроса: chatId -> "" (ждём вопрос) или вопрос (ждём варианты ответа) */
-    private final Map<Long, String> pendingPollQuestion = new ConcurrentHashMap<>();
+    /** Незавершённые диалоги: ожидание названия команды, подтверждения выхода, вопроса/вариантов опроса */
+    private final ConversationStateStore conversationState;
 
-    public BasketTelegramBot(TelegramBotProperties properties,
-                            org.telegram.telegrambots.meta.generics.TelegramClient telegramClient,
+    public BasketTelegramBot(OutboundDispatcher outbound,
                             TeamService teamService,
                             TeamMemberService teamMemberService,
                             MatchService matchService,
@@ -102,10 +103,14 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
                             SystemSettingsService systemSettingsService,
                             InvitationService invitationService,
                             QrCodeService qrCodeService,
+                            PhotoUploader photoUploader,
+                            AttendanceMessageUpdater attendanceMessageUpdater,
                             EventAttendanceService eventAttendanceService,
-                            IntegrationMetricsService integrationMetricsService) {
-        this.properties = properties;
-        this.telegramClient = telegramClient;
+                            IntegrationMetricsService integrationMetricsService,
+                            UpdateDispatcher updateDispatcher,
+                            ConversationStateStore conversationState,
+                            TeamResolutionCache teamResolutionCache) {
+        this.outbound = outbound;
         this.teamService = teamService;
         this.teamMemberService = teamMemberService;
         this.matchService = matchService;
@@ -113,18 +118,13 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
         this.systemSettingsService = systemSettingsService;
         this.invitationService = invitationService;
         this.qrCodeService = qrCodeService;
+        this.photoUploader = photoUploader;
+        this.attendanceMessageUpdater = attendanceMessageUpdater;
         this.eventAttendanceService = eventAttendanceService;
         this.integrationMetricsService = integrationMetricsService;
-    }
-
-    @Override
-    public String getBotToken() {
-        return properties.getToken();
-    }
-
-    @Override
-    public LongPollingSingleThreadUpdateConsumer getUpdatesConsumer() {
-        return this;
+        this.updateDispatcher = updateDispatcher;
+        this.conversationState = conversationState;
+        this.teamResolutionCache = teamResolutionCache;
     }
 
     @PostConstruct
@@ -138,13 +138,21 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
                 new BotCommand("poll", "Опрос на игру (вопрос и варианты по шагам)"),
                 new BotCommand("invite", "Создать приглашение в команду (ссылка и QR)")
         );
-        try {
-            telegramClient.execute(SetMyCommands.builder()
-                    .scope(BotCommandScopeDefault.builder().build())
-                    .commands(commands)
-                    .build());
-        } catch (Exception ignored) {
-            // токен или сеть недоступны при старте
+        SetMyCommands setMyCommands = SetMyCommands.builder()
+                .scope(BotCommandScopeDefault.builder().build())
+                .commands(commands)
+                .build();
+        // Не ждём ответа: токен или сеть могут быть недоступны при старте
+        outbound.submit(null, client -> client.execute(setMyCommands)).whenComplete((ok, e) -> {
+            if (e != null) log.warn("Failed to set bot commands: {}", causeMessage(e));
+        });
+    }
+
+    /** Пачка апдейтов из long polling: раздаём по шардам (порядок внутри чата сохраняется). */
+    @Override
+    public void consume(List<Update> updates) {
+        for (Update update : updates) {
+            updateDispatcher.dispatch(update, this::consume);
         }
     }
 
@@ -168,7 +176,7 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
         long chatId = update.getMessage().getChatId();
 
         try {
-            if (pendingTeamName.remove(chatId) != null) {
+            if (conversationState.remove(ConversationStateStore.Flow.TEAM_NAME, chatId) != null) {
                 var from = update.getMessage().getFrom();
                 long creatorId = from != null ? from.getId() : 0;
                 String creatorUsername = from != null ? from.getUserName() : null;
@@ -188,8 +196,9 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
                 return;
             }
 
-            Long teamIdForLeave = pendingLeaveTeamId.remove(chatId);
-            if (teamIdForLeave != null) {
+            String leaveState = conversationState.remove(ConversationStateStore.Flow.LEAVE_CONFIRM, chatId);
+            if (leaveState != null) {
+                long teamIdForLeave = Long.parseLong(leaveState);
                 var from = update.getMessage().getFrom();
                 String telegramUserIdStr = from != null ? String.valueOf(from.getId()) : null;
                 if (telegramUserIdStr != null && !teamMemberService.canUseBot(teamIdForLeave, telegramUserIdStr)) {
@@ -202,24 +211,24 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
                         sendMessage(chatId, "Вы вышли из команды. Чтобы снова вступить, нужна новая ссылка-приглашение от админа.");
                     }
                 } else {
-                    pendingLeaveTeamId.put(chatId, teamIdForLeave);
+                    conversationState.put(ConversationStateStore.Flow.LEAVE_CONFIRM, chatId, leaveState);
                     sendMessage(chatId, "Выход отменён. Напиши ДА, если точно хочешь выйти из команды.");
                 }
                 return;
             }
 
-            String pollState = pendingPollQuestion.get(chatId);
+            String pollState = conversationState.get(ConversationStateStore.Flow.POLL, chatId);
             if (pollState != null) {
                 var from = update.getMessage().getFrom();
                 String telegramUserIdStr = from != null ? String.valueOf(from.getId()) : null;
-                Optional<Team> teamOpt = resolveTeam(chatId, telegramUserIdStr);
+                Optional<TeamRef> teamOpt = resolveTeam(chatId, telegramUserIdStr);
                 if (teamOpt.isEmpty()) {
-                    pendingPollQuestion.remove(chatId);
+                    conversationState.remove(ConversationStateStore.Flow.POLL, chatId);
                     sendMessage(chatId, "Сначала создай команду: отправь /start и затем название команды.");
                     return;
                 }
-                if (telegramUserIdStr != null && !teamMemberService.canUseBot(teamOpt.get().getId(), telegramUserIdStr)) {
-                    pendingPollQuestion.remove(chatId);
+                if (telegramUserIdStr != null && !teamMemberService.canUseBot(teamOpt.get().id(), telegramUserIdStr)) {
+                    conversationState.remove(ConversationStateStore.Flow.POLL, chatId);
                     sendMessage(chatId, "Вы деактивированы. Обратитесь к администратору команды.");
                     return;
                 }
@@ -229,48 +238,48 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
                         sendMessage(chatId, "Вопрос не может быть пустым. Напиши вопрос для опроса.");
                         return;
                     }
-                    pendingPollQuestion.put(chatId, question);
+                    conversationState.put(ConversationStateStore.Flow.POLL, chatId, question);
                     sendMessage(chatId, "Напиши варианты ответа через запятую. Например: Еду, Не еду, Опоздаю");
                 } else {
                     List<String> options = parsePollOptions(text);
-                    pendingPollQuestion.remove(chatId);
+                    conversationState.remove(ConversationStateStore.Flow.POLL, chatId);
                     if (options.size() < 2) {
                         sendMessage(chatId, "Нужно минимум 2 варианта ответа. Нажми «Опрос на игру» и начни заново.");
                         return;
                     }
-                    Team team = teamOpt.get();
+                    TeamRef team = teamOpt.get();
                     // Чат для опроса: если задан групповой чат в настройках — туда, иначе чат команды, иначе личка пользователя
-                    String pollChatIdStr = (team.getGroupTelegramChatId() != null && !team.getGroupTelegramChatId().isBlank())
-                            ? TelegramChatIdUtil.normalizeGroupChatId(team.getGroupTelegramChatId())
-                            : team.getTelegramChatId();
+                    String pollChatIdStr = (team.groupTelegramChatId() != null && !team.groupTelegramChatId().isBlank())
+                            ? TelegramChatIdUtil.normalizeGroupChatId(team.groupTelegramChatId())
+                            : team.telegramChatId();
                     if (pollChatIdStr == null || pollChatIdStr.isBlank()) {
                         pollChatIdStr = String.valueOf(chatId);
                     }
-                    log.info("Sending poll to chatId={} (groupChatId={}, teamChatId={})", pollChatIdStr, team.getGroupTelegramChatId(), team.getTelegramChatId());
-                    try {
-                        sendPoll(pollChatIdStr, pollState, options);
-                        sendMessageWithReplyKeyboard(chatId, "Опрос отправлен в чат команды.", mainMenu());
-                    } catch (Exception ex) {
-                        String cause = ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage();
-                        if (cause == null) cause = ex.getMessage();
-                        if (cause == null) cause = ex.getClass().getSimpleName();
-                        log.warn("SendPoll failed: targetChatId={}, cause={}", pollChatIdStr, cause, ex);
+                    log.info("Sending poll to chatId={} (groupChatId={}, teamChatId={})", pollChatIdStr, team.groupTelegramChatId(), team.telegramChatId());
+                    String targetChatId = pollChatIdStr;
+                    sendPoll(targetChatId, pollState, options, team.id()).whenComplete((sent, ex) -> {
+                        if (ex == null) {
+                            sendMessageWithReplyKeyboard(chatId, "Опрос отправлен в чат команды.", mainMenu());
+                            return;
+                        }
+                        String cause = causeMessage(ex);
+                        log.warn("SendPoll failed: targetChatId={}, cause={}", targetChatId, cause);
                         sendMessageWithReplyKeyboard(chatId,
-                                "Не удалось отправить опрос в группу (ID чата: " + pollChatIdStr + ").\nПричина: " + cause
+                                "Не удалось отправить опрос в группу (ID чата: " + targetChatId + ").\nПричина: " + cause
                                         + "\n\nУбедитесь: 1) бот добавлен в группу, 2) в админке → Настройки указан «ID группового чата» (как в группе: -100…).",
                                 mainMenu());
-                    }
+                    });
                 }
                 return;
             }
 
-            Optional<Team> teamOpt = resolveTeam(chatId, update.getMessage().getFrom() != null ? String.valueOf(update.getMessage().getFrom().getId()) : null);
+            Optional<TeamRef> teamOpt = resolveTeam(chatId, update.getMessage().getFrom() != null ? String.valueOf(update.getMessage().getFrom().getId()) : null);
             if (teamOpt.isEmpty()) {
                 sendMessage(chatId, "Сначала создай команду: отправь /start и затем название команды.");
                 return;
             }
-            Team team = teamOpt.get();
-            Long teamId = team.getId();
+            TeamRef team = teamOpt.get();
+            Long teamId = team.id();
             var from = update.getMessage().getFrom();
             String telegramUserIdStr = from != null ? String.valueOf(from.getId()) : null;
             if (telegramUserIdStr != null && !teamMemberService.canUseBot(teamId, telegramUserIdStr)) {
@@ -294,7 +303,7 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
                 return;
                     }
             if ("/leave".equals(text) || BTN_LEAVE.equals(text)) {
-                pendingLeaveTeamId.put(chatId, teamId);
+                conversationState.put(ConversationStateStore.Flow.LEAVE_CONFIRM, chatId, String.valueOf(teamId));
                 sendMessage(chatId, "Выйти из команды? Напиши ДА для подтверждения.");
                 return;
             }
@@ -303,7 +312,7 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
                 return;
             }
             if ("/poll".equals(text) || BTN_POLL.equals(text)) {
-                pendingPollQuestion.put(chatId, "");
+                conversationState.put(ConversationStateStore.Flow.POLL, chatId, "");
                 sendMessage(chatId, "Напиши вопрос для опроса одним сообщением.\nНапример: Кто едет на игру?");
                 return;
             }
@@ -311,10 +320,10 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
                 String question = text.substring("/poll ".length()).trim();
                 if (question.length() > 255) question = question.substring(0, 255);
                 if (!question.isBlank()) {
-                    pendingPollQuestion.put(chatId, question);
+                    conversationState.put(ConversationStateStore.Flow.POLL, chatId, question);
                     sendMessage(chatId, "Напиши варианты ответа через запятую. Например: Еду, Не еду, Опоздаю");
                 } else {
-                    pendingPollQuestion.put(chatId, "");
+                    conversationState.put(ConversationStateStore.Flow.POLL, chatId, "");
                     sendMessage(chatId, "Напиши вопрос для опроса одним сообщением.\nНапример: Кто едет на игру?");
                 }
                 return;
@@ -333,17 +342,17 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
             handleStartWithInviteCode(chatId, telegramUserIdStr, startPayload, telegramUsername, firstName, lastName);
             return;
         }
-        Optional<Team> teamOpt = resolveTeam(chatId, telegramUserIdStr);
+        Optional<TeamRef> teamOpt = resolveTeam(chatId, telegramUserIdStr);
         if (teamOpt.isPresent()) {
-            Team team = teamOpt.get();
-            if (telegramUserIdStr != null && !teamMemberService.canUseBot(team.getId(), telegramUserIdStr)) {
+            TeamRef team = teamOpt.get();
+            if (telegramUserIdStr != null && !teamMemberService.canUseBot(team.id(), telegramUserIdStr)) {
                 sendMessage(chatId, "Вы деактивированы. Обратитесь к администратору команды.");
                 return;
             }
             if (telegramUsername != null && !telegramUsername.isBlank()) {
-                teamMemberService.ensureTelegramUsername(team.getId(), telegramUserIdStr, telegramUsername);
+                teamMemberService.ensureTelegramUsername(team.id(), telegramUserIdStr, telegramUsername);
             }
-            String welcome = "Привет! Команда: «" + team.getName() + "». Расписание (будущие игры), прошедшие игры, состав, имя (Мой профиль), выход из команды, опрос — кнопки ниже.";
+            String welcome = "Привет! Команда: «" + team.name() + "». Расписание (будущие игры), прошедшие игры, состав, имя (Мой профиль), выход из команды, опрос — кнопки ниже.";
             if (chatId < 0) {
                 welcome += "\n\n(ID этого чата для админки → Настройки: " + chatId + ")";
             }
@@ -353,7 +362,7 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
                 sendMessage(chatId, "Создать команду может только администратор. Попросите ссылку-приглашение у менеджера команды.");
                 return;
             }
-            pendingTeamName.put(chatId, true);
+            conversationState.put(ConversationStateStore.Flow.TEAM_NAME, chatId, "");
             sendMessage(chatId, "Привет! Отправь название команды одним сообщением.\nНапример: БК Метеор");
         }
     }
@@ -392,16 +401,14 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
             String link = invitationService.buildInviteLink(inv.getCode());
             sendMessage(chatId, "Приглашение создано (роль: Игрок, срок: 7 дней).\nСсылка:\n" + link + "\n\nПерешлите ссылку или QR ниже новым участникам.");
             byte[] png = qrCodeService.generatePng(link, 256);
-            SendPhoto photo = SendPhoto.builder()
-                    .chatId(String.valueOf(chatId))
-                    .photo(new InputFile(new ByteArrayInputStream(png), "invite-qr.png"))
-                    .caption("QR-код приглашения в команду")
-                    .build();
-            telegramClient.execute(photo);
-            integrationMetricsService.record(IntegrationEvent.EventType.INVITE_QR, String.valueOf(chatId), true, null, teamId, null);
+            String chatIdStr = String.valueOf(chatId);
+            sendAsync(chatIdStr, IntegrationEvent.EventType.INVITE_QR, teamId,
+                    client -> photoUploader.send(client, chatIdStr, png, "invite-qr.png", "QR-код приглашения в команду"))
+                    .whenComplete((sent, e) -> {
+                        if (e != null) log.warn("Failed to send invite QR to {}: {}", chatId, causeMessage(e));
+                    });
         } catch (Exception e) {
-            log.warn("Failed to create invite or send QR", e);
-            integrationMetricsService.record(IntegrationEvent.EventType.INVITE_QR, String.valueOf(chatId), false, e.getMessage(), teamId, null);
+            log.warn("Failed to create invite", e);
             sendMessage(chatId, "Ошибка при создании приглашения: " + e.getMessage());
         }
     }
@@ -433,7 +440,7 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
     private void createTeamAndSendMenu(long chatId, String teamName, long creatorTelegramUserId, String creatorUsername) {
         if (teamName.isBlank()) {
             sendMessage(chatId, "Название не может быть пустым. Отправь название команды.");
-            pendingTeamName.put(chatId, true);
+            conversationState.put(ConversationStateStore.Flow.TEAM_NAME, chatId, "");
             return;
         }
         Team team = teamService.createTeam(teamName, String.valueOf(chatId));
@@ -460,37 +467,43 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
                     EventAttendance.Status status = EventAttendance.Status.valueOf(parts[2]);
                     String telegramUserId = callbackQuery.getFrom() != null ? String.valueOf(callbackQuery.getFrom().getId()) : null;
                     if (telegramUserId != null) {
-                        eventAttendanceService.setAttendance(matchId, telegramUserId, status);
+                        if (!eventAttendanceService.upsertAttendance(matchId, telegramUserId, status)) {
+                            answerCallbackAsync(callbackQuery.getId(), "Матч не найден.", true);
+                            return;
+                        }
+                        attendanceMessageUpdater.attendanceChanged(matchId);
                         String label = status == EventAttendance.Status.COMING ? "Буду" : status == EventAttendance.Status.LATE ? "Опоздаю" : "Не смогу";
-                        answerCallback(callbackQuery.getId(), "Вы выбрали: " + label, false);
+                        answerCallbackAsync(callbackQuery.getId(), "Вы выбрали: " + label, false);
                         return;
                     }
                 } catch (IllegalArgumentException ignored) {
                 }
             }
         }
-        answerCallback(callbackQuery.getId(), "Команда недоступна. Управление — в админке.", true);
+        answerCallbackAsync(callbackQuery.getId(), "Команда недоступна. Управление — в админке.", true);
     }
 
-    private void answerCallback(String callbackQueryId, String text, boolean showAlert) {
-        try {
-            AnswerCallbackQuery.AnswerCallbackQueryBuilder builder = AnswerCallbackQuery.builder()
-                    .callbackQueryId(callbackQueryId)
-                    .showAlert(showAlert);
-            if (text != null && !text.isEmpty()) builder.text(text);
-            telegramClient.execute(builder.build());
-        } catch (Exception e) {
-            throw new RuntimeException("Не удалось ответить на callback", e);
-        }
+    /** Ответ на callback без ожидания Bot API: поток шарда сразу берёт следующий апдейт. Ошибка только логируется. */
+    private void answerCallbackAsync(String callbackQueryId, String text, boolean showAlert) {
+        AnswerCallbackQuery answer = AnswerCallbackQuery.builder()
+                .callbackQueryId(callbackQueryId)
+                .text(text)
+                .showAlert(showAlert)
+                .build();
+        outbound.submit(null, client -> client.execute(answer)).whenComplete((ok, e) -> {
+            if (e != null) log.warn("Failed to answer callback {}: {}", callbackQueryId, e.getMessage());
+        });
     }
 
     /** Команда: по chatId (чат команды или личка), при личке — по участию пользователя. */
-    private Optional<Team> resolveTeam(long chatId, String telegramUserIdStr) {
-        Optional<Team> byChat = teamService.findByTelegramChatId(String.valueOf(chatId));
+    private Optional<TeamRef> resolveTeam(long chatId, String telegramUserIdStr) {
+        Optional<TeamRef> byChat = teamResolutionCache.getByChat(chatId,
+                () -> teamService.findByTelegramChatId(String.valueOf(chatId)));
         if (byChat.isPresent()) return byChat;
         // Личный чат (chatId > 0): команда могла быть создана в группе — ищем по участию
         if (chatId > 0 && telegramUserIdStr != null && !telegramUserIdStr.isBlank()) {
-            return teamMemberService.findFirstTeamByTelegramUserId(telegramUserIdStr);
+            return teamResolutionCache.getByUser(Long.parseLong(telegramUserIdStr),
+                    () -> teamMemberService.findFirstTeamByTelegramUserId(telegramUserIdStr));
         }
         return Optional.empty();
     }
@@ -506,8 +519,8 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
                 .toList();
     }
 
-    /** Отправляет опрос в чат. chatId — строка (личный или группа, например "-1001234567890"). */
-    private void sendPoll(String chatId, String question, List<String> optionStrings) {
+    /** Ставит опрос в отправку. chatId — строка (личный или группа, например "-1001234567890"). */
+    private CompletableFuture<Message> sendPoll(String chatId, String question, List<String> optionStrings, Long teamId) {
         String q = (question != null && !question.isBlank()) ? question : "Кто едет на игру?";
         if (q.length() > 255) q = q.substring(0, 255);
         List<InputPollOption> options = optionStrings.stream()
@@ -522,13 +535,7 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
                 .options(options)
                 .isAnonymous(false)
                 .build();
-        try {
-            telegramClient.execute(poll);
-            integrationMetricsService.record(IntegrationEvent.EventType.POLL, chatId, true, null, null, null);
-        } catch (org.telegram.telegrambots.meta.exceptions.TelegramApiException e) {
-            integrationMetricsService.record(IntegrationEvent.EventType.POLL, chatId, false, e.getMessage(), null, null);
-            throw new RuntimeException(e);
-        }
+        return sendAsync(chatId, IntegrationEvent.EventType.POLL, teamId, client -> client.execute(poll));
     }
 
     private ReplyKeyboardMarkup mainMenu() {
@@ -625,20 +632,40 @@ public class BasketTelegramBot implements SpringLongPollingBot, LongPollingSingl
         sendMessageWithReplyKeyboard(chatId, messageText, null);
     }
 
+    /** Ответ ставится в очередь чата без ожидания Bot API; порядок сообщений в чате сохраняет OutboundDispatcher. */
     private void sendMessageWithReplyKeyboard(long chatId, String messageText, ReplyKeyboardMarkup replyMarkup) {
-        try {
-            SendMessage.SendMessageBuilder builder = SendMessage.builder()
-                    .chatId(String.valueOf(chatId))
-                    .text(messageText);
-            if (replyMarkup != null) {
-                builder.replyMarkup(replyMarkup);
-            }
-            telegramClient.execute(builder.build());
-            integrationMetricsService.record(IntegrationEvent.EventType.BOT_MESSAGE, String.valueOf(chatId), true, null, null, null);
-        } catch (Exception e) {
-            integrationMetricsService.record(IntegrationEvent.EventType.BOT_MESSAGE, String.valueOf(chatId), false, e.getMessage(), null, null);
-            throw new RuntimeException("Не удалось отправить сообщение в Telegram", e);
+        SendMessage.SendMessageBuilder builder = SendMessage.builder()
+                .chatId(String.valueOf(chatId))
+                .text(messageText);
+        if (replyMarkup != null) {
+            builder.replyMarkup(replyMarkup);
         }
+        SendMessage message = builder.build();
+        sendAsync(String.valueOf(chatId), IntegrationEvent.EventType.BOT_MESSAGE, null, client -> client.execute(message))
+                .whenComplete((sent, e) -> {
+                    if (e != null) log.warn("Failed to send message to {}: {}", chatId, causeMessage(e));
+                });
+    }
+
+    /**
+     * Асинхронная отправка: future завершается ответом Bot API (после повторов) или ошибкой.
+     * По завершении результат и число повторов пишутся в IntegrationEvent.
+     */
+    private <T> CompletableFuture<T> sendAsync(String chatId, IntegrationEvent.EventType type, Long teamId,
+                                               OutboundDispatcher.TelegramCall<T> call) {
+        AtomicInteger retries = new AtomicInteger();
+        return outbound.submit(chatId, call, attempt -> retries.incrementAndGet()).whenComplete((result, e) -> {
+            try {
+                integrationMetricsService.record(type, chatId, e == null, e != null ? causeMessage(e) : null, teamId, null, retries.get());
+            } catch (Exception recordError) {
+                log.warn("Failed to record {} result for chat {}", type, chatId, recordError);
+            }
+        });
+    }
+
+    private static String causeMessage(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
     }
 
 }
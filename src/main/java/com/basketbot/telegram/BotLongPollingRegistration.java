@@ -0,0 +1,69 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.TelegramBotConfig;
+import com.basketbot.config.TelegramBotProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.longpolling.TelegramBotsLongPollingApplication;
+import org.telegram.telegrambots.meta.TelegramUrl;
+import org.telegram.telegrambots.meta.api.methods.updates.GetUpdates;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+/**
+ * Регистрация бота в long polling (режим по умолчанию, telegram.bot.mode=long-polling) на api.telegram.org или,
+ * при заданном telegram.bot.api-url (например, локальная заглушка для нагрузочных тестов), на том же адресе,
+ * что и у TelegramClient. Регистрируем сами, а не через SpringLongPollingBot стартера, чтобы задать getUpdates:
+ * после перезапуска опрос продолжается после сохранённого смещения ({@link UpdateDeduplicator}), и уже обработанные
+ * апдейты не скачиваются заново. В режиме webhook бин не создаётся, и getUpdates не опрашивается.
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.bot.token")
+@ConditionalOnExpression("'${telegram.bot.mode:long-polling}' == 'long-polling'")
+public class BotLongPollingRegistration {
+
+    private static final Logger log = LoggerFactory.getLogger(BotLongPollingRegistration.class);
+
+    private final TelegramBotProperties properties;
+    private final BasketTelegramBot bot;
+    private final UpdateDeduplicator deduplicator;
+    private final ObjectProvider<TelegramBotsLongPollingApplication> longPollingApplication;
+
+    public BotLongPollingRegistration(TelegramBotProperties properties, BasketTelegramBot bot,
+                                      UpdateDeduplicator deduplicator,
+                                      ObjectProvider<TelegramBotsLongPollingApplication> longPollingApplication) {
+        this.properties = properties;
+        this.bot = bot;
+        this.deduplicator = deduplicator;
+        this.longPollingApplication = longPollingApplication;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void register() {
+        String apiUrl = properties.getApiUrl();
+        String target = apiUrl == null || apiUrl.isBlank() ? "api.telegram.org" : apiUrl;
+        TelegramBotsLongPollingApplication application = longPollingApplication.getIfAvailable();
+        if (application == null) {
+            log.warn("Long polling application is not available, bot is not registered at {}", target);
+            return;
+        }
+        TelegramUrl telegramUrl = apiUrl == null || apiUrl.isBlank() ? TelegramUrl.DEFAULT_URL : TelegramBotConfig.telegramUrl(apiUrl);
+        try {
+            application.registerBot(properties.getToken(), () -> telegramUrl, this::nextGetUpdates, bot);
+            log.info("Long polling registered at {}", target);
+        } catch (TelegramApiException e) {
+            log.error("Failed to register long polling at {}: {}", target, e.getMessage());
+        }
+    }
+
+    /** lastUpdateId — последний полученный в этом запуске (0 до первого апдейта). */
+    private GetUpdates nextGetUpdates(Integer lastUpdateId) {
+        long after = Math.max(lastUpdateId != null ? lastUpdateId : 0, deduplicator.getResumeOffset());
+        return GetUpdates.builder().offset((int) after + 1).limit(100).timeout(50).build();
+    }
+}
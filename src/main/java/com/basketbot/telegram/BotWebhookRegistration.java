@@ -0,0 +1,52 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.TelegramBotProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+/**
+ * Режим webhook (telegram.bot.mode=webhook): при старте регистрирует telegram.bot.webhook.url в Telegram.
+ * Если URL не задан, webhook считается настроенным вручную (или апдейты шлются на эндпоинт локально).
+ * Секрет передаётся всегда: без него эндпоинт отклоняет все запросы (см. TelegramWebhookController).
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.bot.token")
+@ConditionalOnExpression("'${telegram.bot.mode:long-polling}' == 'webhook'")
+public class BotWebhookRegistration {
+
+    private static final Logger log = LoggerFactory.getLogger(BotWebhookRegistration.class);
+
+    private final TelegramBotProperties properties;
+    private final TelegramClient telegramClient;
+
+    public BotWebhookRegistration(TelegramBotProperties properties, TelegramClient telegramClient) {
+        this.properties = properties;
+        this.telegramClient = telegramClient;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerWebhook() {
+        String url = properties.getWebhook().getUrl();
+        if (url == null || url.isBlank()) {
+            log.info("Webhook mode: telegram.bot.webhook.url not set, skipping setWebhook");
+            return;
+        }
+        SetWebhook setWebhook = SetWebhook.builder()
+                .url(url.trim())
+                .secretToken(properties.getWebhook().getSecretToken())
+                .build();
+        try {
+            telegramClient.execute(setWebhook);
+            log.info("Webhook registered: {}", url);
+        } catch (Exception e) {
+            log.warn("Failed to register webhook {}", url, e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.basketbot.telegram;
+
+/**
+ * Состояние незавершённых диалогов бота по chatId. Значения — строки, чтобы реализация могла хранить их вне кучи.
+ * Записи живут ограниченное время (telegram.bot.conversation.ttl): брошенный диалог удаляется сам.
+ * Реализация выбирается свойством telegram.bot.conversation.backend.
+ */
+public interface ConversationStateStore {
+
+    enum Flow {
+        /** Ждём название команды после /start (значение — пустая строка). */
+        TEAM_NAME,
+        /** Ждём «ДА» для выхода из команды (значение — teamId). */
+        LEAVE_CONFIRM,
+        /** Создание опроса: "" — ждём вопрос, иначе вопрос (ждём варианты ответа). */
+        POLL
+    }
+
+    /** Текущее значение или null (нет или истекло). */
+    String get(Flow flow, long chatId);
+
+    void put(Flow flow, long chatId, String value);
+
+    /** Удалить и вернуть прежнее значение (null, если не было). */
+    String remove(Flow flow, long chatId);
+}
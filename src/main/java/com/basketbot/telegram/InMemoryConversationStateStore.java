@@ -0,0 +1,65 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.TelegramBotProperties;
+import com.basketbot.util.LongKeyLruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Состояние диалогов в памяти процесса: по одному {@link LongKeyLruCache} на сценарий
+ * (лимит записей с вытеснением LRU, TTL с момента последнего обращения).
+ * Метрики: bot.conversation.state.size / hits / misses / evictions (тег flow, для evictions — cause=size|expired).
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.bot.conversation.backend", havingValue = "memory", matchIfMissing = true)
+public class InMemoryConversationStateStore implements ConversationStateStore {
+
+    private final Map<Flow, LongKeyLruCache<String>> caches = new EnumMap<>(Flow.class);
+
+    public InMemoryConversationStateStore(TelegramBotProperties properties, MeterRegistry meterRegistry) {
+        TelegramBotProperties.Conversation config = properties.getConversation();
+        for (Flow flow : Flow.values()) {
+            LongKeyLruCache<String> cache = new LongKeyLruCache<>(config.getMaxSize(), config.getTtl());
+            caches.put(flow, cache);
+            String tag = flow.name();
+            Gauge.builder("bot.conversation.state.size", cache, LongKeyLruCache::size)
+                    .tag("flow", tag).register(meterRegistry);
+            FunctionCounter.builder("bot.conversation.state.hits", cache, LongKeyLruCache::hitCount)
+                    .tag("flow", tag).register(meterRegistry);
+            FunctionCounter.builder("bot.conversation.state.misses", cache, LongKeyLruCache::missCount)
+                    .tag("flow", tag).register(meterRegistry);
+            FunctionCounter.builder("bot.conversation.state.evictions", cache, LongKeyLruCache::evictionCount)
+                    .tag("flow", tag).tag("cause", "size").register(meterRegistry);
+            FunctionCounter.builder("bot.conversation.state.evictions", cache, LongKeyLruCache::expirationCount)
+                    .tag("flow", tag).tag("cause", "expired").register(meterRegistry);
+        }
+    }
+
+    @Override
+    public String get(Flow flow, long chatId) {
+        return caches.get(flow).get(chatId);
+    }
+
+    @Override
+    public void put(Flow flow, long chatId, String value) {
+        caches.get(flow).put(chatId, value);
+    }
+
+    @Override
+    public String remove(Flow flow, long chatId) {
+        return caches.get(flow).remove(chatId);
+    }
+
+    /** Раз в минуту удаляем истёкшие записи, чтобы брошенные диалоги не занимали место до вытеснения. */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        caches.values().forEach(LongKeyLruCache::cleanUp);
+    }
+}
@@ -0,0 +1,451 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.TelegramBotProperties;
+import com.basketbot.util.LongKeyLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Единая очередь исходящих запросов к Bot API с лимитами Telegram: общий token bucket на бота
+ * (~30 сообщений/с) и token bucket на каждый чат (личный ~1/с, группа/канал 20/мин).
+ * Запросы одного чата отправляются строго по порядку; чат, исчерпавший лимит, ждёт в {@link DelayQueue},
+ * не занимая потоки отправки, поэтому рассылка по многим чатам не упирается в один «медленный» чат.
+ * Очередь ограничена queue-capacity: отправитель ждёт место не дольше offer-timeout, затем получает отказ
+ * ({@link RejectedExecutionException}; так же завершается всё неотправленное при остановке).
+ * Запросы без чата (ответы на callback) ограничиваются только общим лимитом.
+ * Неудачный запрос повторяется по {@link TelegramRetryPolicy} (429 — через retry_after, 5xx/сеть — с нарастающей
+ * задержкой): он возвращается в начало очереди своего чата, и чат ждёт до повтора, не обгоняя его следующими сообщениями.
+ * Метрики: bot.outbound.queue.size, bot.outbound.wait, bot.outbound.sent (тег result=ok|error|rejected),
+ * bot.outbound.retries (тег reason=429|5xx|network).
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.bot.token")
+public class OutboundDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboundDispatcher.class);
+    /** Сколько при остановке ждать отправки того, что уже готово или станет готово. */
+    private static final Duration SHUTDOWN_GRACE = Duration.ofSeconds(10);
+    private static final String STOPPED = "Очередь исходящих сообщений остановлена";
+    /** Каналов с @username немного; вытесненное ведро просто начнёт заново полным. */
+    private static final int MAX_USERNAME_BUCKETS = 1_000;
+
+    /** Вызов Bot API, выполняемый потоком отправки. */
+    @FunctionalInterface
+    public interface TelegramCall<T> {
+        T call(TelegramClient client) throws TelegramApiException;
+    }
+
+    private final TelegramClient telegramClient;
+    private final TelegramRetryPolicy retryPolicy;
+    private final TokenBucket global;
+    private final double privatePerNano;
+    private final double groupPerNano;
+    private final int burst;
+    private final LongKeyLruCache<TokenBucket> chatBuckets;
+    /** Вёдра каналов по @username: отдельно от числовых id, чтобы хэш строки не делил ведро с чужим чатом. */
+    private final Map<String, TokenBucket> usernameBuckets = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+            return size() > MAX_USERNAME_BUCKETS;
+        }
+    };
+    private final Map<String, ChatLane> lanes = new ConcurrentHashMap<>();
+    private final DelayQueue<ChatLane> ready = new DelayQueue<>();
+    private final Semaphore capacity;
+    private final int queueCapacity;
+    private final long offerTimeoutNanos;
+    private final Thread[] workers;
+    private final Timer waitTimer;
+    private final Counter sentOk;
+    private final Counter sentError;
+    private final Counter rejected;
+    private final MeterRegistry meterRegistry;
+    private volatile boolean stopping;
+    /** При остановке: до этого момента (System.nanoTime) воркеры ещё отправляют то, что станет готово. */
+    private volatile long stopDeadline;
+
+    public OutboundDispatcher(TelegramBotProperties properties, MeterRegistry meterRegistry, TelegramClient telegramClient) {
+        this.telegramClient = telegramClient;
+        TelegramBotProperties.Outbound config = properties.getOutbound();
+        this.retryPolicy = new TelegramRetryPolicy(config.getRetry());
+        this.meterRegistry = meterRegistry;
+        this.burst = Math.max(1, config.getBurst());
+        this.global = new TokenBucket(perNano(Math.max(1, config.getGlobalPerSecond()), TimeUnit.SECONDS), burst);
+        this.privatePerNano = perNano(Math.max(1, config.getPrivateChatPerMinute()), TimeUnit.MINUTES);
+        this.groupPerNano = perNano(Math.max(1, config.getGroupPerMinute()), TimeUnit.MINUTES);
+        // Через 10 минут простоя ведро чата в любом случае полное — запись можно забыть
+        this.chatBuckets = new LongKeyLruCache<>(50_000, Duration.ofMinutes(10));
+        this.queueCapacity = Math.max(1, config.getQueueCapacity());
+        this.capacity = new Semaphore(queueCapacity);
+        Duration offerTimeout = config.getOfferTimeout();
+        this.offerTimeoutNanos = offerTimeout != null && !offerTimeout.isNegative() ? offerTimeout.toNanos() : 0L;
+
+        Gauge.builder("bot.outbound.queue.size", this, d -> d.queueCapacity - d.capacity.availablePermits())
+                .description("Исходящие запросы в очереди и в отправке")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("bot.outbound.wait")
+                .description("Время от постановки запроса в очередь до отправки")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.sentOk = sentCounter(meterRegistry, "ok");
+        this.sentError = sentCounter(meterRegistry, "error");
+        this.rejected = sentCounter(meterRegistry, "rejected");
+
+        int threads = Math.max(1, config.getWorkers());
+        this.workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(this::loop, "bot-outbound-" + i);
+            workers[i].start();
+        }
+        log.info("Outbound dispatcher: {} workers, {} req/s global, {}/min private, {}/min group, burst {}, capacity {}",
+                threads, config.getGlobalPerSecond(), config.getPrivateChatPerMinute(), config.getGroupPerMinute(),
+                burst, queueCapacity);
+    }
+
+    /**
+     * Поставить вызов в очередь чата chatId (null — без лимита на чат, например ответ на callback).
+     * Future завершается результатом вызова или его исключением; при переполненной очереди —
+     * {@link RejectedExecutionException}.
+     */
+    public <T> CompletableFuture<T> submit(String chatId, TelegramCall<T> call) {
+        return submit(chatId, call, null);
+    }
+
+    /** То же, onRetry вызывается перед каждым повтором с номером неудавшейся попытки. */
+    public <T> CompletableFuture<T> submit(String chatId, TelegramCall<T> call, IntConsumer onRetry) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (!acquire()) {
+            rejected.increment();
+            future.completeExceptionally(new RejectedExecutionException(stopping
+                    ? STOPPED
+                    : "Очередь исходящих сообщений переполнена"));
+            return future;
+        }
+        Task<T> task = new Task<>(call, future, onRetry, System.nanoTime());
+        if (chatId == null || chatId.isBlank()) {
+            ChatLane lane = new ChatLane(null, null);
+            lane.tasks.addLast(task);
+            lane.scheduled = true;
+            lane.readyAt = task.enqueuedAt;
+            ready.add(lane);
+            return future;
+        }
+        while (true) {
+            ChatLane lane = lanes.computeIfAbsent(chatId, k -> new ChatLane(k, bucket(k)));
+            synchronized (lane) {
+                if (lane.removed) continue;
+                lane.tasks.addLast(task);
+                if (!lane.scheduled) {
+                    schedule(lane);
+                }
+                return future;
+            }
+        }
+    }
+
+    /** Синхронный вариант {@link #submit}: ждёт отправки и возвращает результат. */
+    public <T> T execute(String chatId, TelegramCall<T> call) throws TelegramApiException {
+        try {
+            return submit(chatId, call).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TelegramApiException("Прервано ожидание отправки", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TelegramApiException telegramApiException) throw telegramApiException;
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new TelegramApiException(cause);
+        }
+    }
+
+    private boolean acquire() {
+        if (stopping) return false;
+        try {
+            return capacity.tryAcquire(offerTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** Резервирует токен чата под первый запрос очереди и ставит чат в DelayQueue. Вызывать под монитором lane. */
+    private void schedule(ChatLane lane) {
+        schedule(lane, 0L);
+    }
+
+    private void schedule(ChatLane lane, long minDelayNanos) {
+        long now = System.nanoTime();
+        long wait = lane.bucket != null ? lane.bucket.reserve(now) : 0L;
+        lane.readyAt = now + Math.max(wait, minDelayNanos);
+        lane.scheduled = true;
+        ready.add(lane);
+    }
+
+    private TokenBucket bucket(String chatId) {
+        String id = chatId.trim();
+        long key;
+        try {
+            key = Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            // @username канала
+            synchronized (chatBuckets) {
+                return usernameBuckets.computeIfAbsent(id, k -> new TokenBucket(groupPerNano, burst));
+            }
+        }
+        synchronized (chatBuckets) {
+            TokenBucket bucket = chatBuckets.get(key);
+            if (bucket == null) {
+                bucket = new TokenBucket(key < 0 ? groupPerNano : privatePerNano, burst);
+                chatBuckets.put(key, bucket);
+            }
+            return bucket;
+        }
+    }
+
+    private void loop() {
+        try {
+            while (true) {
+                ChatLane lane = ready.poll(200, TimeUnit.MILLISECONDS);
+                if (lane == null) {
+                    if (stopping && nothingDueBeforeStop()) return;
+                    continue;
+                }
+                Task<?> task;
+                synchronized (lane) {
+                    task = lane.tasks.pollFirst();
+                }
+                long retryDelay = TelegramRetryPolicy.NO_RETRY;
+                if (task != null) {
+                    long wait = global.reserve(System.nanoTime());
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                    retryDelay = run(task);
+                }
+                synchronized (lane) {
+                    if (retryDelay != TelegramRetryPolicy.NO_RETRY) {
+                        lane.tasks.addFirst(task);
+                        schedule(lane, retryDelay);
+                    } else if (!lane.tasks.isEmpty()) {
+                        schedule(lane);
+                    } else {
+                        lane.scheduled = false;
+                        lane.removed = true;
+                        if (lane.chatId != null) {
+                            lanes.remove(lane.chatId, lane);
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Выполняет вызов. Возвращает задержку до повтора или NO_RETRY, если задача завершена. */
+    private <T> long run(Task<T> task) {
+        if (task.attempts == 0) {
+            waitTimer.record(System.nanoTime() - task.enqueuedAt, TimeUnit.NANOSECONDS);
+        }
+        task.attempts++;
+        try {
+            T result = task.call.call(telegramClient);
+            sentOk.increment();
+            capacity.release();
+            task.future.complete(result);
+            return TelegramRetryPolicy.NO_RETRY;
+        } catch (Exception e) {
+            long delay = retryPolicy.retryDelayNanos(e, task.attempts);
+            if (delay != TelegramRetryPolicy.NO_RETRY && stopping) {
+                // Повторить уже не успеем: для вызывающего это «не отправлено», а не ошибка доставки
+                rejected.increment();
+                capacity.release();
+                task.future.completeExceptionally(new RejectedExecutionException(STOPPED, e));
+                return TelegramRetryPolicy.NO_RETRY;
+            }
+            if (delay != TelegramRetryPolicy.NO_RETRY) {
+                retryCounter(e).increment();
+                log.debug("Bot API call failed (attempt {}), retry in {} ms: {}",
+                        task.attempts, TimeUnit.NANOSECONDS.toMillis(delay), e.getMessage());
+                if (task.onRetry != null) {
+                    try {
+                        task.onRetry.accept(task.attempts);
+                    } catch (RuntimeException callbackError) {
+                        log.warn("Retry callback failed", callbackError);
+                    }
+                }
+                return delay;
+            }
+            sentError.increment();
+            capacity.release();
+            task.future.completeExceptionally(e);
+            return TelegramRetryPolicy.NO_RETRY;
+        }
+    }
+
+    private Counter retryCounter(Throwable error) {
+        Integer code = TelegramRetryPolicy.errorCode(error);
+        String reason = code == null ? "network" : code == 429 ? "429" : "5xx";
+        return Counter.builder("bot.outbound.retries")
+                .description("Повторы запросов к Bot API")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /** Следующая полоса станет готова позже срока остановки (ждёт лимит чата или повтор) — воркеру ждать нечего. */
+    private boolean nothingDueBeforeStop() {
+        ChatLane head = ready.peek();
+        return head == null || head.readyAt - stopDeadline > 0;
+    }
+
+    /**
+     * Остановка: новые запросы отклоняются, воркеры до SHUTDOWN_GRACE отправляют то, что успевает стать готовым.
+     * Всё оставшееся — полосы, ждущие лимита чата или повтора, и вызовы, которые пришлось бы повторять, —
+     * завершается RejectedExecutionException («не отправлено»): OutboxRelay возвращает такие строки в очередь,
+     * и их отправит следующий экземпляр.
+     */
+    @PreDestroy
+    public void shutdown() {
+        stopDeadline = System.nanoTime() + SHUTDOWN_GRACE.toNanos();
+        stopping = true;
+        for (Thread worker : workers) {
+            try {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(stopDeadline - System.nanoTime());
+                worker.join(Math.max(1L, remainingMillis));
+                if (worker.isAlive()) {
+                    worker.interrupt();
+                }
+            } catch (InterruptedException e) {
+                worker.interrupt();
+                Thread.currentThread().interrupt();
+            }
+        }
+        // DelayQueue.poll отдаёт только готовые полосы, поэтому забираем все: и из очереди, и из карты чатов
+        Set<ChatLane> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+        pending.addAll(Arrays.asList(ready.toArray(new ChatLane[0])));
+        ready.clear();
+        pending.addAll(lanes.values());
+        lanes.clear();
+        for (ChatLane lane : pending) {
+            synchronized (lane) {
+                for (Task<?> task : lane.tasks) {
+                    capacity.release();
+                    rejected.increment();
+                    task.future.completeExceptionally(new RejectedExecutionException(STOPPED));
+                }
+                lane.tasks.clear();
+                lane.scheduled = false;
+                lane.removed = true;
+            }
+        }
+    }
+
+    private static Counter sentCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("bot.outbound.sent")
+                .description("Исходящие запросы к Bot API")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static double perNano(int permits, TimeUnit per) {
+        return permits / (double) per.toNanos(1);
+    }
+
+    private static final class Task<T> {
+
+        private final TelegramCall<T> call;
+        private final CompletableFuture<T> future;
+        private final IntConsumer onRetry;
+        private final long enqueuedAt;
+        /** Сделано попыток; меняет только поток отправки. */
+        private int attempts;
+
+        Task(TelegramCall<T> call, CompletableFuture<T> future, IntConsumer onRetry, long enqueuedAt) {
+            this.call = call;
+            this.future = future;
+            this.onRetry = onRetry;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /** Очередь запросов одного чата; в DelayQueue находится, пока в ней есть запросы. */
+    private static final class ChatLane implements Delayed {
+
+        private final String chatId;
+        private final TokenBucket bucket;
+        private final ArrayDeque<Task<?>> tasks = new ArrayDeque<>();
+        private long readyAt;
+        private boolean scheduled;
+        private boolean removed;
+
+        ChatLane(String chatId, TokenBucket bucket) {
+            this.chatId = chatId;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(readyAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(readyAt, ((ChatLane) other).readyAt);
+        }
+    }
+
+    /**
+     * Token bucket с резервированием: токен забирается сразу, а в ответ возвращается, сколько наносекунд
+     * подождать до его появления (баланс может уходить в минус — следующие ждут дольше).
+     */
+    static final class TokenBucket {
+
+        private final double perNano;
+        private final double capacity;
+        private double tokens;
+        private long updatedAt;
+
+        TokenBucket(double perNano, int capacity) {
+            this.perNano = perNano;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.updatedAt = System.nanoTime();
+        }
+
+        synchronized long reserve(long now) {
+            if (now > updatedAt) {
+                tokens = Math.min(capacity, tokens + (now - updatedAt) * perNano);
+                updatedAt = now;
+            }
+            tokens -= 1;
+            return tokens >= 0 ? 0L : (long) Math.ceil(-tokens / perNano);
+        }
+    }
+}
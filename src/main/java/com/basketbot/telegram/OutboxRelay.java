@@ -0,0 +1,204 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.NodeIdentity;
+import com.basketbot.config.TelegramBotProperties;
+import com.basketbot.model.IntegrationEvent;
+import com.basketbot.model.OutboxMessage;
+import com.basketbot.service.AttendanceMessageService;
+import com.basketbot.service.TelegramOutboxService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Доставка сообщений из telegram_outbox: раз в poll-interval захватывает готовые к отправке строки (IN_FLIGHT
+ * за этим экземпляром, с арендой) и ставит их в {@link OutboundDispatcher}, не дожидаясь ответа Bot API
+ * (поток планировщика не блокируется лимитами чатов). При нескольких экземплярах каждую строку отправляет тот,
+ * кто её захватил, а чат, пока в нём идёт отправка, не захватывает никто другой (порядок и лимит чата сохраняются).
+ * Пока отправка идёт, аренда продлевается отдельным потоком; строки упавшего экземпляра после её истечения
+ * захватывает другой.
+ * Временные ошибки повторяет сам диспетчер (см. TelegramRetryPolicy); по завершении строка помечается доставленной
+ * или уходит в dead letter (FAILED), результат и число повторов пишутся в IntegrationEvent. Отказ диспетчера
+ * (очередь переполнена или останавливается) — не ошибка доставки: строка возвращается в PENDING без попытки.
+ * Сообщения, уже переданные в отправку, повторно не выбираются; после перезапуска недоставленные
+ * отправляются заново по истечении аренды (доставка «хотя бы один раз»).
+ * При включённой склейке (telegram.bot.outbox.coalesce) идущие подряд некритичные сообщения одного чата уходят
+ * одним SendMessage (до 4096 символов, дальше — следующим); сообщение с кнопками или картинкой склейку прерывает
+ * и уходит на своём месте. Каждая строка очереди получает свой результат.
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.bot.token")
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+    /** Лимит длины текста сообщения в Bot API. */
+    private static final int MAX_MESSAGE_LENGTH = 4096;
+    private static final String SEPARATOR = "\n\n";
+
+    private final TelegramOutboxService outboxService;
+    private final OutboundDispatcher outbound;
+    private final PhotoUploader photoUploader;
+    private final AttendanceMessageService attendanceMessageService;
+    private final String node;
+    private final int batchSize;
+    private final Duration retention;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    /** Продление аренды на своём потоке: поток планировщика может надолго занять рассылка или скан напоминаний. */
+    private final ScheduledExecutorService leaseRenewal;
+
+    public OutboxRelay(TelegramOutboxService outboxService, OutboundDispatcher outbound, PhotoUploader photoUploader,
+                       AttendanceMessageService attendanceMessageService, TelegramBotProperties properties,
+                       NodeIdentity nodeIdentity) {
+        this.outboxService = outboxService;
+        this.node = nodeIdentity.getId();
+        this.outbound = outbound;
+        this.photoUploader = photoUploader;
+        this.attendanceMessageService = attendanceMessageService;
+        this.batchSize = Math.max(1, properties.getOutbox().getBatchSize());
+        this.retention = properties.getOutbox().getRetention();
+        this.leaseRenewal = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "outbox-lease");
+            t.setDaemon(true);
+            return t;
+        });
+        // Не реже трети длины аренды
+        long renewEveryMs = Math.max(1000L, outboxService.getLease().toMillis() / 3);
+        leaseRenewal.scheduleWithFixedDelay(this::renewLeases, renewEveryMs, renewEveryMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Scheduled(fixedDelayString = "${telegram.bot.outbox.poll-interval:1000}")
+    public void relay() {
+        int room = batchSize - inFlight.size();
+        if (room <= 0) return;
+        List<OutboxMessage> claimed = outboxService.claimDue(node, room, Set.copyOf(inFlight));
+        claimed.forEach(m -> inFlight.add(m.getId()));
+        // Захваченные идут по чатам в порядке постановки; склеиваются только соседние склеиваемые сообщения чата
+        List<OutboxMessage> batch = new ArrayList<>();
+        int length = 0;
+        for (OutboxMessage m : claimed) {
+            boolean coalescable = outboxService.isCoalescable(m);
+            if (!batch.isEmpty() && (!coalescable || !m.getChatId().equals(batch.get(0).getChatId())
+                    || length + SEPARATOR.length() + textLength(m) > MAX_MESSAGE_LENGTH)) {
+                submitMerged(batch);
+                batch = new ArrayList<>();
+            }
+            if (coalescable) {
+                length = batch.isEmpty() ? textLength(m) : length + SEPARATOR.length() + textLength(m);
+                batch.add(m);
+            } else {
+                submit(m.getChatId(), List.of(m), client -> send(client, m));
+            }
+        }
+        if (!batch.isEmpty()) submitMerged(batch);
+    }
+
+    private void submitMerged(List<OutboxMessage> batch) {
+        OutboxMessage first = batch.get(0);
+        if (batch.size() == 1) {
+            submit(first.getChatId(), batch, client -> send(client, first));
+            return;
+        }
+        SendMessage merged = SendMessage.builder().chatId(first.getChatId()).text(joinTexts(batch)).build();
+        submit(first.getChatId(), batch, client -> client.execute(merged));
+    }
+
+    private void submit(String chatId, List<OutboxMessage> messages, OutboundDispatcher.TelegramCall<Message> call) {
+        AtomicInteger retries = new AtomicInteger();
+        outbound.submit(chatId, call, attempt -> retries.incrementAndGet())
+                .whenComplete((sent, e) -> messages.forEach(m -> complete(m, sent, e, retries.get())));
+    }
+
+    private void renewLeases() {
+        if (inFlight.isEmpty()) return;
+        try {
+            outboxService.renewLeases(node, Set.copyOf(inFlight));
+        } catch (Exception e) {
+            log.warn("Outbox: failed to renew leases: {}", e.getMessage());
+        }
+    }
+
+    private static String joinTexts(List<OutboxMessage> batch) {
+        StringBuilder sb = new StringBuilder();
+        for (OutboxMessage m : batch) {
+            if (!sb.isEmpty()) sb.append(SEPARATOR);
+            sb.append(m.getText() != null ? m.getText() : "");
+        }
+        return sb.toString();
+    }
+
+    private static int textLength(OutboxMessage m) {
+        return m.getText() != null ? m.getText().length() : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        leaseRenewal.shutdownNow();
+    }
+
+    @Scheduled(fixedDelay = 3_600_000, initialDelay = 60_000)
+    public void purgeDelivered() {
+        int removed = outboxService.purgeDelivered(Instant.now().minus(retention));
+        if (removed > 0) {
+            log.info("Outbox: removed {} delivered messages", removed);
+        }
+    }
+
+    private Message send(TelegramClient client, OutboxMessage m) throws TelegramApiException {
+        if (m.getPhoto() != null) {
+            return photoUploader.send(client, m.getChatId(), m.getPhoto(),
+                    m.getPhotoName() != null ? m.getPhotoName() : "image.png", m.getText());
+        }
+        SendMessage.SendMessageBuilder message = SendMessage.builder()
+                .chatId(m.getChatId())
+                .text(m.getText());
+        InlineKeyboardMarkup keyboard = outboxService.keyboardOf(m);
+        if (keyboard != null) message.replyMarkup(keyboard);
+        return client.execute(message.build());
+    }
+
+    private void complete(OutboxMessage m, Message sent, Throwable error, int retries) {
+        try {
+            if (error == null) {
+                outboxService.markDelivered(m, retries);
+                if (m.getEventType() == IntegrationEvent.EventType.REMINDER_24H && sent != null) {
+                    attendanceMessageService.rememberReminderMessage(m.getMatchId(), m.getChatId(), sent.getMessageId());
+                }
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof RejectedExecutionException) {
+                    // Не отправлено (очередь переполнена или останавливается) — это не неудачная доставка
+                    log.info("Outbox message {} to {} not sent, returned to queue: {}", m.getId(), m.getChatId(), cause.getMessage());
+                    outboxService.release(m, node);
+                    return;
+                }
+                log.warn("Outbox message {} to {} failed: {}", m.getId(), m.getChatId(), cause.getMessage());
+                outboxService.markFailed(m, cause.getMessage(), retries);
+            }
+        } catch (Exception e) {
+            log.error("Outbox message {}: failed to save delivery result", m.getId(), e);
+        } finally {
+            inFlight.remove(m.getId());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.basketbot.telegram;
+
+import com.basketbot.service.TelegramFileCacheService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
+import org.telegram.telegrambots.meta.api.objects.photo.PhotoSize;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Отправка PNG через кэш file_id: если такая картинка уже загружалась, отправляется её file_id,
+ * иначе файл загружается и file_id из ответа запоминается. Вызывается внутри вызова {@link OutboundDispatcher}.
+ */
+@Component
+public class PhotoUploader {
+
+    private static final Logger log = LoggerFactory.getLogger(PhotoUploader.class);
+
+    private final TelegramFileCacheService fileCache;
+
+    public PhotoUploader(TelegramFileCacheService fileCache) {
+        this.fileCache = fileCache;
+    }
+
+    /** caption может быть null. */
+    public Message send(TelegramClient client, String chatId, byte[] png, String fileName, String caption)
+            throws TelegramApiException {
+        String hash = TelegramFileCacheService.contentHash(png);
+        Optional<String> fileId = cached(hash);
+        if (fileId.isPresent()) {
+            try {
+                return client.execute(build(chatId, new InputFile(fileId.get()), caption));
+            } catch (TelegramApiException e) {
+                // 400 — file_id не принят (другой бот, файл удалён): загружаем заново. Остальное — как обычная ошибка отправки
+                Integer code = TelegramRetryPolicy.errorCode(e);
+                if (code == null || code != 400) throw e;
+                log.info("Cached file_id for {} rejected, uploading again: {}", hash, e.getMessage());
+                forget(hash);
+            }
+        }
+        Message sent = client.execute(build(chatId, new InputFile(new ByteArrayInputStream(png), fileName), caption));
+        String uploaded = largestFileId(sent);
+        if (uploaded != null) remember(hash, uploaded);
+        return sent;
+    }
+
+    private static SendPhoto build(String chatId, InputFile photo, String caption) {
+        SendPhoto.SendPhotoBuilder builder = SendPhoto.builder().chatId(chatId).photo(photo);
+        if (caption != null && !caption.isBlank()) builder.caption(caption);
+        return builder.build();
+    }
+
+    /** Telegram возвращает несколько размеров; последний — исходный. */
+    private static String largestFileId(Message sent) {
+        if (sent == null) return null;
+        List<PhotoSize> sizes = sent.getPhoto();
+        return sizes != null && !sizes.isEmpty() ? sizes.get(sizes.size() - 1).getFileId() : null;
+    }
+
+    // Кэш — только ускорение: ошибка БД не должна срывать отправку
+
+    private Optional<String> cached(String hash) {
+        try {
+            return fileCache.findFileId(hash);
+        } catch (Exception e) {
+            log.warn("File cache lookup failed for {}", hash, e);
+            return Optional.empty();
+        }
+    }
+
+    private void remember(String hash, String fileId) {
+        try {
+            fileCache.remember(hash, fileId);
+        } catch (Exception e) {
+            log.warn("Failed to cache file_id for {}", hash, e);
+        }
+    }
+
+    private void forget(String hash) {
+        try {
+            fileCache.forget(hash);
+        } catch (Exception e) {
+            log.warn("Failed to drop cached file_id for {}", hash, e);
+        }
+    }
+}
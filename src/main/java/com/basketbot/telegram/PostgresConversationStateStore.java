@@ -0,0 +1,137 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.TelegramBotProperties;
+import com.basketbot.model.ConversationState;
+import com.basketbot.repository.ConversationStateRepository;
+import com.basketbot.util.LongKeyLruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Состояние диалогов в таблице conversation_state — общее для всех экземпляров бота.
+ * Срок жизни отсчитывается от последней записи (чтение TTL не продлевает, чтобы не писать в БД на каждое сообщение).
+ * Перед БД стоит небольшой near-cache в памяти (в т.ч. «состояния нет» — самый частый случай): свои записи экземпляр
+ * видит сразу, записи других экземпляров — не позже чем через near-cache-ttl. Срок записи near-cache фиксируется
+ * при заполнении (чтения его не продлевают) и не выходит за expires_at строки. remove всегда удаляет строку в БД:
+ * отметке «нет» в near-cache не доверяем, состояние мог записать другой экземпляр. При нескольких экземплярах без
+ * привязки чата к экземпляру near-cache-ttl стоит держать коротким.
+ * Метрики: bot.conversation.nearcache.hits / misses (тег flow).
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.bot.conversation.backend", havingValue = "postgres")
+public class PostgresConversationStateStore implements ConversationStateStore {
+
+    /** Отметка «в БД записи нет». */
+    private static final Object ABSENT = new Object();
+
+    private final ConversationStateRepository repository;
+    private final Clock clock;
+    private final Duration ttl;
+    private final Duration nearCacheTtl;
+    private final Map<Flow, LongKeyLruCache<Object>> nearCaches = new EnumMap<>(Flow.class);
+
+    @Autowired
+    public PostgresConversationStateStore(ConversationStateRepository repository,
+                                          TelegramBotProperties properties,
+                                          MeterRegistry meterRegistry) {
+        this(repository, properties, meterRegistry, Clock.systemUTC());
+    }
+
+    /** clock — и для expires_at, и для near-cache (тесты подставляют свои часы). */
+    PostgresConversationStateStore(ConversationStateRepository repository,
+                                   TelegramBotProperties properties,
+                                   MeterRegistry meterRegistry,
+                                   Clock clock) {
+        this.repository = repository;
+        this.clock = clock;
+        TelegramBotProperties.Conversation config = properties.getConversation();
+        this.ttl = config.getTtl();
+        this.nearCacheTtl = config.getNearCacheTtl();
+        if (!nearCacheTtl.isZero() && !nearCacheTtl.isNegative()) {
+            for (Flow flow : Flow.values()) {
+                LongKeyLruCache<Object> cache = LongKeyLruCache.expireAfterWrite(config.getMaxSize(), nearCacheTtl, this::nanoTime);
+                nearCaches.put(flow, cache);
+                FunctionCounter.builder("bot.conversation.nearcache.hits", cache, LongKeyLruCache::hitCount)
+                        .tag("flow", flow.name()).register(meterRegistry);
+                FunctionCounter.builder("bot.conversation.nearcache.misses", cache, LongKeyLruCache::missCount)
+                        .tag("flow", flow.name()).register(meterRegistry);
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String get(Flow flow, long chatId) {
+        LongKeyLruCache<Object> nearCache = nearCaches.get(flow);
+        if (nearCache != null) {
+            Object cached = nearCache.get(chatId);
+            if (cached != null) {
+                return cached == ABSENT ? null : (String) cached;
+            }
+        }
+        Instant now = clock.instant();
+        Optional<ConversationState> state = repository.findActive(chatId, flow.name(), now);
+        if (nearCache != null) {
+            if (state.isPresent()) {
+                nearCache.put(chatId, state.get().getValue(), nearTtl(Duration.between(now, state.get().getExpiresAt())));
+            } else {
+                nearCache.put(chatId, ABSENT);
+            }
+        }
+        return state.map(ConversationState::getValue).orElse(null);
+    }
+
+    @Override
+    @Transactional
+    public void put(Flow flow, long chatId, String value) {
+        repository.upsert(chatId, flow.name(), value, clock.instant().plus(ttl));
+        LongKeyLruCache<Object> nearCache = nearCaches.get(flow);
+        if (nearCache != null) {
+            nearCache.put(chatId, value, nearTtl(ttl));
+        }
+    }
+
+    @Override
+    @Transactional
+    public String remove(Flow flow, long chatId) {
+        LongKeyLruCache<Object> nearCache = nearCaches.get(flow);
+        String value = repository.findActive(chatId, flow.name(), clock.instant())
+                .map(ConversationState::getValue)
+                .orElse(null);
+        // Удаляем и истёкшую строку; если её уже удалил другой экземпляр — значение считаем обработанным там
+        int deleted = repository.deleteByKey(chatId, flow.name());
+        if (nearCache != null) {
+            nearCache.put(chatId, ABSENT);
+        }
+        return deleted > 0 ? value : null;
+    }
+
+    /** Раз в минуту удаляем истёкшие строки. */
+    @Scheduled(fixedDelay = 60_000)
+    @Transactional
+    public void deleteExpired() {
+        repository.deleteExpired(clock.instant());
+        nearCaches.values().forEach(LongKeyLruCache::cleanUp);
+    }
+
+    private long nanoTime() {
+        Instant now = clock.instant();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+
+    private Duration nearTtl(Duration remaining) {
+        return remaining.compareTo(nearCacheTtl) < 0 && remaining.compareTo(Duration.ZERO) > 0 ? remaining : nearCacheTtl;
+    }
+}
@@ -0,0 +1,96 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.TelegramBotProperties;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Когда повторять неудавшийся запрос к Bot API.
+ * <ul>
+ *   <li>429 Too Many Requests — через retry_after из ответа (нет параметра — как 5xx);</li>
+ *   <li>5xx и сетевые ошибки (исключение без кода ответа) — экспоненциальная задержка с разбросом:
+ *       половина от initial * 2^(n-1), но не больше max, плюс случайная добавка до второй половины;</li>
+ *   <li>остальные 4xx (чат не найден, бот заблокирован, неверный запрос) — не повторяются.</li>
+ * </ul>
+ */
+public class TelegramRetryPolicy {
+
+    /** Повторять не нужно. */
+    public static final long NO_RETRY = -1L;
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final long maxRetryAfterNanos;
+    private final LongUnaryOperator jitter;
+
+    public TelegramRetryPolicy(TelegramBotProperties.Retry config) {
+        this(config, bound -> bound > 0 ? ThreadLocalRandom.current().nextLong(bound + 1) : 0L);
+    }
+
+    TelegramRetryPolicy(TelegramBotProperties.Retry config, LongUnaryOperator jitter) {
+        this.maxAttempts = Math.max(1, config.getMaxAttempts());
+        this.initialBackoffNanos = positive(config.getInitialBackoff(), Duration.ofSeconds(1));
+        this.maxBackoffNanos = Math.max(initialBackoffNanos, positive(config.getMaxBackoff(), Duration.ofMinutes(1)));
+        this.maxRetryAfterNanos = positive(config.getMaxRetryAfter(), Duration.ofMinutes(5));
+        this.jitter = jitter;
+    }
+
+    /**
+     * Задержка перед следующей попыткой в наносекундах или {@link #NO_RETRY}.
+     * attempt — номер неудавшейся попытки (1 — первая).
+     */
+    public long retryDelayNanos(Throwable error, int attempt) {
+        if (attempt >= maxAttempts) return NO_RETRY;
+        Throwable cause = unwrap(error);
+        if (cause instanceof TelegramApiRequestException request) {
+            Integer code = request.getErrorCode();
+            if (code != null && code == 429) {
+                Integer retryAfter = request.getParameters() != null ? request.getParameters().getRetryAfter() : null;
+                if (retryAfter != null) {
+                    long nanos = Duration.ofSeconds(Math.max(1, retryAfter)).toNanos();
+                    return nanos <= maxRetryAfterNanos ? nanos : NO_RETRY;
+                }
+                return backoff(attempt);
+            }
+            if (code != null && code >= 500) return backoff(attempt);
+            // Код не пришёл — ответ не разобран (обрыв соединения, HTML от прокси)
+            return code == null ? backoff(attempt) : NO_RETRY;
+        }
+        if (cause instanceof TelegramApiException) {
+            return backoff(attempt);
+        }
+        return NO_RETRY;
+    }
+
+    /** Код ответа Bot API (429, 400, 5xx) или null — сетевая ошибка либо не ошибка Bot API. */
+    public static Integer errorCode(Throwable error) {
+        return unwrap(error) instanceof TelegramApiRequestException request ? request.getErrorCode() : null;
+    }
+
+    private long backoff(int attempt) {
+        int shift = Math.min(attempt - 1, 30);
+        long exp = initialBackoffNanos << shift;
+        long capped = exp <= 0 || exp > maxBackoffNanos ? maxBackoffNanos : exp;
+        long half = capped / 2;
+        return half + jitter.applyAsLong(capped - half);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static long positive(Duration value, Duration fallback) {
+        return value != null && !value.isNegative() && !value.isZero() ? value.toNanos() : fallback.toNanos();
+    }
+}
@@ -0,0 +1,150 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.TelegramBotProperties;
+import com.basketbot.service.SystemSettingsService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Идемпотентная обработка апдейтов: повторно доставленный update_id отбрасывается до вызова сервисов.
+ * Недавние id — в кольцевом буфере (слот id % window), всё не новее сохранённого смещения считается обработанным.
+ * Смещение — последний update_id, до которого обработано всё (с учётом апдейтов, ещё стоящих в очередях шардов);
+ * сохраняется в system_settings раз в несколько секунд и при остановке. После перезапуска long polling
+ * запрашивает апдейты после него ({@link #getResumeOffset()}), а повторно доставленные отбрасываются здесь.
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.bot.token")
+public class UpdateDeduplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(UpdateDeduplicator.class);
+
+    private final SystemSettingsService systemSettingsService;
+    private final Counter duplicates;
+    private final int[] recent;
+    private final int mask;
+    /** Апдейты, принятые в обработку, но ещё не завершённые. */
+    private final TreeSet<Integer> inFlight = new TreeSet<>();
+    /** Апдейты, не принятые в очередь (release): ждут повторной доставки, смещение через них не проходит. */
+    private final TreeSet<Integer> released = new TreeSet<>();
+
+    /** Всё, что не новее floor, уже обработано (сохранённое смещение или начало новой последовательности). */
+    private long floor;
+    private long maxSeen;
+    private long processedHigh;
+    private long persisted;
+    /** Смещение, загруженное при старте. */
+    private long resumeOffset;
+
+    public UpdateDeduplicator(TelegramBotProperties properties, SystemSettingsService systemSettingsService,
+                              MeterRegistry meterRegistry) {
+        this.systemSettingsService = systemSettingsService;
+        int window = Integer.highestOneBit(Math.max(64, properties.getDispatcher().getDedupWindow() - 1)) << 1;
+        this.recent = new int[window];
+        this.mask = window - 1;
+        Arrays.fill(recent, -1);
+        this.duplicates = Counter.builder("bot.dispatcher.duplicates")
+                .description("Отброшенные повторные апдейты")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public synchronized void loadOffset() {
+        long offset = systemSettingsService.getTelegramUpdateOffset();
+        floor = offset;
+        maxSeen = offset;
+        processedHigh = offset;
+        persisted = offset;
+        resumeOffset = offset;
+        if (offset > 0) log.info("Resuming updates after update_id {}", offset);
+    }
+
+    /** Последний update_id, обработанный до перезапуска: getUpdates начинается после него. */
+    public synchronized long getResumeOffset() {
+        return resumeOffset;
+    }
+
+    /** true — апдейт новый и принят в обработку (или без update_id); false — уже обработан или обрабатывается. */
+    public synchronized boolean tryAcquire(Integer updateId) {
+        if (updateId == null) return true;
+        // update_id сильно меньше известных: Telegram начал новую последовательность (после долгого простоя)
+        if (updateId <= Math.max(floor, maxSeen) - recent.length) {
+            log.info("update_id {} is far below {}: starting new sequence", updateId, Math.max(floor, maxSeen));
+            Arrays.fill(recent, -1);
+            inFlight.clear();
+            released.clear();
+            floor = updateId - 1L;
+            maxSeen = floor;
+            processedHigh = floor;
+        }
+        if (updateId <= floor || recent[updateId & mask] == updateId) {
+            duplicates.increment();
+            return false;
+        }
+        recent[updateId & mask] = updateId;
+        maxSeen = Math.max(maxSeen, updateId);
+        inFlight.add(updateId);
+        released.remove(updateId);
+        // Не доставленные повторно за окно не держат смещение: такой id уже считался бы новой последовательностью
+        while (!released.isEmpty() && released.first() <= maxSeen - recent.length) {
+            released.pollFirst();
+        }
+        return true;
+    }
+
+    /** Обработка апдейта завершена (успешно или с ошибкой — повторно не выполняем). */
+    public synchronized void complete(Integer updateId) {
+        if (updateId != null && inFlight.remove(updateId)) {
+            processedHigh = Math.max(processedHigh, updateId);
+        }
+    }
+
+    /**
+     * Апдейт не удалось поставить в очередь: снять отметку, чтобы повторная доставка была обработана.
+     * До неё смещение остаётся перед этим апдейтом.
+     */
+    public synchronized void release(Integer updateId) {
+        if (updateId != null && inFlight.remove(updateId)) {
+            released.add(updateId);
+            if (recent[updateId & mask] == updateId) {
+                recent[updateId & mask] = -1;
+            }
+        }
+    }
+
+    synchronized long watermark() {
+        long high = inFlight.isEmpty() ? Math.max(processedHigh, floor) : inFlight.first() - 1L;
+        return released.isEmpty() ? high : Math.min(high, released.first() - 1L);
+    }
+
+    @Scheduled(fixedDelay = 5_000)
+    public void flush() {
+        long offset;
+        synchronized (this) {
+            offset = watermark();
+            if (offset == persisted) return;
+        }
+        try {
+            systemSettingsService.setTelegramUpdateOffset(offset);
+            synchronized (this) {
+                persisted = offset;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to persist update offset {}: {}", offset, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
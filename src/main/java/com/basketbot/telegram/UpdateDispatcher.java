@@ -0,0 +1,393 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.TelegramBotProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Параллельная обработка входящих апдейтов: апдейты шардируются по chatId.
+ * В каждом шарде один поток, поэтому сообщения одного чата обрабатываются строго по порядку,
+ * а разные чаты — параллельно. Внутри шарда три полосы с ограниченными очередями: нажатия кнопок (callback),
+ * команды и прочий текст; поток шарда берёт работу из полосы с наивысшим приоритетом.
+ * Команда не обгоняет уже стоящий в очереди текст того же чата (иначе ломаются диалоги вроде /start → название).
+ * При переполнении полосы — политика полосы: block (поток long polling ждёт, webhook отвечает 503), drop или reply-busy
+ * (ответить «бот перегружен»). Апдейты старше max-age полосы отбрасываются, не дойдя до обработки.
+ * Повторно доставленные апдейты отбрасываются до постановки в очередь ({@link UpdateDeduplicator}).
+ * Метрики: bot.dispatcher.queue.size (теги shard, lane), bot.dispatcher.dropped (теги lane, reason=full|stale),
+ * bot.dispatcher.wait, bot.dispatcher.latency (теги shard, lane).
+ */
+@Component
+@ConditionalOnProperty(name = "telegram.bot.token")
+public class UpdateDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(UpdateDispatcher.class);
+
+    private static final String BUSY_TEXT = "Бот сейчас перегружен, повторите через минуту.";
+
+    /** Полосы в порядке приоритета. */
+    public enum Lane {
+        CALLBACK, COMMAND, TEXT;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /** Что делать, если очередь полосы заполнена. */
+    public enum OnFull {
+        BLOCK, DROP, REPLY_BUSY
+    }
+
+    private final Shard[] shards;
+    private final Map<Lane, OnFull> onFull = new EnumMap<>(Lane.class);
+    private final Map<Lane, Long> maxAgeNanos = new EnumMap<>(Lane.class);
+    private final Map<Lane, Counter> droppedFull = new EnumMap<>(Lane.class);
+    private final Map<Lane, Counter> droppedStale = new EnumMap<>(Lane.class);
+    private final UpdateDeduplicator deduplicator;
+    private final OutboundDispatcher outbound;
+
+    public UpdateDispatcher(TelegramBotProperties properties, MeterRegistry meterRegistry,
+                            UpdateDeduplicator deduplicator, OutboundDispatcher outbound) {
+        this.deduplicator = deduplicator;
+        this.outbound = outbound;
+        TelegramBotProperties.Dispatcher config = properties.getDispatcher();
+        int workers = Math.max(1, config.getWorkers());
+        int[] capacity = new int[Lane.values().length];
+        for (Lane lane : Lane.values()) {
+            TelegramBotProperties.Lane laneConfig = config.lane(lane.name());
+            capacity[lane.ordinal()] = Math.max(1, laneConfig.getQueueCapacity());
+            onFull.put(lane, OnFull.valueOf(laneConfig.getOnFull().trim().toUpperCase(Locale.ROOT).replace('-', '_')));
+            Duration maxAge = laneConfig.getMaxAge();
+            maxAgeNanos.put(lane, maxAge != null && !maxAge.isNegative() ? maxAge.toNanos() : 0L);
+            droppedFull.put(lane, Counter.builder("bot.dispatcher.dropped")
+                    .description("Апдейты, отброшенные без обработки")
+                    .tag("lane", lane.tag()).tag("reason", "full")
+                    .register(meterRegistry));
+            droppedStale.put(lane, Counter.builder("bot.dispatcher.dropped")
+                    .description("Апдейты, отброшенные без обработки")
+                    .tag("lane", lane.tag()).tag("reason", "stale")
+                    .register(meterRegistry));
+        }
+        this.shards = new Shard[workers];
+        for (int i = 0; i < workers; i++) {
+            shards[i] = new Shard(i, capacity, meterRegistry);
+        }
+        log.info("Update dispatcher: {} shards, lanes {} capacity {}, on full {}",
+                workers, Lane.values(), Arrays.toString(capacity), onFull);
+    }
+
+    /**
+     * Поставить апдейт в очередь шарда его чата. При заполненной полосе с политикой block
+     * блокирует вызывающий поток, иначе апдейт отбрасывается по политике полосы.
+     * Дубликат (update_id уже обработан или в обработке) пропускается.
+     */
+    public void dispatch(Update update, Consumer<Update> handler) {
+        if (!deduplicator.tryAcquire(update.getUpdateId())) return;
+        Task task = task(update, handler);
+        boolean block = onFull.get(task.lane) == OnFull.BLOCK;
+        try {
+            if (!shards[task.shard].offer(task, block)) {
+                shed(task);
+            }
+        } catch (RejectedExecutionException e) {
+            deduplicator.release(update.getUpdateId());
+            throw e;
+        }
+    }
+
+    /**
+     * Поставить апдейт в очередь без ожидания. false — полоса с политикой block заполнена (вызывающий решает,
+     * что делать: webhook отвечает 503, и Telegram доставит апдейт повторно). Для остальных политик
+     * лишний апдейт отбрасывается и возвращается true.
+     */
+    public boolean tryDispatch(Update update, Consumer<Update> handler) {
+        if (!deduplicator.tryAcquire(update.getUpdateId())) return true;
+        Task task = task(update, handler);
+        boolean queued;
+        try {
+            queued = shards[task.shard].offer(task, false);
+        } catch (RejectedExecutionException e) {
+            deduplicator.release(update.getUpdateId());
+            throw e;
+        }
+        if (queued) return true;
+        if (onFull.get(task.lane) == OnFull.BLOCK) {
+            deduplicator.release(update.getUpdateId());
+            return false;
+        }
+        shed(task);
+        return true;
+    }
+
+    private Task task(Update update, Consumer<Update> handler) {
+        long chatId = chatIdOf(update);
+        return new Task(update, handler, laneOf(update), chatId, shardOf(chatId), System.nanoTime());
+    }
+
+    private void run(Shard shard, Task task) {
+        long startedAt = System.nanoTime();
+        try {
+            long maxAge = maxAgeNanos.get(task.lane);
+            if (maxAge > 0 && ageNanos(task, startedAt) > maxAge) {
+                droppedStale.get(task.lane).increment();
+                return;
+            }
+            shard.waitTimers.get(task.lane).record(startedAt - task.enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                task.handler.accept(task.update);
+            } catch (Exception e) {
+                log.warn("Update {} failed in shard {}", task.update.getUpdateId(), shard.index, e);
+            } finally {
+                shard.latencyTimers.get(task.lane).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            deduplicator.complete(task.update.getUpdateId());
+        }
+    }
+
+    /** Полоса заполнена, апдейт не ставим: считаем, отмечаем обработанным и при reply-busy отвечаем пользователю. */
+    private void shed(Task task) {
+        droppedFull.get(task.lane).increment();
+        deduplicator.complete(task.update.getUpdateId());
+        if (onFull.get(task.lane) == OnFull.REPLY_BUSY) {
+            replyBusy(task.update);
+        }
+    }
+
+    private void replyBusy(Update update) {
+        CompletableFuture<?> reply;
+        if (update.hasCallbackQuery()) {
+            AnswerCallbackQuery answer = AnswerCallbackQuery.builder()
+                    .callbackQueryId(update.getCallbackQuery().getId())
+                    .text(BUSY_TEXT)
+                    .build();
+            reply = outbound.submit(null, client -> client.execute(answer));
+        } else if (update.hasMessage() && update.getMessage().getChatId() != null) {
+            SendMessage message = SendMessage.builder()
+                    .chatId(update.getMessage().getChatId())
+                    .text(BUSY_TEXT)
+                    .build();
+            reply = outbound.submit(String.valueOf(update.getMessage().getChatId()), client -> client.execute(message));
+        } else {
+            return;
+        }
+        reply.whenComplete((ok, e) -> {
+            if (e != null) log.debug("Busy reply for update {} failed: {}", update.getUpdateId(), e.getMessage());
+        });
+    }
+
+    /** Возраст апдейта: по дате сообщения, если она есть, иначе по времени постановки в очередь. */
+    private static long ageNanos(Task task, long now) {
+        long queued = now - task.enqueuedAt;
+        Update update = task.update;
+        if (update.hasMessage() && update.getMessage().getDate() != null) {
+            long sent = TimeUnit.SECONDS.toNanos(update.getMessage().getDate());
+            long sinceSent = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - sent;
+            return Math.max(queued, sinceSent);
+        }
+        return queued;
+    }
+
+    int shardOf(long chatId) {
+        return Math.floorMod(Long.hashCode(chatId), shards.length);
+    }
+
+    /** Полоса апдейта: нажатие кнопки, команда (текст с «/») или всё остальное. */
+    static Lane laneOf(Update update) {
+        if (update.hasCallbackQuery()) return Lane.CALLBACK;
+        if (update.hasMessage() && update.getMessage().hasText() && update.getMessage().getText().startsWith("/")) {
+            return Lane.COMMAND;
+        }
+        return Lane.TEXT;
+    }
+
+    /** Чат апдейта: сообщение, чат сообщения с кнопкой или (если чата нет) отправитель callback. 0 — не определён. */
+    static long chatIdOf(Update update) {
+        if (update.hasMessage() && update.getMessage().getChatId() != null) {
+            return update.getMessage().getChatId();
+        }
+        if (update.hasCallbackQuery()) {
+            var callback = update.getCallbackQuery();
+            if (callback.getMessage() != null && callback.getMessage().getChatId() != null) {
+                return callback.getMessage().getChatId();
+            }
+            if (callback.getFrom() != null) {
+                return callback.getFrom().getId();
+            }
+        }
+        return 0L;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Shard shard : shards) {
+            shard.stop();
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join(TimeUnit.SECONDS.toMillis(10));
+                if (shard.thread.isAlive()) {
+                    shard.thread.interrupt();
+                }
+            } catch (InterruptedException e) {
+                shard.thread.interrupt();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private record Task(Update update, Consumer<Update> handler, Lane lane, long chatId, int shard, long enqueuedAt) {
+    }
+
+    /** Шард: один поток и по ограниченной очереди на полосу. */
+    private final class Shard {
+
+        private final int index;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        private final ArrayDeque<Task>[] lanes;
+        private final int[] capacity;
+        /** Сколько текстовых сообщений чата стоит в полосе TEXT (команды этого чата идут следом за ними). */
+        private final Map<Long, Integer> queuedText = new HashMap<>();
+        private final Map<Lane, Timer> waitTimers = new EnumMap<>(Lane.class);
+        private final Map<Lane, Timer> latencyTimers = new EnumMap<>(Lane.class);
+        private final Thread thread;
+        private boolean stopping;
+
+        @SuppressWarnings("unchecked")
+        Shard(int index, int[] capacity, MeterRegistry meterRegistry) {
+            this.index = index;
+            this.capacity = capacity;
+            this.lanes = new ArrayDeque[capacity.length];
+            String shard = String.valueOf(index);
+            for (Lane lane : Lane.values()) {
+                ArrayDeque<Task> queue = new ArrayDeque<>();
+                lanes[lane.ordinal()] = queue;
+                Gauge.builder("bot.dispatcher.queue.size", this, s -> s.size(lane))
+                        .description("Апдейты в очереди шарда")
+                        .tag("shard", shard).tag("lane", lane.tag())
+                        .register(meterRegistry);
+                waitTimers.put(lane, Timer.builder("bot.dispatcher.wait")
+                        .description("Время ожидания апдейта в очереди шарда")
+                        .tag("shard", shard).tag("lane", lane.tag())
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(meterRegistry));
+                latencyTimers.put(lane, Timer.builder("bot.dispatcher.latency")
+                        .description("Время обработки апдейта")
+                        .tag("shard", shard).tag("lane", lane.tag())
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(meterRegistry));
+            }
+            this.thread = new Thread(this::loop, "bot-shard-" + index);
+            this.thread.start();
+        }
+
+        /** false — полоса заполнена (и wait=false). */
+        boolean offer(Task task, boolean wait) {
+            lock.lock();
+            try {
+                Lane lane = task.lane;
+                if (lane == Lane.COMMAND && queuedText.containsKey(task.chatId)) {
+                    lane = Lane.TEXT;
+                }
+                ArrayDeque<Task> queue = lanes[lane.ordinal()];
+                while (queue.size() >= capacity[lane.ordinal()]) {
+                    if (stopping) throw new RejectedExecutionException("Диспетчер апдейтов остановлен");
+                    if (!wait) return false;
+                    try {
+                        notFull.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Прервано ожидание места в очереди", e);
+                    }
+                }
+                if (stopping) throw new RejectedExecutionException("Диспетчер апдейтов остановлен");
+                queue.addLast(task);
+                if (lane == Lane.TEXT) {
+                    queuedText.merge(task.chatId, 1, Integer::sum);
+                }
+                notEmpty.signal();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Task take() throws InterruptedException {
+            lock.lock();
+            try {
+                while (true) {
+                    for (ArrayDeque<Task> queue : lanes) {
+                        Task task = queue.pollFirst();
+                        if (task == null) continue;
+                        if (queue == lanes[Lane.TEXT.ordinal()]) {
+                            queuedText.computeIfPresent(task.chatId, (k, n) -> n > 1 ? n - 1 : null);
+                        }
+                        notFull.signalAll();
+                        return task;
+                    }
+                    if (stopping) return null;
+                    notEmpty.await();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void loop() {
+            try {
+                Task task;
+                while ((task = take()) != null) {
+                    run(this, task);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        int size(Lane lane) {
+            lock.lock();
+            try {
+                return lanes[lane.ordinal()].size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void stop() {
+            lock.lock();
+            try {
+                stopping = true;
+                notEmpty.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.basketbot.util;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Ограниченный кэш с ключами long (без упаковки в Long): вытеснение по LRU при достижении maxSize
+ * и TTL на каждую запись (отсчёт заново при каждом чтении — запись живёт, пока ей пользуются;
+ * у {@link #expireAfterWrite} срок фиксируется при записи и чтением не продлевается).
+ * Хранение — в массивах фиксированного размера (открытая адресация + двусвязный список LRU),
+ * операции O(1), после создания кэш не аллоцирует. Потокобезопасен (один монитор на кэш).
+ */
+public final class LongKeyLruCache<V> {
+
+    private static final int NIL = -1;
+
+    private final int maxSize;
+    private final long defaultTtlNanos;
+    private final LongSupplier nanoClock;
+    /** Продлевать TTL при чтении (false — запись истекает через ttl после put, как бы часто её ни читали). */
+    private final boolean refreshOnRead;
+
+    private final long[] keys;
+    private final Object[] values;
+    private final long[] ttls;
+    private final long[] expiresAt;
+    private final int[] prev;
+    private final int[] next;
+    /** Индекс: номер слота + 1, 0 — пусто. */
+    private final int[] table;
+    private final int mask;
+
+    private int head = NIL;
+    private int tail = NIL;
+    private int freeHead;
+    private int size;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public LongKeyLruCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    LongKeyLruCache(int maxSize, Duration ttl, LongSupplier nanoClock) {
+        this(maxSize, ttl, true, nanoClock);
+    }
+
+    /** Кэш, где срок записи отсчитывается от put: для копий чужих данных, устаревание которых должно быть ограничено. */
+    public static <V> LongKeyLruCache<V> expireAfterWrite(int maxSize, Duration ttl, LongSupplier nanoClock) {
+        return new LongKeyLruCache<>(maxSize, ttl, false, nanoClock);
+    }
+
+    private LongKeyLruCache(int maxSize, Duration ttl, boolean refreshOnRead, LongSupplier nanoClock) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize должен быть > 0");
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("ttl должен быть > 0");
+        this.maxSize = maxSize;
+        this.defaultTtlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.refreshOnRead = refreshOnRead;
+        this.keys = new long[maxSize];
+        this.values = new Object[maxSize];
+        this.ttls = new long[maxSize];
+        this.expiresAt = new long[maxSize];
+        this.prev = new int[maxSize];
+        this.next = new int[maxSize];
+        int capacity = Integer.highestOneBit(maxSize) << 2;
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < maxSize; i++) {
+            next[i] = i + 1 < maxSize ? i + 1 : NIL;
+        }
+        this.freeHead = 0;
+    }
+
+    /** Значение или null (нет записи или истёк TTL). Поднимает запись в начало LRU и (кроме expireAfterWrite) продлевает TTL. */
+    @SuppressWarnings("unchecked")
+    public synchronized V get(long key) {
+        int slot = find(key);
+        if (slot == NIL) {
+            misses++;
+            return null;
+        }
+        long now = nanoClock.getAsLong();
+        if (now - expiresAt[slot] >= 0) {
+            removeSlot(slot);
+            expirations++;
+            misses++;
+            return null;
+        }
+        if (refreshOnRead) {
+            expiresAt[slot] = now + ttls[slot];
+        }
+        moveToHead(slot);
+        hits++;
+        return (V) values[slot];
+    }
+
+    public void put(long key, V value) {
+        put(key, value, defaultTtlNanos);
+    }
+
+    public void put(long key, V value, Duration ttl) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) throw new IllegalArgumentException("ttl должен быть > 0");
+        put(key, value, ttl.toNanos());
+    }
+
+    /** Удалить запись. Возвращает прежнее значение (null, если записи не было или TTL истёк). */
+    @SuppressWarnings("unchecked")
+    public synchronized V remove(long key) {
+        int slot = find(key);
+        if (slot == NIL) return null;
+        boolean expired = nanoClock.getAsLong() - expiresAt[slot] >= 0;
+        V value = (V) values[slot];
+        removeSlot(slot);
+        if (expired) {
+            expirations++;
+            return null;
+        }
+        return value;
+    }
+
+    /** Удалить все записи с истёкшим TTL. Возвращает число удалённых. */
+    public synchronized int cleanUp() {
+        long now = nanoClock.getAsLong();
+        int removed = 0;
+        int slot = tail;
+        while (slot != NIL) {
+            int before = prev[slot];
+            if (now - expiresAt[slot] >= 0) {
+                removeSlot(slot);
+                removed++;
+            }
+            slot = before;
+        }
+        expirations += removed;
+        return removed;
+    }
+
+    public synchronized void clear() {
+        while (tail != NIL) {
+            removeSlot(tail);
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    /** Вытеснено по LRU (кэш заполнен). */
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    /** Удалено по TTL. */
+    public synchronized long expirationCount() {
+        return expirations;
+    }
+
+    private synchronized void put(long key, V value, long ttlNanos) {
+        if (value == null) throw new IllegalArgumentException("value не может быть null");
+        long now = nanoClock.getAsLong();
+        int slot = find(key);
+        if (slot == NIL) {
+            if (size == maxSize) {
+                int victim = tail;
+                if (now - expiresAt[victim] >= 0) expirations++;
+                else evictions++;
+                removeSlot(victim);
+            }
+            slot = freeHead;
+            freeHead = next[slot];
+            keys[slot] = key;
+            insertIndex(slot);
+            linkHead(slot);
+            size++;
+        } else {
+            moveToHead(slot);
+        }
+        values[slot] = value;
+        ttls[slot] = ttlNanos;
+        expiresAt[slot] = now + ttlNanos;
+    }
+
+    private int index(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private int find(long key) {
+        int i = index(key);
+        while (true) {
+            int entry = table[i];
+            if (entry == 0) return NIL;
+            if (keys[entry - 1] == key) return entry - 1;
+            i = (i + 1) & mask;
+        }
+    }
+
+    private void insertIndex(int slot) {
+        int i = index(keys[slot]);
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = slot + 1;
+    }
+
+    /** Удаление из индекса с обратным сдвигом (без «надгробий»). */
+    private void deleteIndex(int slot) {
+        int i = index(keys[slot]);
+        while (table[i] != slot + 1) {
+            i = (i + 1) & mask;
+        }
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            int entry = table[j];
+            if (entry == 0) break;
+            int home = index(keys[entry - 1]);
+            boolean staysInPlace = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (staysInPlace) continue;
+            table[i] = entry;
+            i = j;
+        }
+        table[i] = 0;
+    }
+
+    private void removeSlot(int slot) {
+        deleteIndex(slot);
+        unlink(slot);
+        values[slot] = null;
+        next[slot] = freeHead;
+        freeHead = slot;
+        size--;
+    }
+
+    private void linkHead(int slot) {
+        prev[slot] = NIL;
+        next[slot] = head;
+        if (head != NIL) prev[head] = slot;
+        head = slot;
+        if (tail == NIL) tail = slot;
+    }
+
+    private void unlink(int slot) {
+        int p = prev[slot];
+        int n = next[slot];
+        if (p != NIL) next[p] = n;
+        else head = n;
+        if (n != NIL) prev[n] = p;
+        else tail = p;
+    }
+
+    private void moveToHead(int slot) {
+        if (head == slot) return;
+        unlink(slot);
+        linkHead(slot);
+    }
+}
@@ -0,0 +1,10 @@
+-- Незавершённые диалоги бота (общие для всех экземпляров): одна строка на чат и сценарий, истёкшие удаляются по расписанию
+CREATE TABLE conversation_state (
+    chat_id BIGINT NOT NULL,
+    flow VARCHAR(20) NOT NULL,
+    state_value VARCHAR(255) NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (chat_id, flow)
+);
+
+CREATE INDEX idx_conversation_state_expires_at ON conversation_state(expires_at);
@@ -0,0 +1,22 @@
+-- Исходящие сообщения Telegram (transactional outbox): строка пишется в той же транзакции, что и изменение данных
+-- (флаги напоминаний и т.п.), доставляет её OutboxRelay. Доставленные удаляются по расписанию
+CREATE TABLE telegram_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    chat_id VARCHAR(64) NOT NULL,
+    text TEXT,
+    reply_markup TEXT,
+    photo BYTEA,
+    photo_name VARCHAR(100),
+    event_type VARCHAR(50) NOT NULL,
+    team_id BIGINT REFERENCES teams(id) ON DELETE SET NULL,
+    match_id BIGINT REFERENCES matches(id) ON DELETE SET NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    delivered_at TIMESTAMP
+);
+
+CREATE INDEX idx_telegram_outbox_pending ON telegram_outbox(next_attempt_at, id) WHERE status = 'PENDING';
+CREATE INDEX idx_telegram_outbox_delivered_at ON telegram_outbox(delivered_at) WHERE status = 'DELIVERED';
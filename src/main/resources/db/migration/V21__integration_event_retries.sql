@@ -0,0 +1,2 @@
+-- Число повторов отправки (429, 5xx, сетевые ошибки) до итогового результата
+ALTER TABLE integration_event ADD COLUMN retries INT NOT NULL DEFAULT 0;
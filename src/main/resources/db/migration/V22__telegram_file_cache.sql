@@ -0,0 +1,6 @@
+-- file_id загруженных в Telegram картинок (карточки результата, QR): одинаковый PNG повторно не загружается
+CREATE TABLE telegram_file_cache (
+    content_hash VARCHAR(64) PRIMARY KEY,
+    file_id VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
@@ -0,0 +1,3 @@
+-- Сообщение напоминания за 24 ч: редактируется на месте с текущими ответами (Буду/Опоздаю/Не смогу)
+ALTER TABLE matches ADD COLUMN reminder_24h_chat_id VARCHAR(64);
+ALTER TABLE matches ADD COLUMN reminder_24h_message_id INT;
@@ -0,0 +1,21 @@
+-- Координация фоновых заданий между экземплярами (@ClusterJob): кто держит задание и история запусков
+CREATE TABLE job_leases (
+    job_name VARCHAR(100) PRIMARY KEY,
+    node VARCHAR(200) NOT NULL,
+    acquired_at TIMESTAMP NOT NULL,
+    heartbeat_at TIMESTAMP NOT NULL,
+    released_at TIMESTAMP
+);
+
+CREATE TABLE job_runs (
+    id BIGSERIAL PRIMARY KEY,
+    job_name VARCHAR(100) NOT NULL,
+    node VARCHAR(200) NOT NULL,
+    started_at TIMESTAMP NOT NULL,
+    finished_at TIMESTAMP NOT NULL,
+    duration_ms BIGINT NOT NULL,
+    success BOOLEAN NOT NULL,
+    error TEXT
+);
+
+CREATE INDEX idx_job_runs_job_started ON job_runs(job_name, started_at DESC);
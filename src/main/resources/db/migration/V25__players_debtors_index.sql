@@ -0,0 +1,2 @@
+-- Еженедельное напоминание о долгах: должники всех команд одним упорядоченным проходом по (team_id, id)
+CREATE INDEX IF NOT EXISTS idx_players_debtors ON players (team_id, id) WHERE debt > 0;
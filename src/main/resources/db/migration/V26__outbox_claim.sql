@@ -0,0 +1,6 @@
+-- Захват сообщений outbox экземпляром перед отправкой: статус IN_FLIGHT, кто отправляет и до какого момента.
+-- Просроченную аренду (экземпляр упал во время отправки) подхватывает другой экземпляр
+ALTER TABLE telegram_outbox ADD COLUMN IF NOT EXISTS claimed_by VARCHAR(200);
+ALTER TABLE telegram_outbox ADD COLUMN IF NOT EXISTS lease_until TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_telegram_outbox_in_flight ON telegram_outbox(lease_until, id) WHERE status = 'IN_FLIGHT';
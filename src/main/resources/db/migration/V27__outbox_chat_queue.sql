@@ -0,0 +1,2 @@
+-- Захват outbox по чатам: незавершённые сообщения чата в порядке постановки (блокировка очереди чата и её выборка)
+CREATE INDEX IF NOT EXISTS idx_telegram_outbox_chat_queue ON telegram_outbox(chat_id, id) WHERE status IN ('PENDING', 'IN_FLIGHT');
@@ -0,0 +1,38 @@
+package com.basketbot.controller;
+
+import com.basketbot.config.TelegramBotProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TelegramWebhookControllerTest {
+
+    @Test
+    void blankOrInvalidSecret_failsStartup() {
+        assertThatThrownBy(() -> new TelegramWebhookController(properties(""), null, null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("secret-token");
+        assertThatThrownBy(() -> new TelegramWebhookController(properties(null), null, null))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new TelegramWebhookController(properties("with space"), null, null))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void missingOrWrongHeader_isRejected() {
+        TelegramWebhookController controller = new TelegramWebhookController(properties("s3cret_token"), null, null);
+
+        assertThat(controller.receive(new Update(), null).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(controller.receive(new Update(), "").getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(controller.receive(new Update(), "s3cret_tokeN").getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    private static TelegramBotProperties properties(String secret) {
+        TelegramBotProperties properties = new TelegramBotProperties();
+        properties.getWebhook().setSecretToken(secret);
+        return properties;
+    }
+}
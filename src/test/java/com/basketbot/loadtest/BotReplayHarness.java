@@ -0,0 +1,265 @@
+package com.basketbot.loadtest;
+
+import com.basketbot.service.SystemSettingsService;
+import com.basketbot.telegram.BasketTelegramBot;
+import com.basketbot.telegram.UpdateDispatcher;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный прогон бота без Telegram: апдейты из JSONL-файла (по одному Update на строку) подаются
+ * в тот же диспетчер, что и long polling, TelegramClient заменён фейком с задержкой ответа.
+ * Отчёт: по типу команды — число апдейтов, апдейтов/с, p50/p95/p99 обработки и от постановки в очередь до конца;
+ * плюс отброшенные диспетчером (по полосе и причине: full, stale; duplicate) и вызовы Bot API по методам.
+ * Прогон ждёт, пока каждый апдейт будет обработан или отброшен. Печатается и пишется в target/replay-report.txt.
+ *
+ * <pre>
+ * mvn test -Dtest=BotReplayHarness -Dreplay.file=src/test/resources/replay/sample-updates.jsonl \
+ *     -Dreplay.rate=200 -Dreplay.loops=100 -Dreplay.telegram-latency=50ms
+ * </pre>
+ * replay.rate — апдейтов/с (0 — максимально быстро). По умолчанию H2 из профиля test; для локального PostgreSQL
+ * добавить -Dspring.datasource.url=jdbc:postgresql://localhost:5432/basketbot -Dspring.datasource.username=…
+ * -Dspring.datasource.password=… -Dspring.flyway.enabled=true -Dspring.jpa.hibernate.ddl-auto=validate
+ * -Dspring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect (нативные запросы с ON CONFLICT работают только там).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "replay.file", matches = ".+")
+class BotReplayHarness {
+
+    @TestConfiguration
+    static class FakeTelegramConfig {
+
+        @Bean
+        RecordingTelegramClient recordingTelegramClient() {
+            return new RecordingTelegramClient(DurationStyle.detectAndParse(System.getProperty("replay.telegram-latency", "0ms")));
+        }
+
+        @Bean
+        @Primary
+        TelegramClient fakeTelegramClient(RecordingTelegramClient recordingTelegramClient) {
+            return recordingTelegramClient.asTelegramClient();
+        }
+    }
+
+    @Autowired
+    private BasketTelegramBot bot;
+
+    @Autowired
+    private UpdateDispatcher updateDispatcher;
+
+    @Autowired
+    private SystemSettingsService systemSettingsService;
+
+    @Autowired
+    private RecordingTelegramClient recordingTelegramClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Test
+    void replay() throws Exception {
+        Path file = Path.of(System.getProperty("replay.file"));
+        double rate = Double.parseDouble(System.getProperty("replay.rate", "0"));
+        int loops = Integer.getInteger("replay.loops", 1);
+        long timeoutSeconds = Long.getLong("replay.timeout-seconds", 600);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8).stream()
+                .filter(l -> !l.isBlank())
+                .toList();
+        int total = lines.size() * loops;
+        Map<String, Samples> byType = new ConcurrentHashMap<>();
+        AtomicInteger handled = new AtomicInteger();
+        // Отброшенные диспетчером (полоса заполнена, устарел, дубликат) до обработчика не доходят — считаем по метрикам
+        Map<String, Double> droppedBefore = dropped();
+        // Новые update_id выше сохранённого смещения, иначе дедупликация отбросит повторы файла
+        int nextUpdateId = (int) systemSettingsService.getTelegramUpdateOffset() + 1;
+        long intervalNanos = rate > 0 ? (long) (1_000_000_000L / rate) : 0;
+
+        long startedAt = System.nanoTime();
+        int sent = 0;
+        for (int loop = 0; loop < loops; loop++) {
+            for (String line : lines) {
+                Update update = objectMapper.readValue(line, Update.class);
+                update.setUpdateId(nextUpdateId++);
+                if (update.hasMessage()) {
+                    update.getMessage().setDate((int) Instant.now().getEpochSecond());
+                }
+                String type = typeOf(update);
+                Samples samples = byType.computeIfAbsent(type, k -> new Samples());
+                if (intervalNanos > 0) {
+                    long due = startedAt + sent * intervalNanos;
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) LockSupport.parkNanos(wait);
+                }
+                long enqueuedAt = System.nanoTime();
+                updateDispatcher.dispatch(update, u -> {
+                    long handlingStartedAt = System.nanoTime();
+                    try {
+                        bot.consume(u);
+                    } finally {
+                        long finishedAt = System.nanoTime();
+                        samples.add(finishedAt - handlingStartedAt, finishedAt - enqueuedAt);
+                        handled.incrementAndGet();
+                    }
+                });
+                sent++;
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        Map<String, Double> droppedNow = since(droppedBefore);
+        while (handled.get() + sum(droppedNow) < total && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+            droppedNow = since(droppedBefore);
+        }
+        boolean completed = handled.get() + sum(droppedNow) >= total;
+        double elapsedSeconds = (System.nanoTime() - startedAt) / 1e9;
+
+        String report = report(byType, total, handled.get(), droppedNow, elapsedSeconds, rate, completed);
+        System.out.println(report);
+        Path out = Path.of("target", "replay-report.txt");
+        Files.createDirectories(out.getParent());
+        Files.writeString(out, report, StandardCharsets.UTF_8);
+    }
+
+    /** Тип для отчёта: /команда, callback:префикс данных или text. */
+    private static String typeOf(Update update) {
+        if (update.hasCallbackQuery()) {
+            String data = update.getCallbackQuery().getData();
+            int colon = data != null ? data.indexOf(':') : -1;
+            return "callback:" + (colon > 0 ? data.substring(0, colon) : String.valueOf(data));
+        }
+        if (update.hasMessage() && update.getMessage().hasText()) {
+            String text = update.getMessage().getText().trim();
+            if (text.startsWith("/")) {
+                int end = text.indexOf(' ');
+                return end > 0 ? text.substring(0, end) : text;
+            }
+            return "text";
+        }
+        return "other";
+    }
+
+    /** Отброшенные диспетчером с начала работы контекста: lane/reason (full, stale) и duplicate. */
+    private Map<String, Double> dropped() {
+        Map<String, Double> result = new TreeMap<>();
+        for (Counter counter : meterRegistry.find("bot.dispatcher.dropped").counters()) {
+            result.merge(counter.getId().getTag("lane") + "/" + counter.getId().getTag("reason"), counter.count(), Double::sum);
+        }
+        for (Counter counter : meterRegistry.find("bot.dispatcher.duplicates").counters()) {
+            result.merge("duplicate", counter.count(), Double::sum);
+        }
+        return result;
+    }
+
+    private Map<String, Double> since(Map<String, Double> before) {
+        Map<String, Double> result = new TreeMap<>();
+        dropped().forEach((key, count) -> {
+            double delta = count - before.getOrDefault(key, 0.0);
+            if (delta > 0) result.put(key, delta);
+        });
+        return result;
+    }
+
+    private static long sum(Map<String, Double> dropped) {
+        return Math.round(dropped.values().stream().mapToDouble(Double::doubleValue).sum());
+    }
+
+    private String report(Map<String, Samples> byType, int total, int handled, Map<String, Double> dropped,
+                          double elapsedSeconds, double rate, boolean completed) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Replay: %d updates, handled %d, dropped %d in %.2f s (%.1f upd/s), target rate %s%s%n",
+                total, handled, sum(dropped), elapsedSeconds, handled / elapsedSeconds,
+                rate > 0 ? rate + " upd/s" : "max", completed ? "" : " — TIMEOUT, not all updates handled or dropped"));
+        if (!dropped.isEmpty()) {
+            sb.append("Dropped: ");
+            dropped.forEach((key, count) -> sb.append(key).append('=').append(Math.round(count)).append(' '));
+            sb.append(System.lineSeparator());
+        }
+        sb.append(String.format("%-24s %8s %9s %10s %10s %10s %12s%n",
+                "type", "count", "upd/s", "p50 ms", "p95 ms", "p99 ms", "p99 e2e ms"));
+        Samples all = new Samples();
+        for (Map.Entry<String, Samples> e : new TreeMap<>(byType).entrySet()) {
+            Samples s = e.getValue();
+            all.addAll(s);
+            appendRow(sb, e.getKey(), s, elapsedSeconds);
+        }
+        appendRow(sb, "TOTAL", all, elapsedSeconds);
+        sb.append("Bot API calls: ").append(recordingTelegramClient.calls()).append(System.lineSeparator());
+        return sb.toString();
+    }
+
+    private static void appendRow(StringBuilder sb, String type, Samples s, double elapsedSeconds) {
+        long[] handling = s.handling();
+        long[] endToEnd = s.endToEnd();
+        sb.append(String.format("%-24s %8d %9.1f %10.2f %10.2f %10.2f %12.2f%n",
+                type, handling.length, handling.length / elapsedSeconds,
+                percentileMs(handling, 0.50), percentileMs(handling, 0.95), percentileMs(handling, 0.99),
+                percentileMs(endToEnd, 0.99)));
+    }
+
+    private static double percentileMs(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    /** Замеры одного типа: время обработки и время от постановки в очередь до конца обработки, нс. */
+    private static final class Samples {
+
+        private final List<long[]> values = new ArrayList<>();
+
+        synchronized void add(long handlingNanos, long endToEndNanos) {
+            values.add(new long[]{handlingNanos, endToEndNanos});
+        }
+
+        synchronized void addAll(Samples other) {
+            synchronized (other) {
+                values.addAll(other.values);
+            }
+        }
+
+        synchronized long[] handling() {
+            return sorted(0);
+        }
+
+        synchronized long[] endToEnd() {
+            return sorted(1);
+        }
+
+        private long[] sorted(int column) {
+            long[] result = values.stream().mapToLong(v -> v[column]).toArray();
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
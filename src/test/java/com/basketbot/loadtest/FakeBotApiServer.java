@@ -0,0 +1,259 @@
+package com.basketbot.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Локальная заглушка Telegram Bot API (только JDK) для сквозных нагрузочных тестов: бот, планировщик напоминаний
+ * и рассылки из админки ходят в неё по HTTP вместо api.telegram.org (telegram.bot.api-url=http://localhost:8081).
+ * <ul>
+ *   <li>/bot{token}/getUpdates — long polling по апдейтам, загруженным через POST /fake/updates (JSONL);</li>
+ *   <li>sendMessage, sendPhoto, sendPoll, editMessageText — Message с новым message_id;</li>
+ *   <li>answerCallbackQuery, setMyCommands и остальные методы — true; getMe — бот-заглушка;</li>
+ *   <li>задержка ответа (общая и по методу) и 429 с retry_after на каждый N-й send-запрос;</li>
+ *   <li>GET /fake/stats — число запросов по методам.</li>
+ * </ul>
+ * Отдельный процесс: {@code java -cp target/test-classes com.basketbot.loadtest.FakeBotApiServer 8081}
+ * (-Dfake.latency-ms=50 -Dfake.throttle-every=20 -Dfake.retry-after=1).
+ */
+public class FakeBotApiServer implements AutoCloseable {
+
+    private static final Pattern METHOD_PATH = Pattern.compile("^/bot[^/]+/([A-Za-z]+)$");
+    private static final Pattern JSON_CHAT_ID = Pattern.compile("\"chat_id\"\\s*:\\s*\"?(-?\\d+)");
+    private static final Pattern MULTIPART_CHAT_ID = Pattern.compile("name=\"chat_id\"\\r?\\n(?:[^\\r\\n]+\\r?\\n)*\\r?\\n(-?\\d+)");
+    private static final Pattern JSON_INT = Pattern.compile("\"%s\"\\s*:\\s*\"?(-?\\d+)");
+    private static final Pattern UPDATE_ID = Pattern.compile("\"update_id\"\\s*:\\s*\\d+");
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, Long> latencyMillis = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> requests = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, String> updates = new ConcurrentSkipListMap<>();
+    private final AtomicInteger nextUpdateId = new AtomicInteger(1);
+    private final AtomicInteger nextMessageId = new AtomicInteger(1);
+    private final AtomicLong sendRequests = new AtomicLong();
+    private final Object updatesArrived = new Object();
+
+    private volatile long defaultLatencyMillis;
+    private volatile int throttleEvery;
+    private volatile int retryAfterSeconds = 1;
+
+    public FakeBotApiServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+    }
+
+    public FakeBotApiServer start() {
+        server.start();
+        return this;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Базовый адрес для telegram.bot.api-url. */
+    public String url() {
+        return "http://127.0.0.1:" + port();
+    }
+
+    public FakeBotApiServer latency(Duration latency) {
+        this.defaultLatencyMillis = latency.toMillis();
+        return this;
+    }
+
+    public FakeBotApiServer latency(String method, Duration latency) {
+        latencyMillis.put(method, latency.toMillis());
+        return this;
+    }
+
+    /** Каждый N-й запрос send* отвечает 429 с retry_after (0 — без ограничений). */
+    public FakeBotApiServer throttleEvery(int n, int retryAfterSeconds) {
+        this.throttleEvery = n;
+        this.retryAfterSeconds = retryAfterSeconds;
+        return this;
+    }
+
+    /** Добавить апдейт (JSON объекта Update); update_id назначается заглушкой. Возвращает назначенный id. */
+    public int enqueueUpdate(String updateJson) {
+        int id = nextUpdateId.getAndIncrement();
+        String json = updateJson.trim();
+        Matcher m = UPDATE_ID.matcher(json);
+        json = m.find() ? m.replaceFirst("\"update_id\":" + id) : "{\"update_id\":" + id + "," + json.substring(1);
+        updates.put(id, json);
+        synchronized (updatesArrived) {
+            updatesArrived.notifyAll();
+        }
+        return id;
+    }
+
+    /** Число запросов по методам Bot API (+ throttled — отвечено 429). */
+    public Map<String, Long> requestCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        requests.forEach((k, v) -> result.put(k, v.sum()));
+        return result;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            if (path.equals("/fake/updates") && "POST".equals(exchange.getRequestMethod())) {
+                int count = 0;
+                for (String line : body.split("\\R")) {
+                    if (line.isBlank()) continue;
+                    enqueueUpdate(line);
+                    count++;
+                }
+                respond(exchange, 200, "{\"ok\":true,\"result\":" + count + "}");
+                return;
+            }
+            if (path.equals("/fake/stats")) {
+                respond(exchange, 200, toJson(requestCounts()));
+                return;
+            }
+            Matcher matcher = METHOD_PATH.matcher(path);
+            if (!matcher.matches()) {
+                respond(exchange, 404, "{\"ok\":false,\"error_code\":404,\"description\":\"Not Found\"}");
+                return;
+            }
+            String method = matcher.group(1);
+            requests.computeIfAbsent(method, k -> new LongAdder()).increment();
+            if (!"getUpdates".equals(method)) {
+                sleep(latencyMillis.getOrDefault(method, defaultLatencyMillis));
+            }
+            if (method.startsWith("send") && throttleEvery > 0 && sendRequests.incrementAndGet() % throttleEvery == 0) {
+                requests.computeIfAbsent("throttled", k -> new LongAdder()).increment();
+                respond(exchange, 429, "{\"ok\":false,\"error_code\":429,\"description\":\"Too Many Requests: retry after "
+                        + retryAfterSeconds + "\",\"parameters\":{\"retry_after\":" + retryAfterSeconds + "}}");
+                return;
+            }
+            respond(exchange, 200, "{\"ok\":true,\"result\":" + result(method, body) + "}");
+        } catch (Exception e) {
+            respond(exchange, 500, "{\"ok\":false,\"error_code\":500,\"description\":\"" + e.getClass().getSimpleName() + "\"}");
+        }
+    }
+
+    private String result(String method, String body) throws InterruptedException {
+        return switch (method) {
+            case "getUpdates" -> getUpdates(body);
+            case "getMe" -> "{\"id\":1,\"is_bot\":true,\"first_name\":\"FakeBot\",\"username\":\"fake_bot\"}";
+            case "sendMessage", "sendPoll", "editMessageText" -> message(chatId(body), "");
+            case "sendPhoto" -> {
+                int fileNo = nextMessageId.get();
+                yield message(chatId(body), ",\"photo\":[{\"file_id\":\"fake-photo-" + fileNo
+                        + "\",\"file_unique_id\":\"fake-unique-" + fileNo + "\",\"width\":512,\"height\":512}]");
+            }
+            default -> "true";
+        };
+    }
+
+    /** Подтверждает апдейты до offset и ждёт новые не дольше timeout секунд. */
+    private String getUpdates(String body) throws InterruptedException {
+        int offset = intParam(body, "offset", 0);
+        int limit = Math.max(1, Math.min(100, intParam(body, "limit", 100)));
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(intParam(body, "timeout", 0));
+        if (offset > 0) {
+            updates.headMap(offset).clear();
+        }
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (updatesArrived) {
+            while (updates.tailMap(offset).isEmpty()) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) break;
+                updatesArrived.wait(wait);
+            }
+        }
+        List<String> batch = new ArrayList<>();
+        for (String update : updates.tailMap(offset).values()) {
+            if (batch.size() == limit) break;
+            batch.add(update);
+        }
+        return "[" + String.join(",", batch) + "]";
+    }
+
+    private String message(String chatId, String extra) {
+        return "{\"message_id\":" + nextMessageId.getAndIncrement()
+                + ",\"date\":" + Instant.now().getEpochSecond()
+                + ",\"chat\":{\"id\":" + chatId + ",\"type\":\"" + (chatId.startsWith("-") ? "supergroup" : "private") + "\"}"
+                + extra + "}";
+    }
+
+    private static String chatId(String body) {
+        Matcher json = JSON_CHAT_ID.matcher(body);
+        if (json.find()) return json.group(1);
+        Matcher multipart = MULTIPART_CHAT_ID.matcher(body);
+        if (multipart.find()) return multipart.group(1);
+        Matcher form = Pattern.compile("(?:^|&)chat_id=(-?\\d+)").matcher(URLDecoder.decode(body, StandardCharsets.UTF_8));
+        return form.find() ? form.group(1) : "0";
+    }
+
+    private static int intParam(String body, String name, int defaultValue) {
+        Matcher m = Pattern.compile(String.format(JSON_INT.pattern(), name)).matcher(body);
+        return m.find() ? Integer.parseInt(m.group(1)) : defaultValue;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String toJson(Map<String, Long> counts) {
+        StringBuilder sb = new StringBuilder("{");
+        counts.forEach((k, v) -> sb.append(sb.length() > 1 ? "," : "").append('"').append(k).append("\":").append(v));
+        return sb.append('}').toString();
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8081;
+        FakeBotApiServer server = new FakeBotApiServer(port)
+                .latency(Duration.ofMillis(Long.getLong("fake.latency-ms", 0)))
+                .throttleEvery(Integer.getInteger("fake.throttle-every", 0), Integer.getInteger("fake.retry-after", 1))
+                .start();
+        System.out.println("Fake Bot API: " + server.url() + " (POST /fake/updates — JSONL апдейтов, GET /fake/stats)");
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,69 @@
+package com.basketbot.loadtest;
+
+import com.basketbot.config.TelegramBotConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.client.okhttp.OkHttpTelegramClient;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updates.GetUpdates;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Заглушка Bot API отвечает настоящему OkHttpTelegramClient так же, как api.telegram.org (в т.ч. 429 с retry_after).
+ */
+class FakeBotApiServerTest {
+
+    private FakeBotApiServer server;
+    private TelegramClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeBotApiServer(0).start();
+        client = new OkHttpTelegramClient("TEST_TOKEN", TelegramBotConfig.telegramUrl(server.url()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void sendMessage_returnsMessageForChat() throws Exception {
+        Message message = client.execute(SendMessage.builder().chatId("-1001234567890").text("Привет").build());
+
+        assertThat(message.getMessageId()).isPositive();
+        assertThat(message.getChatId()).isEqualTo(-1001234567890L);
+        assertThat(server.requestCounts()).containsEntry("sendMessage", 1L);
+    }
+
+    @Test
+    void throttled_returns429WithRetryAfter() {
+        server.throttleEvery(1, 3);
+
+        assertThatThrownBy(() -> client.execute(SendMessage.builder().chatId("1").text("x").build()))
+                .isInstanceOfSatisfying(TelegramApiRequestException.class, e -> {
+                    assertThat(e.getErrorCode()).isEqualTo(429);
+                    assertThat(e.getParameters().getRetryAfter()).isEqualTo(3);
+                });
+    }
+
+    @Test
+    void getUpdates_returnsEnqueuedUpdatesAfterOffset() throws Exception {
+        int first = server.enqueueUpdate("{\"message\":{\"message_id\":1,\"date\":1,\"chat\":{\"id\":5,\"type\":\"private\"},\"text\":\"/start\"}}");
+        server.enqueueUpdate("{\"message\":{\"message_id\":2,\"date\":1,\"chat\":{\"id\":5,\"type\":\"private\"},\"text\":\"Команда\"}}");
+
+        List<Update> updates = client.execute(GetUpdates.builder().offset(first + 1).timeout(0).build());
+
+        assertThat(updates).hasSize(1);
+        assertThat(updates.get(0).getMessage().getText()).isEqualTo("Команда");
+    }
+}
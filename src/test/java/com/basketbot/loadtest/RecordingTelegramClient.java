@@ -0,0 +1,73 @@
+package com.basketbot.loadtest;
+
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Фейковый TelegramClient для нагрузочного прогона: ничего не отправляет, считает вызовы по типу метода
+ * (SendMessage, AnswerCallbackQuery, …) и отвечает с заданной задержкой, имитируя сетевой запрос к Bot API.
+ * Методы Send…, Forward…, Copy… возвращают Message, остальные — true.
+ */
+class RecordingTelegramClient implements Answer<Object> {
+
+    private final long latencyNanos;
+    private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+    private final AtomicInteger messageIds = new AtomicInteger();
+
+    RecordingTelegramClient(Duration latency) {
+        this.latencyNanos = latency.toNanos();
+    }
+
+    TelegramClient asTelegramClient() {
+        return Mockito.mock(TelegramClient.class, this);
+    }
+
+    @Override
+    public Object answer(InvocationOnMock invocation) {
+        Object method = invocation.getArguments().length > 0 ? invocation.getArgument(0) : null;
+        String name = method != null ? method.getClass().getSimpleName() : invocation.getMethod().getName();
+        calls.computeIfAbsent(name, k -> new LongAdder()).increment();
+        if (CompletableFuture.class.isAssignableFrom(invocation.getMethod().getReturnType())) {
+            return CompletableFuture.supplyAsync(() -> result(name),
+                    CompletableFuture.delayedExecutor(latencyNanos, TimeUnit.NANOSECONDS));
+        }
+        if (latencyNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(latencyNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return result(name);
+    }
+
+    /** Вызовы Bot API по типу метода. */
+    Map<String, Long> calls() {
+        Map<String, Long> result = new TreeMap<>();
+        calls.forEach((k, v) -> result.put(k, v.sum()));
+        return result;
+    }
+
+    private Object result(String methodName) {
+        if (methodName.startsWith("Send") || methodName.startsWith("Forward") || methodName.startsWith("Copy")) {
+            Message message = new Message();
+            message.setMessageId(messageIds.incrementAndGet());
+            message.setDate((int) Instant.now().getEpochSecond());
+            return message;
+        }
+        return Boolean.TRUE;
+    }
+}
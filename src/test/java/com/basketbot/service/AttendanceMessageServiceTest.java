@@ -0,0 +1,138 @@
+package com.basketbot.service;
+
+import com.basketbot.model.EventAttendance;
+import com.basketbot.model.Match;
+import com.basketbot.model.Team;
+import com.basketbot.model.TeamMember;
+import com.basketbot.repository.EventAttendanceRepository;
+import com.basketbot.repository.MatchRepository;
+import com.basketbot.repository.TeamMemberRepository;
+import com.basketbot.repository.TeamRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AttendanceMessageServiceTest {
+
+    @Autowired
+    private AttendanceMessageService attendanceMessageService;
+
+    @Autowired
+    private MatchRepository matchRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private TeamMemberRepository teamMemberRepository;
+
+    @Autowired
+    private EventAttendanceRepository eventAttendanceRepository;
+
+    @Autowired
+    private EventAttendanceService eventAttendanceService;
+
+    @Test
+    void reminderText_withCounts() {
+        Match match = new Match();
+        match.setOpponent("Зенит");
+        match.setDate(Instant.now().plus(1, ChronoUnit.DAYS));
+
+        String text = attendanceMessageService.reminderText(match, Map.of(
+                EventAttendance.Status.COMING, 5L, EventAttendance.Status.NOT_COMING, 2L));
+
+        assertThat(text).startsWith("[НОВОЕ СОБЫТИЕ]\n🏀 Игра vs Зенит")
+                .contains("🟢 Будут: 5", "🟡 Опоздают: 0", "🔴 Не смогут: 2");
+        assertThat(attendanceMessageService.reminderText(match, null)).endsWith("Подтвердите участие:");
+    }
+
+    @Test
+    void currentMessage_onlyAfterDelivery() {
+        Team team = new Team();
+        team.setName("Live attendance");
+        team = teamRepository.save(team);
+        Match match = new Match();
+        match.setTeam(team);
+        match.setOpponent("Зенит");
+        match.setDate(Instant.now().plus(1, ChronoUnit.DAYS));
+        match = matchRepository.save(match);
+
+        assertThat(attendanceMessageService.currentMessage(match.getId())).isEmpty();
+
+        attendanceMessageService.rememberReminderMessage(match.getId(), "-100123", 77);
+
+        AttendanceMessageService.LiveMessage live = attendanceMessageService.currentMessage(match.getId()).orElseThrow();
+        assertThat(live.chatId()).isEqualTo("-100123");
+        assertThat(live.messageId()).isEqualTo(77);
+        assertThat(live.text()).contains("🟢 Будут: 0");
+        assertThat(live.keyboard().getKeyboard().get(0).get(0).getCallbackData()).isEqualTo("attend:" + match.getId() + ":COMING");
+    }
+
+    @Test
+    void getSummaries_countsByStatusAndActiveMembers_inOneQuery() {
+        Team team = new Team();
+        team.setName("Summary");
+        team = teamRepository.save(team);
+        member(team, "1", true);
+        member(team, "2", true);
+        member(team, "3", true);
+        member(team, "4", false);
+        Match first = match(team);
+        Match second = match(team);
+        attend(first, "1", EventAttendance.Status.COMING);
+        attend(first, "2", EventAttendance.Status.COMING);
+        attend(first, "3", EventAttendance.Status.NOT_COMING);
+
+        Map<Long, EventAttendanceRepository.AttendanceSummary> summaries =
+                eventAttendanceService.getSummaries(List.of(first.getId(), second.getId(), -1L));
+
+        assertThat(summaries).containsOnlyKeys(first.getId(), second.getId());
+        EventAttendanceRepository.AttendanceSummary s = summaries.get(first.getId());
+        assertThat(s.getComing()).isEqualTo(2);
+        assertThat(s.getLate()).isZero();
+        assertThat(s.getNotComing()).isEqualTo(1);
+        assertThat(s.getActiveMembers()).isEqualTo(3);
+        assertThat(summaries.get(second.getId()).getComing()).isZero();
+        assertThat(summaries.get(second.getId()).getActiveMembers()).isEqualTo(3);
+        assertThat(eventAttendanceService.getCountsByStatus(first.getId()))
+                .containsEntry(EventAttendance.Status.COMING, 2L)
+                .containsEntry(EventAttendance.Status.LATE, 0L);
+        assertThat(eventAttendanceService.getRespondedCount(first.getId())).isEqualTo(3);
+        assertThat(attendanceMessageService.liveText(first, s)).contains("🟢 Будут: 2", "⚪ Не ответили: 0");
+        assertThat(attendanceMessageService.liveText(second, summaries.get(second.getId()))).contains("⚪ Не ответили: 3");
+    }
+
+    private void member(Team team, String telegramUserId, boolean active) {
+        TeamMember m = new TeamMember();
+        m.setTeam(team);
+        m.setTelegramUserId(telegramUserId);
+        m.setActive(active);
+        teamMemberRepository.save(m);
+    }
+
+    private Match match(Team team) {
+        Match match = new Match();
+        match.setTeam(team);
+        match.setOpponent("Зенит");
+        match.setDate(Instant.now().plus(1, ChronoUnit.DAYS));
+        return matchRepository.save(match);
+    }
+
+    private void attend(Match match, String telegramUserId, EventAttendance.Status status) {
+        EventAttendance a = new EventAttendance();
+        a.setMatch(match);
+        a.setTelegramUserId(telegramUserId);
+        a.setStatus(status);
+        eventAttendanceRepository.save(a);
+    }
+}
@@ -0,0 +1,80 @@
+package com.basketbot.service;
+
+import com.basketbot.model.JobRun;
+import com.basketbot.repository.JobLeaseRepository;
+import com.basketbot.repository.JobRunRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class JobCoordinatorTest {
+
+    @Autowired
+    private JobCoordinator coordinator;
+
+    @Autowired
+    private JobRunService jobRunService;
+
+    @Autowired
+    private JobLeaseRepository leaseRepository;
+
+    @Autowired
+    private JobRunRepository runRepository;
+
+    @BeforeEach
+    void setUp() {
+        runRepository.deleteAll();
+        leaseRepository.deleteAll();
+    }
+
+    @Test
+    void runExclusive_recordsRunAndReleasesLease() throws Throwable {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThat(coordinator.runExclusive("test-job", null, calls::incrementAndGet)).isTrue();
+
+        assertThat(calls.get()).isEqualTo(1);
+        List<JobRun> runs = jobRunService.findRecentRuns(10);
+        assertThat(runs).hasSize(1);
+        assertThat(runs.get(0).getJobName()).isEqualTo("test-job");
+        assertThat(runs.get(0).isSuccess()).isTrue();
+        assertThat(jobRunService.findLeases()).singleElement()
+                .satisfies(l -> assertThat(l.getReleasedAt()).isNotNull());
+    }
+
+    @Test
+    void runExclusive_skipsWithinMinInterval() throws Throwable {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThat(coordinator.runExclusive("test-job", Duration.ofHours(1), calls::incrementAndGet)).isTrue();
+        assertThat(coordinator.runExclusive("test-job", Duration.ofHours(1), calls::incrementAndGet)).isFalse();
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(jobRunService.findRecentRuns(10)).hasSize(1);
+    }
+
+    @Test
+    void runExclusive_failedRunIsRecordedAndDoesNotCountForMinInterval() throws Throwable {
+        assertThatThrownBy(() -> coordinator.runExclusive("test-job", Duration.ofHours(1), () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        List<JobRun> runs = jobRunService.findRecentRuns(10);
+        assertThat(runs).singleElement().satisfies(r -> {
+            assertThat(r.isSuccess()).isFalse();
+            assertThat(r.getError()).contains("boom");
+        });
+        assertThat(coordinator.runExclusive("test-job", Duration.ofHours(1), () -> { })).isTrue();
+    }
+}
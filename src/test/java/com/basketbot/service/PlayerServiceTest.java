@@ -0,0 +1,76 @@
+package com.basketbot.service;
+
+import com.basketbot.model.Player;
+import com.basketbot.model.Team;
+import com.basketbot.repository.PlayerRepository;
+import com.basketbot.repository.TeamRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PlayerServiceTest {
+
+    @Autowired
+    private PlayerService playerService;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Test
+    void findDebtorsAfter_pagesAllTeamsInTeamAndPlayerOrder() {
+        Team first = team("Debtors A", "-1001");
+        Team second = team("Debtors B", "-1002");
+        Player a1 = player(first, "A1", "100");
+        player(first, "A2", "0");
+        Player a3 = player(first, "A3", "50.50");
+        Player b1 = player(second, "B1", "10");
+
+        List<PlayerRepository.DebtorRow> rows = new ArrayList<>();
+        long afterTeamId = first.getId() - 1;
+        long afterPlayerId = 0L;
+        List<PlayerRepository.DebtorRow> page;
+        do {
+            page = playerService.findDebtorsAfter(afterTeamId, afterPlayerId, 2);
+            rows.addAll(page);
+            if (!page.isEmpty()) {
+                afterTeamId = page.get(page.size() - 1).getTeamId();
+                afterPlayerId = page.get(page.size() - 1).getPlayerId();
+            }
+        } while (page.size() == 2);
+
+        List<PlayerRepository.DebtorRow> ours = rows.stream()
+                .filter(r -> r.getTeamId().equals(first.getId()) || r.getTeamId().equals(second.getId()))
+                .toList();
+        assertThat(ours).extracting(PlayerRepository.DebtorRow::getPlayerId)
+                .containsExactly(a1.getId(), a3.getId(), b1.getId());
+        assertThat(ours.get(0).getTeamChatId()).isEqualTo("-1001");
+        assertThat(ours.get(1).getDebt()).isEqualByComparingTo("50.50");
+    }
+
+    private Team team(String name, String chatId) {
+        Team team = new Team();
+        team.setName(name);
+        team.setTelegramChatId(chatId);
+        return teamRepository.save(team);
+    }
+
+    private Player player(Team team, String name, String debt) {
+        Player p = new Player();
+        p.setTeam(team);
+        p.setName(name);
+        p.setDebt(new BigDecimal(debt));
+        return playerRepository.save(p);
+    }
+}
@@ -92,4 +92,12 @@ class SystemSettingsServiceTest {
         systemSettingsService.setAdminTelegramId("98765");
         assertThat(systemSettingsService.getAdminTelegramId()).isEqualTo("98765");
     }
+
+    @Test
+    void getAndSetTelegramUpdateOffset_persists() {
+        long before = systemSettingsService.getTelegramUpdateOffset();
+
+        systemSettingsService.setTelegramUpdateOffset(before + 42);
+        assertThat(systemSettingsService.getTelegramUpdateOffset()).isEqualTo(before + 42);
+    }
 }
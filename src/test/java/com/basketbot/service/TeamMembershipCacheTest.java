@@ -0,0 +1,158 @@
+package com.basketbot.service;
+
+import com.basketbot.model.Invitation;
+import com.basketbot.model.Team;
+import com.basketbot.model.TeamMember;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Снимки состава команд: роли и активность по снимку, сброс при изменениях состава, снимок, загруженный
+ * параллельно с записью, не кэшируется.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TeamMembershipCacheTest {
+
+    @Autowired
+    private TeamMembershipCache cache;
+
+    @Autowired
+    private TeamService teamService;
+
+    @Autowired
+    private TeamMemberService teamMemberService;
+
+    @Autowired
+    private InvitationService invitationService;
+
+    @Test
+    void snapshot_answersRoleAndActivity() {
+        TeamMembershipCache.Snapshot snapshot = TeamMembershipCache.Snapshot.of(1, List.of(
+                member("100", TeamMember.Role.ADMIN, true),
+                member("200", TeamMember.Role.PLAYER, true),
+                member("300", TeamMember.Role.ADMIN, false)));
+
+        assertThat(snapshot.isLegacy()).isFalse();
+        assertThat(snapshot.activeRole("100")).isEqualTo(TeamMember.Role.ADMIN);
+        assertThat(snapshot.activeRole("200")).isEqualTo(TeamMember.Role.PLAYER);
+        assertThat(snapshot.activeRole("300")).isNull();
+        assertThat(snapshot.isActiveMember("300")).isFalse();
+        assertThat(snapshot.isActiveMember("400")).isFalse();
+        assertThat(snapshot.canAnswer("400")).isTrue();
+        assertThat(TeamMembershipCache.Snapshot.of(1, List.of()).isLegacy()).isTrue();
+    }
+
+    @Test
+    void snapshot_withNonNumericIds_defersToDatabase() {
+        TeamMembershipCache.Snapshot snapshot = TeamMembershipCache.Snapshot.of(1, List.of(
+                member("100", TeamMember.Role.PLAYER, true),
+                member("legacy_user", TeamMember.Role.ADMIN, true)));
+
+        assertThat(snapshot.canAnswer("100")).isTrue();
+        assertThat(snapshot.canAnswer("legacy_user")).isFalse();
+        assertThat(snapshot.canAnswer("0100")).isFalse();
+        assertThat(snapshot.isActiveMember("legacy_user")).isFalse();
+    }
+
+    @Test
+    void get_cachesSnapshotUntilInvalidated() {
+        long teamId = randomId();
+        AtomicInteger loads = new AtomicInteger();
+
+        TeamMembershipCache.Snapshot first = cache.get(teamId, () -> load(loads, "100"));
+        TeamMembershipCache.Snapshot second = cache.get(teamId, () -> load(loads, "100"));
+        cache.invalidate(teamId);
+        TeamMembershipCache.Snapshot third = cache.get(teamId, () -> load(loads, "100"));
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(2);
+        assertThat(third.version()).isGreaterThan(first.version());
+    }
+
+    @Test
+    void get_invalidatedDuringLoad_isNotCached() {
+        long teamId = randomId();
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(teamId, () -> {
+            // Запись в team_members между чтением версии и сохранением снимка
+            cache.invalidate(teamId);
+            return load(loads, "100");
+        });
+        cache.get(teamId, () -> load(loads, "100"));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void invitationUse_refreshesSnapshot() {
+        Team team = createTeamWithAdmin();
+        String userId = String.valueOf(randomId());
+        Invitation invitation = invitationService.create(team.getId(), TeamMember.Role.PLAYER, 7);
+        assertThat(teamMemberService.canUseBot(team.getId(), userId)).isFalse();
+
+        invitationService.use(invitation.getCode(), userId, null, null);
+
+        assertThat(teamMemberService.canUseBot(team.getId(), userId)).isTrue();
+        assertThat(teamMemberService.getRole(team.getId(), userId)).contains(TeamMember.Role.PLAYER);
+    }
+
+    @Test
+    void leaveTeam_refreshesSnapshot() {
+        Team team = createTeamWithAdmin();
+        String userId = String.valueOf(randomId());
+        teamMemberService.setRoleByAdmin(team.getId(), userId, TeamMember.Role.PLAYER);
+        assertThat(teamMemberService.canUseBot(team.getId(), userId)).isTrue();
+
+        teamMemberService.leaveTeam(team.getId(), userId);
+
+        assertThat(teamMemberService.canUseBot(team.getId(), userId)).isFalse();
+        assertThat(teamMemberService.getRole(team.getId(), userId)).isEmpty();
+    }
+
+    @Test
+    void updateMember_refreshesSnapshot() {
+        Team team = createTeamWithAdmin();
+        String userId = String.valueOf(randomId());
+        teamMemberService.setRoleByAdmin(team.getId(), userId, TeamMember.Role.PLAYER);
+        assertThat(teamMemberService.getRole(team.getId(), userId)).contains(TeamMember.Role.PLAYER);
+
+        teamMemberService.updateMemberFull(team.getId(), userId, null, TeamMember.Role.ADMIN, null, null, null, null);
+        assertThat(teamMemberService.getRole(team.getId(), userId)).contains(TeamMember.Role.ADMIN);
+
+        teamMemberService.updateMemberFull(team.getId(), userId, null, null, false, null, null, null);
+        assertThat(teamMemberService.canUseBot(team.getId(), userId)).isFalse();
+    }
+
+    private Team createTeamWithAdmin() {
+        Team team = teamService.createTeam("Team", String.valueOf(randomId()));
+        teamMemberService.addAsAdmin(team.getId(), String.valueOf(randomId()));
+        return team;
+    }
+
+    private static List<TeamMember> load(AtomicInteger loads, String telegramUserId) {
+        loads.incrementAndGet();
+        return List.of(member(telegramUserId, TeamMember.Role.PLAYER, true));
+    }
+
+    private static TeamMember member(String telegramUserId, TeamMember.Role role, boolean active) {
+        TeamMember m = new TeamMember();
+        m.setTelegramUserId(telegramUserId);
+        m.setRole(role);
+        m.setActive(active);
+        return m;
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextLong(1_000_000, 1_000_000_000);
+    }
+}
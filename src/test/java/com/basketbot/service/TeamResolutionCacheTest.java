@@ -0,0 +1,128 @@
+package com.basketbot.service;
+
+import com.basketbot.model.Invitation;
+import com.basketbot.model.Team;
+import com.basketbot.model.TeamMember;
+import com.basketbot.service.TeamResolutionCache.TeamRef;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Кэш определения команды ботом: попадание не обращается к БД, записи сбрасываются при создании команды,
+ * смене группы, вступлении по приглашению, выходе и деактивации участника.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TeamResolutionCacheTest {
+
+    @Autowired
+    private TeamResolutionCache cache;
+
+    @Autowired
+    private TeamService teamService;
+
+    @Autowired
+    private TeamMemberService teamMemberService;
+
+    @Autowired
+    private InvitationService invitationService;
+
+    @Test
+    void hit_returnsCachedTeamWithoutLoading() {
+        long chatId = randomId();
+        Team team = teamService.createTeam("Метеор", String.valueOf(chatId));
+        assertThat(byChat(chatId)).map(TeamRef::name).contains("Метеор");
+
+        Optional<TeamRef> cached = cache.getByChat(chatId, notLoaded());
+
+        assertThat(cached).map(TeamRef::id).contains(team.getId());
+    }
+
+    @Test
+    void createTeam_replacesCachedNoTeam() {
+        long chatId = randomId();
+        assertThat(byChat(chatId)).isEmpty();
+        assertThat(cache.getByChat(chatId, notLoaded())).isEmpty();
+
+        Team team = teamService.createTeam("Комета", String.valueOf(chatId));
+
+        assertThat(byChat(chatId)).map(TeamRef::id).contains(team.getId());
+    }
+
+    @Test
+    void setGroupChatId_refreshesCachedTeam() {
+        long chatId = randomId();
+        long userId = randomId();
+        Team team = teamService.createTeam("Ракета", String.valueOf(chatId));
+        teamMemberService.addAsAdmin(team.getId(), String.valueOf(userId));
+        assertThat(byChat(chatId)).map(TeamRef::groupTelegramChatId).isEmpty();
+        assertThat(byUser(userId)).map(TeamRef::groupTelegramChatId).isEmpty();
+
+        teamService.setGroupChatId(team.getId(), "-1001234567890");
+
+        assertThat(byChat(chatId)).map(TeamRef::groupTelegramChatId).contains("-1001234567890");
+        assertThat(byUser(userId)).map(TeamRef::groupTelegramChatId).contains("-1001234567890");
+    }
+
+    @Test
+    void invitationUse_replacesCachedNoTeamForUser() {
+        long userId = randomId();
+        Team team = teamService.createTeam("Звезда", String.valueOf(randomId()));
+        Invitation invitation = invitationService.create(team.getId(), TeamMember.Role.PLAYER, 7);
+        assertThat(byUser(userId)).isEmpty();
+
+        invitationService.use(invitation.getCode(), String.valueOf(userId), null, null);
+
+        assertThat(byUser(userId)).map(TeamRef::name).contains("Звезда");
+    }
+
+    @Test
+    void leaveTeam_dropsCachedTeamForUser() {
+        long userId = randomId();
+        Team team = teamService.createTeam("Вымпел", String.valueOf(randomId()));
+        teamMemberService.setRoleByAdmin(team.getId(), String.valueOf(userId), TeamMember.Role.PLAYER);
+        assertThat(byUser(userId)).map(TeamRef::id).contains(team.getId());
+
+        teamMemberService.leaveTeam(team.getId(), String.valueOf(userId));
+
+        assertThat(byUser(userId)).isEmpty();
+    }
+
+    @Test
+    void updateMember_deactivation_dropsCachedTeamForUser() {
+        long userId = randomId();
+        Team team = teamService.createTeam("Факел", String.valueOf(randomId()));
+        teamMemberService.setRoleByAdmin(team.getId(), String.valueOf(userId), TeamMember.Role.PLAYER);
+        assertThat(byUser(userId)).map(TeamRef::id).contains(team.getId());
+
+        teamMemberService.updateMemberFull(team.getId(), String.valueOf(userId), null, null, false, null, null, null);
+
+        assertThat(byUser(userId)).isEmpty();
+    }
+
+    private Optional<TeamRef> byChat(long chatId) {
+        return cache.getByChat(chatId, () -> teamService.findByTelegramChatId(String.valueOf(chatId)));
+    }
+
+    private Optional<TeamRef> byUser(long userId) {
+        return cache.getByUser(userId, () -> teamMemberService.findFirstTeamByTelegramUserId(String.valueOf(userId)));
+    }
+
+    private static Supplier<Optional<Team>> notLoaded() {
+        return () -> {
+            throw new AssertionError("expected a cache hit");
+        };
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextLong(1_000_000, 1_000_000_000);
+    }
+}
@@ -0,0 +1,47 @@
+package com.basketbot.service;
+
+import com.basketbot.repository.TelegramFileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TelegramFileCacheServiceTest {
+
+    @Autowired
+    private TelegramFileCacheService fileCache;
+
+    @Autowired
+    private TelegramFileRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void contentHash_isSha256Hex() {
+        assertThat(TelegramFileCacheService.contentHash("abc".getBytes(StandardCharsets.UTF_8)))
+                .isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+    }
+
+    @Test
+    void remember_thenFind_thenForget() {
+        String hash = TelegramFileCacheService.contentHash(new byte[]{1, 2, 3});
+        assertThat(fileCache.findFileId(hash)).isEmpty();
+
+        fileCache.remember(hash, "AgACAgIAAxkBAAI");
+        fileCache.remember(hash, "AgACAgIAAxkBAAJ");
+        assertThat(fileCache.findFileId(hash)).contains("AgACAgIAAxkBAAJ");
+
+        fileCache.forget(hash);
+        assertThat(fileCache.findFileId(hash)).isEmpty();
+    }
+}
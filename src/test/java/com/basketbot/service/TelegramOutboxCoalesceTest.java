@@ -0,0 +1,75 @@
+package com.basketbot.service;
+
+import com.basketbot.model.IntegrationEvent;
+import com.basketbot.model.OutboxMessage;
+import com.basketbot.repository.OutboxMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardRow;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Склейка: некритичные сообщения без кнопок ждут окно и выбираются вместе по чату. */
+@SpringBootTest(properties = {
+        "telegram.bot.outbox.poll-interval=3600000",
+        "telegram.bot.outbox.coalesce.window=1m"
+})
+@ActiveProfiles("test")
+class TelegramOutboxCoalesceTest {
+
+    @Autowired
+    private TelegramOutboxService outboxService;
+
+    @Autowired
+    private OutboxMessageRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void coalescableMessagesWaitForWindow() {
+        outboxService.enqueueMessage("-100123", "📢 Тренировка переносится", null,
+                IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+
+        assertThat(outboxService.findDue(10)).isEmpty();
+    }
+
+    @Test
+    void keyboardsAndOtherTypesAreNotCoalesced() {
+        InlineKeyboardRow row = new InlineKeyboardRow();
+        row.add(InlineKeyboardButton.builder().text("🟢 Буду").callbackData("attend:1:COMING").build());
+        InlineKeyboardMarkup keyboard = InlineKeyboardMarkup.builder().keyboard(List.of(row)).build();
+        Long withKeyboard = outboxService.enqueueMessage("-100123", "Подтвердите участие", keyboard,
+                IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+        Long stats = outboxService.enqueueMessage("-100123", "Кто едет", null,
+                IntegrationEvent.EventType.REMINDER_STATS, null, null);
+
+        List<OutboxMessage> due = outboxService.findDue(10);
+        assertThat(due).extracting(OutboxMessage::getId).containsExactly(withKeyboard, stats);
+        assertThat(due).noneMatch(outboxService::isCoalescable);
+        assertThat(outboxService.findCoalescable("-100123", 10)).isEmpty();
+    }
+
+    @Test
+    void findCoalescable_sameChatInOrder() {
+        Long first = outboxService.enqueueMessage("-100123", "📢 Первое", null,
+                IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+        outboxService.enqueueMessage("-100999", "Другой чат", null,
+                IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+        Long second = outboxService.enqueueMessage("-100123", "Напоминание о взносе", null,
+                IntegrationEvent.EventType.DEBT_REMINDER, null, null);
+
+        assertThat(outboxService.findCoalescable("-100123", 10))
+                .extracting(OutboxMessage::getId)
+                .containsExactly(first, second);
+    }
+}
@@ -0,0 +1,182 @@
+package com.basketbot.service;
+
+import com.basketbot.model.IntegrationEvent;
+import com.basketbot.model.OutboxMessage;
+import com.basketbot.repository.OutboxMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardRow;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Очередь исходящих сообщений: постановка, выборка к отправке, отметка о доставке.
+ * Relay отключён большим интервалом опроса, чтобы не отправлял строки теста.
+ */
+@SpringBootTest(properties = "telegram.bot.outbox.poll-interval=3600000")
+@ActiveProfiles("test")
+class TelegramOutboxServiceTest {
+
+    @Autowired
+    private TelegramOutboxService outboxService;
+
+    @Autowired
+    private OutboxMessageRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void enqueueMessage_keepsKeyboardAndIsDue() {
+        InlineKeyboardRow row = new InlineKeyboardRow();
+        row.add(InlineKeyboardButton.builder().text("🟢 Буду").callbackData("attend:1:COMING").build());
+        InlineKeyboardMarkup keyboard = InlineKeyboardMarkup.builder().keyboard(List.of(row)).build();
+
+        Long id = outboxService.enqueueMessage("-100123", "Подтвердите участие", keyboard,
+                IntegrationEvent.EventType.REMINDER_24H, null, null);
+
+        List<OutboxMessage> due = outboxService.findDue(10);
+        assertThat(due).extracting(OutboxMessage::getId).containsExactly(id);
+        InlineKeyboardMarkup restored = outboxService.keyboardOf(due.get(0));
+        assertThat(restored.getKeyboard().get(0).get(0).getCallbackData()).isEqualTo("attend:1:COMING");
+    }
+
+    @Test
+    void markDelivered_removesFromDueAndDropsPhoto() {
+        outboxService.enqueuePhoto("@channel", new byte[]{1, 2, 3}, "result.png", null,
+                IntegrationEvent.EventType.CHANNEL_POST, null, null);
+        OutboxMessage m = outboxService.findDue(10).get(0);
+
+        outboxService.markDelivered(m, 0);
+
+        assertThat(outboxService.findDue(10)).isEmpty();
+        OutboxMessage saved = repository.findById(m.getId()).orElseThrow();
+        assertThat(saved.getStatus()).isEqualTo(OutboxMessage.Status.DELIVERED);
+        assertThat(saved.getAttempts()).isEqualTo(1);
+        assertThat(saved.getPhoto()).isNull();
+    }
+
+    @Test
+    void markFailed_keepsError() {
+        outboxService.enqueueMessage("42", "text", null, IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+        OutboxMessage m = outboxService.findDue(10).get(0);
+
+        outboxService.markFailed(m, "Bad Request: chat not found", 0);
+
+        OutboxMessage saved = repository.findById(m.getId()).orElseThrow();
+        assertThat(saved.getStatus()).isEqualTo(OutboxMessage.Status.FAILED);
+        assertThat(saved.getLastError()).isEqualTo("Bad Request: chat not found");
+        assertThat(outboxService.findDeadLetters(10)).extracting(OutboxMessage::getId).containsExactly(m.getId());
+    }
+
+    @Test
+    void findForTeam_onlyOwnTeam() {
+        Long id = outboxService.enqueueMessage("42", "text", null, IntegrationEvent.EventType.TEAM_NOTIFY, 7L, null);
+
+        assertThat(outboxService.findForTeam(id, 7L)).map(OutboxMessage::getStatus).contains(OutboxMessage.Status.PENDING);
+        assertThat(outboxService.findForTeam(id, 8L)).isEmpty();
+    }
+
+    @Test
+    void redrive_returnsDeadLetterToQueue() {
+        outboxService.enqueueMessage("42", "text", null, IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+        OutboxMessage m = outboxService.findDue(10).get(0);
+        outboxService.markFailed(m, "Too Many Requests: retry after 600", 4);
+
+        assertThat(outboxService.redrive(m.getId())).isTrue();
+        assertThat(outboxService.redrive(m.getId())).isFalse();
+
+        assertThat(outboxService.findDeadLetters(10)).isEmpty();
+        assertThat(outboxService.findDue(10)).extracting(OutboxMessage::getId).containsExactly(m.getId());
+        assertThat(repository.findById(m.getId()).orElseThrow().getAttempts()).isEqualTo(5);
+    }
+
+    @Test
+    void claimDue_eachMessageGoesToOneNode() {
+        Long first = outboxService.enqueueMessage("42", "one", null, IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+        Long second = outboxService.enqueueMessage("43", "two", null, IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+
+        List<OutboxMessage> a = outboxService.claimDue("node-a", 1, List.of());
+        List<OutboxMessage> b = outboxService.claimDue("node-b", 10, List.of());
+        List<OutboxMessage> again = outboxService.claimDue("node-a", 10, List.of());
+
+        assertThat(a).extracting(OutboxMessage::getId).containsExactly(first);
+        assertThat(b).extracting(OutboxMessage::getId).containsExactly(second);
+        assertThat(again).isEmpty();
+        assertThat(outboxService.findDue(10)).isEmpty();
+        OutboxMessage saved = repository.findById(first).orElseThrow();
+        assertThat(saved.getStatus()).isEqualTo(OutboxMessage.Status.IN_FLIGHT);
+        assertThat(saved.getClaimedBy()).isEqualTo("node-a");
+        assertThat(saved.getLeaseUntil()).isAfter(Instant.now());
+    }
+
+    @Test
+    void claimDue_chatBusyOnOtherNodeIsSkipped() {
+        Long first = outboxService.enqueueMessage("42", "one", null, IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+        Long other = outboxService.enqueueMessage("43", "other", null, IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+        assertThat(outboxService.claimDue("node-a", 1, List.of())).extracting(OutboxMessage::getId).containsExactly(first);
+        Long second = outboxService.enqueueMessage("42", "two", null, IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+
+        List<OutboxMessage> b = outboxService.claimDue("node-b", 10, List.of());
+        List<OutboxMessage> a = outboxService.claimDue("node-a", 10, List.of(first));
+
+        assertThat(b).extracting(OutboxMessage::getId).containsExactly(other);
+        assertThat(a).extracting(OutboxMessage::getId).containsExactly(second);
+    }
+
+    @Test
+    void claimDue_takesOverExpiredLease() {
+        Long id = outboxService.enqueueMessage("42", "text", null, IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+        assertThat(outboxService.claimDue("node-a", 10, List.of())).hasSize(1);
+        OutboxMessage m = repository.findById(id).orElseThrow();
+        m.setLeaseUntil(Instant.now().minusSeconds(1));
+        repository.save(m);
+
+        List<OutboxMessage> taken = outboxService.claimDue("node-b", 10, List.of());
+
+        assertThat(taken).extracting(OutboxMessage::getClaimedBy).containsExactly("node-b");
+    }
+
+    @Test
+    void renewLeases_onlyOwnMessages() {
+        Long id = outboxService.enqueueMessage("42", "text", null, IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+        outboxService.claimDue("node-a", 10, List.of());
+        OutboxMessage m = repository.findById(id).orElseThrow();
+        m.setLeaseUntil(Instant.now().minusSeconds(1));
+        repository.save(m);
+
+        outboxService.renewLeases("node-b", List.of(id));
+        assertThat(repository.findById(id).orElseThrow().getLeaseUntil()).isBefore(Instant.now());
+
+        outboxService.renewLeases("node-a", List.of(id));
+        assertThat(repository.findById(id).orElseThrow().getLeaseUntil()).isAfter(Instant.now());
+        assertThat(outboxService.claimDue("node-b", 10, List.of())).isEmpty();
+    }
+
+    @Test
+    void release_returnsToQueueWithoutAttempt() {
+        Long id = outboxService.enqueueMessage("42", "text", null, IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+        OutboxMessage m = outboxService.claimDue("node-a", 10, List.of()).get(0);
+
+        outboxService.release(m, "node-b");
+        assertThat(repository.findById(id).orElseThrow().getStatus()).isEqualTo(OutboxMessage.Status.IN_FLIGHT);
+
+        outboxService.release(m, "node-a");
+        OutboxMessage saved = repository.findById(id).orElseThrow();
+        assertThat(saved.getStatus()).isEqualTo(OutboxMessage.Status.PENDING);
+        assertThat(saved.getClaimedBy()).isNull();
+        assertThat(saved.getLeaseUntil()).isNull();
+        assertThat(saved.getAttempts()).isZero();
+        assertThat(outboxService.claimDue("node-b", 10, List.of())).extracting(OutboxMessage::getId).containsExactly(id);
+    }
+}
@@ -0,0 +1,75 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.TelegramBotProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** Остановка диспетчера: задачи, ждущие повтора или лимита чата, завершаются, а не зависают. */
+class OutboundDispatcherShutdownTest {
+
+    @Test
+    void shutdown_completesTasksWaitingForRetryAndChatLimit() throws Exception {
+        TelegramClient client = mock(TelegramClient.class);
+        // Первый чат: 429 с retry_after 120 с — полоса уходит в DelayQueue на две минуты
+        when(client.execute(any(SendMessage.class))).thenThrow(tooManyRequests(120)).thenReturn(new Message());
+        TelegramBotProperties properties = new TelegramBotProperties();
+        properties.getOutbound().setBurst(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OutboundDispatcher dispatcher = new OutboundDispatcher(properties, meterRegistry, client);
+
+        CompletableFuture<Message> retrying = dispatcher.submit("-1001", c -> c.execute(send("-1001")));
+        verify(client, timeout(5_000)).execute(any(SendMessage.class));
+        // Второй чат (группа): второе сообщение ждёт лимита чата (~3 с между сообщениями)
+        CompletableFuture<Message> first = dispatcher.submit("-1002", c -> c.execute(send("-1002")));
+        first.get(5, TimeUnit.SECONDS);
+        CompletableFuture<Message> throttled = dispatcher.submit("-1002", c -> c.execute(send("-1002")));
+
+        long start = System.nanoTime();
+        dispatcher.shutdown();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+        assertRejected(retrying);
+        assertThat(throttled).isDone();
+        assertThat(meterRegistry.get("bot.outbound.queue.size").gauge().value()).isZero();
+        assertRejected(dispatcher.submit("-1003", c -> c.execute(send("-1003"))));
+    }
+
+    private static void assertRejected(CompletableFuture<?> future) {
+        assertThat(future).isDone();
+        assertThatThrownBy(future::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+
+    private static SendMessage send(String chatId) {
+        return SendMessage.builder().chatId(chatId).text("text").build();
+    }
+
+    private static TelegramApiRequestException tooManyRequests(int retryAfter) {
+        TelegramApiRequestException error = mock(TelegramApiRequestException.class);
+        when(error.getErrorCode()).thenReturn(429);
+        ResponseParameters parameters = mock(ResponseParameters.class);
+        when(parameters.getRetryAfter()).thenReturn(retryAfter);
+        when(error.getParameters()).thenReturn(parameters);
+        return error;
+    }
+}
@@ -0,0 +1,109 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.NodeIdentity;
+import com.basketbot.config.TelegramBotProperties;
+import com.basketbot.model.IntegrationEvent;
+import com.basketbot.model.OutboxMessage;
+import com.basketbot.repository.OutboxMessageRepository;
+import com.basketbot.service.AttendanceMessageService;
+import com.basketbot.service.TelegramOutboxService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Два экземпляра (две пары OutboxRelay + OutboundDispatcher) над одной таблицей outbox: каждое сообщение
+ * отправляется ровно один раз, хотя отправка медленная и проходы экземпляров перемежаются.
+ * Relay из контекста отключён большим интервалом опроса.
+ */
+@SpringBootTest(properties = "telegram.bot.outbox.poll-interval=3600000")
+@ActiveProfiles("test")
+class OutboxRelayClusterTest {
+
+    private static final int MESSAGES = 20;
+
+    @Autowired
+    private TelegramOutboxService outboxService;
+
+    @Autowired
+    private OutboxMessageRepository repository;
+
+    @Autowired
+    private PhotoUploader photoUploader;
+
+    @Autowired
+    private AttendanceMessageService attendanceMessageService;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void twoRelays_deliverEachMessageOnce() throws Exception {
+        for (int i = 0; i < MESSAGES; i++) {
+            outboxService.enqueueMessage(String.valueOf(1000 + i), "💰 Напоминание " + i, null,
+                    IntegrationEvent.EventType.DEBT_REMINDER, null, null);
+        }
+        Map<String, AtomicInteger> sentByChat = new ConcurrentHashMap<>();
+        AtomicInteger sentByA = new AtomicInteger();
+        AtomicInteger sentByB = new AtomicInteger();
+        TelegramBotProperties properties = new TelegramBotProperties();
+        properties.getOutbox().setBatchSize(5);
+        OutboundDispatcher outboundA = new OutboundDispatcher(properties, new SimpleMeterRegistry(), slowClient(sentByChat, sentByA));
+        OutboundDispatcher outboundB = new OutboundDispatcher(properties, new SimpleMeterRegistry(), slowClient(sentByChat, sentByB));
+        OutboxRelay relayA = new OutboxRelay(outboxService, outboundA, photoUploader, attendanceMessageService,
+                properties, new NodeIdentity("pod-a"));
+        OutboxRelay relayB = new OutboxRelay(outboxService, outboundB, photoUploader, attendanceMessageService,
+                properties, new NodeIdentity("pod-b"));
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (delivered() < MESSAGES && System.nanoTime() < deadline) {
+                relayA.relay();
+                relayB.relay();
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+        } finally {
+            outboundA.shutdown();
+            outboundB.shutdown();
+        }
+
+        assertThat(delivered()).isEqualTo(MESSAGES);
+        assertThat(sentByChat).hasSize(MESSAGES);
+        assertThat(sentByChat.values()).allSatisfy(n -> assertThat(n.get()).isEqualTo(1));
+        assertThat(sentByA.get()).isPositive();
+        assertThat(sentByB.get()).isPositive();
+        assertThat(sentByA.get() + sentByB.get()).isEqualTo(MESSAGES);
+    }
+
+    private long delivered() {
+        return repository.findAll().stream().filter(m -> m.getStatus() == OutboxMessage.Status.DELIVERED).count();
+    }
+
+    /** Отправка занимает 300 мс: пока она идёт, второй экземпляр успевает сделать несколько проходов. */
+    private static TelegramClient slowClient(Map<String, AtomicInteger> sentByChat, AtomicInteger sentByNode) throws Exception {
+        TelegramClient client = Mockito.mock(TelegramClient.class);
+        Mockito.when(client.execute(Mockito.any(SendMessage.class))).thenAnswer(invocation -> {
+            SendMessage message = invocation.getArgument(0);
+            TimeUnit.MILLISECONDS.sleep(300);
+            sentByChat.computeIfAbsent(message.getChatId(), k -> new AtomicInteger()).incrementAndGet();
+            sentByNode.incrementAndGet();
+            return new Message();
+        });
+        return client;
+    }
+}
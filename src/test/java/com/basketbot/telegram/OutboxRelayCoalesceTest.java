@@ -0,0 +1,135 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.NodeIdentity;
+import com.basketbot.config.TelegramBotProperties;
+import com.basketbot.model.IntegrationEvent;
+import com.basketbot.model.OutboxMessage;
+import com.basketbot.repository.OutboxMessageRepository;
+import com.basketbot.service.AttendanceMessageService;
+import com.basketbot.service.TelegramOutboxService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardRow;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Склейка в relay: склеиваются только идущие подряд склеиваемые сообщения чата, сообщение с кнопками уходит
+ * на своём месте, длинная склейка делится по 4096 символов. Relay из контекста отключён большим интервалом опроса.
+ */
+@SpringBootTest(properties = {
+        "telegram.bot.outbox.poll-interval=3600000",
+        "telegram.bot.outbox.coalesce.window=1m"
+})
+@ActiveProfiles("test")
+class OutboxRelayCoalesceTest {
+
+    private static final String CHAT = "42";
+
+    @Autowired
+    private TelegramOutboxService outboxService;
+
+    @Autowired
+    private OutboxMessageRepository repository;
+
+    @Autowired
+    private PhotoUploader photoUploader;
+
+    @Autowired
+    private AttendanceMessageService attendanceMessageService;
+
+    private final List<SendMessage> sent = new CopyOnWriteArrayList<>();
+    private OutboundDispatcher outbound;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        repository.deleteAll();
+        TelegramClient client = Mockito.mock(TelegramClient.class);
+        Mockito.when(client.execute(Mockito.any(SendMessage.class))).thenAnswer(invocation -> {
+            sent.add(invocation.getArgument(0));
+            return new Message();
+        });
+        TelegramBotProperties properties = new TelegramBotProperties();
+        outbound = new OutboundDispatcher(properties, new SimpleMeterRegistry(), client);
+        relay = new OutboxRelay(outboxService, outbound, photoUploader, attendanceMessageService,
+                properties, new NodeIdentity("pod-a"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        outbound.shutdown();
+        relay.shutdown();
+    }
+
+    @Test
+    void dueMessageWithKeyboard_goesAfterEarlierHeldOnes_andLaterOnesWait() throws Exception {
+        Long first = notify("📢 Тренировка переносится");
+        Long second = notify("💰 Напоминание о взносе");
+        Long reminder = outboxService.enqueueMessage(CHAT, "Подтвердите участие", keyboard(),
+                IntegrationEvent.EventType.REMINDER_24H, null, null);
+        Long later = notify("📢 Зал на 19:00");
+
+        relay.relay();
+        awaitDelivered(first, second, reminder);
+
+        assertThat(sent).extracting(SendMessage::getText)
+                .containsExactly("📢 Тренировка переносится\n\n💰 Напоминание о взносе", "Подтвердите участие");
+        assertThat(sent.get(1).getReplyMarkup()).isNotNull();
+        assertThat(repository.findById(later).orElseThrow().getStatus()).isEqualTo(OutboxMessage.Status.PENDING);
+    }
+
+    @Test
+    void longMerge_isSplitAt4096Chars() throws Exception {
+        Long a = notify("a".repeat(2000));
+        Long b = notify("b".repeat(2000));
+        Long c = notify("c".repeat(2000));
+        for (OutboxMessage m : repository.findAll()) {
+            m.setNextAttemptAt(Instant.now().minusSeconds(1));
+            repository.save(m);
+        }
+
+        relay.relay();
+        awaitDelivered(a, b, c);
+
+        assertThat(sent).extracting(SendMessage::getText)
+                .containsExactly("a".repeat(2000) + "\n\n" + "b".repeat(2000), "c".repeat(2000));
+        assertThat(sent).allSatisfy(m -> assertThat(m.getText().length()).isLessThanOrEqualTo(4096));
+    }
+
+    private Long notify(String text) {
+        return outboxService.enqueueMessage(CHAT, text, null, IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+    }
+
+    private void awaitDelivered(Long... ids) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline && !List.of(ids).stream().allMatch(id ->
+                repository.findById(id).orElseThrow().getStatus() == OutboxMessage.Status.DELIVERED)) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        assertThat(repository.findAllById(List.of(ids))).allSatisfy(m ->
+                assertThat(m.getStatus()).isEqualTo(OutboxMessage.Status.DELIVERED));
+    }
+
+    private static InlineKeyboardMarkup keyboard() {
+        InlineKeyboardRow row = new InlineKeyboardRow();
+        row.add(InlineKeyboardButton.builder().text("🟢 Буду").callbackData("attend:1:COMING").build());
+        return InlineKeyboardMarkup.builder().keyboard(List.of(row)).build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.NodeIdentity;
+import com.basketbot.config.TelegramBotProperties;
+import com.basketbot.model.IntegrationEvent;
+import com.basketbot.model.OutboxMessage;
+import com.basketbot.repository.OutboxMessageRepository;
+import com.basketbot.service.AttendanceMessageService;
+import com.basketbot.service.TelegramOutboxService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.generics.TelegramClient;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Остановка OutboundDispatcher во время отправки из outbox: строки, которые ждали лимита чата или повтора
+ * после 429, возвращаются в PENDING без попытки, а не уходят в dead letter.
+ * Relay из контекста отключён большим интервалом опроса.
+ */
+@SpringBootTest(properties = "telegram.bot.outbox.poll-interval=3600000")
+@ActiveProfiles("test")
+class OutboxRelayShutdownTest {
+
+    private static final String GROUP = "-1005";
+    private static final String LIMITED = "-1006";
+
+    @Autowired
+    private TelegramOutboxService outboxService;
+
+    @Autowired
+    private OutboxMessageRepository repository;
+
+    @Autowired
+    private PhotoUploader photoUploader;
+
+    @Autowired
+    private AttendanceMessageService attendanceMessageService;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void shutdown_leavesQueuedRowsPending() throws Exception {
+        Long first = outboxService.enqueueMessage(GROUP, "1", null, IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+        Long second = outboxService.enqueueMessage(GROUP, "2", null, IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+        Long third = outboxService.enqueueMessage(GROUP, "3", null, IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+        Long limited = outboxService.enqueueMessage(LIMITED, "429", null, IntegrationEvent.EventType.TEAM_NOTIFY, null, null);
+        TelegramClient client = Mockito.mock(TelegramClient.class);
+        Mockito.when(client.execute(Mockito.any(SendMessage.class))).thenAnswer(invocation -> {
+            SendMessage message = invocation.getArgument(0);
+            if (LIMITED.equals(message.getChatId())) throw tooManyRequests(120);
+            return new Message();
+        });
+        TelegramBotProperties properties = new TelegramBotProperties();
+        // Одно сообщение в группу в минуту: второе и третье ждут лимита дольше, чем длится остановка
+        properties.getOutbound().setBurst(1);
+        properties.getOutbound().setGroupPerMinute(1);
+        OutboundDispatcher outbound = new OutboundDispatcher(properties, new SimpleMeterRegistry(), client);
+        OutboxRelay relay = new OutboxRelay(outboxService, outbound, photoUploader, attendanceMessageService,
+                properties, new NodeIdentity("pod-a"));
+
+        relay.relay();
+        Mockito.verify(client, Mockito.timeout(5_000).times(2)).execute(Mockito.any(SendMessage.class));
+        awaitStatus(first, OutboxMessage.Status.DELIVERED);
+        outbound.shutdown();
+
+        assertThat(repository.findById(first).orElseThrow().getStatus()).isEqualTo(OutboxMessage.Status.DELIVERED);
+        for (Long id : new Long[]{second, third, limited}) {
+            OutboxMessage m = repository.findById(id).orElseThrow();
+            assertThat(m.getStatus()).as("message %s", m.getText()).isEqualTo(OutboxMessage.Status.PENDING);
+            assertThat(m.getClaimedBy()).isNull();
+            assertThat(m.getLeaseUntil()).isNull();
+            assertThat(m.getAttempts()).isZero();
+        }
+        assertThat(outboxService.findDeadLetters(10)).isEmpty();
+    }
+
+    private void awaitStatus(Long id, OutboxMessage.Status status) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (repository.findById(id).orElseThrow().getStatus() != status && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+    }
+
+    private static TelegramApiRequestException tooManyRequests(int retryAfter) {
+        TelegramApiRequestException error = Mockito.mock(TelegramApiRequestException.class);
+        Mockito.when(error.getErrorCode()).thenReturn(429);
+        ResponseParameters parameters = Mockito.mock(ResponseParameters.class);
+        Mockito.when(parameters.getRetryAfter()).thenReturn(retryAfter);
+        Mockito.when(error.getParameters()).thenReturn(parameters);
+        return error;
+    }
+}
@@ -0,0 +1,145 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.TelegramBotProperties;
+import com.basketbot.model.ConversationState;
+import com.basketbot.repository.ConversationStateRepository;
+import com.basketbot.telegram.ConversationStateStore.Flow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+
+/**
+ * Два экземпляра хранилища над одной таблицей (общая in-memory «таблица» за репозиторием) и ручные часы:
+ * near-cache не продлевается чтениями, не переживает expires_at, а remove не верит отметке «нет».
+ */
+class PostgresConversationStateStoreTest {
+
+    private static final long CHAT = -100123L;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-10-17T10:00:00Z"));
+    private final Map<String, ConversationState> table = new ConcurrentHashMap<>();
+    private PostgresConversationStateStore a;
+    private PostgresConversationStateStore b;
+
+    @BeforeEach
+    void setUp() {
+        ConversationStateRepository repository = tableBackedRepository();
+        TelegramBotProperties properties = new TelegramBotProperties();
+        properties.getConversation().setTtl(Duration.ofMinutes(30));
+        properties.getConversation().setNearCacheTtl(Duration.ofSeconds(5));
+        a = new PostgresConversationStateStore(repository, properties, new SimpleMeterRegistry(), clock);
+        b = new PostgresConversationStateStore(repository, properties, new SimpleMeterRegistry(), clock);
+    }
+
+    @Test
+    void cachedAbsent_expiresEvenWhenReadEverySecond() {
+        assertThat(a.get(Flow.POLL, CHAT)).isNull();
+        b.put(Flow.POLL, CHAT, "Кто едет?");
+
+        for (int i = 0; i < 4; i++) {
+            clock.advance(Duration.ofSeconds(1));
+            a.get(Flow.POLL, CHAT);
+        }
+        clock.advance(Duration.ofMillis(1500));
+
+        assertThat(a.get(Flow.POLL, CHAT)).isEqualTo("Кто едет?");
+    }
+
+    @Test
+    void remove_deletesRowWrittenByOtherInstance() {
+        assertThat(a.get(Flow.TEAM_NAME, CHAT)).isNull();
+        b.put(Flow.TEAM_NAME, CHAT, "");
+
+        assertThat(a.remove(Flow.TEAM_NAME, CHAT)).isEqualTo("");
+
+        assertThat(table).isEmpty();
+        assertThat(b.remove(Flow.TEAM_NAME, CHAT)).isNull();
+    }
+
+    @Test
+    void cachedValue_doesNotOutliveRowExpiry() {
+        TelegramBotProperties properties = new TelegramBotProperties();
+        properties.getConversation().setTtl(Duration.ofSeconds(3));
+        properties.getConversation().setNearCacheTtl(Duration.ofSeconds(5));
+        PostgresConversationStateStore store = new PostgresConversationStateStore(tableBackedRepository(), properties,
+                new SimpleMeterRegistry(), clock);
+        store.put(Flow.LEAVE_CONFIRM, CHAT, "42");
+
+        for (int i = 0; i < 2; i++) {
+            clock.advance(Duration.ofSeconds(1));
+            assertThat(store.get(Flow.LEAVE_CONFIRM, CHAT)).isEqualTo("42");
+        }
+        clock.advance(Duration.ofMillis(1500));
+
+        assertThat(store.get(Flow.LEAVE_CONFIRM, CHAT)).isNull();
+    }
+
+    /** Репозиторий над общей картой: то же поведение запросов, что у conversation_state в Postgres. */
+    private ConversationStateRepository tableBackedRepository() {
+        ConversationStateRepository repository = Mockito.mock(ConversationStateRepository.class);
+        Mockito.when(repository.findActive(anyLong(), anyString(), any(Instant.class))).thenAnswer(inv -> {
+            ConversationState row = table.get(key(inv.getArgument(0), inv.getArgument(1)));
+            Instant now = inv.getArgument(2);
+            return Optional.ofNullable(row).filter(r -> r.getExpiresAt().isAfter(now));
+        });
+        Mockito.doAnswer(inv -> {
+            ConversationState row = new ConversationState();
+            row.setChatId(inv.getArgument(0));
+            row.setFlow(inv.getArgument(1));
+            row.setValue(inv.getArgument(2));
+            row.setExpiresAt(inv.getArgument(3));
+            table.put(key(row.getChatId(), row.getFlow()), row);
+            return null;
+        }).when(repository).upsert(anyLong(), anyString(), anyString(), any(Instant.class));
+        Mockito.when(repository.deleteByKey(anyLong(), anyString()))
+                .thenAnswer(inv -> table.remove(key(inv.getArgument(0), inv.getArgument(1))) != null ? 1 : 0);
+        return repository;
+    }
+
+    private static String key(long chatId, String flow) {
+        return chatId + ":" + flow;
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
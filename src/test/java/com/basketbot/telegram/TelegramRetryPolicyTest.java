@@ -0,0 +1,89 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.TelegramBotProperties;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TelegramRetryPolicyTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    /** Без случайной добавки: задержка = половина шага. */
+    private final TelegramRetryPolicy policy = new TelegramRetryPolicy(config(), bound -> 0L);
+
+    @Test
+    void tooManyRequests_waitsRetryAfter() {
+        assertThat(policy.retryDelayNanos(requestError(429, 7), 1)).isEqualTo(7 * SECOND);
+    }
+
+    @Test
+    void tooManyRequests_retryAfterTooLong_noRetry() {
+        assertThat(policy.retryDelayNanos(requestError(429, 3600), 1)).isEqualTo(TelegramRetryPolicy.NO_RETRY);
+    }
+
+    @Test
+    void serverError_exponentialBackoffCapped() {
+        TelegramApiRequestException error = requestError(502, null);
+        assertThat(policy.retryDelayNanos(error, 1)).isEqualTo(SECOND / 2);
+        assertThat(policy.retryDelayNanos(error, 2)).isEqualTo(SECOND);
+        assertThat(policy.retryDelayNanos(error, 3)).isEqualTo(2 * SECOND);
+        assertThat(policy.retryDelayNanos(error, 4)).isEqualTo(2 * SECOND);
+    }
+
+    @Test
+    void networkError_retriedEvenWhenWrapped() {
+        CompletionException error = new CompletionException(new TelegramApiException("Unable to execute sendMessage method"));
+        assertThat(policy.retryDelayNanos(error, 1)).isEqualTo(SECOND / 2);
+    }
+
+    @Test
+    void clientErrorAndRejection_notRetried() {
+        assertThat(policy.retryDelayNanos(requestError(400, null), 1)).isEqualTo(TelegramRetryPolicy.NO_RETRY);
+        assertThat(policy.retryDelayNanos(requestError(403, null), 1)).isEqualTo(TelegramRetryPolicy.NO_RETRY);
+        assertThat(policy.retryDelayNanos(new RejectedExecutionException("full"), 1)).isEqualTo(TelegramRetryPolicy.NO_RETRY);
+    }
+
+    @Test
+    void attemptsExhausted_noRetry() {
+        assertThat(policy.retryDelayNanos(requestError(429, 1), 4)).isEqualTo(SECOND);
+        assertThat(policy.retryDelayNanos(requestError(429, 1), 5)).isEqualTo(TelegramRetryPolicy.NO_RETRY);
+    }
+
+    @Test
+    void jitter_staysWithinStep() {
+        TelegramRetryPolicy jittered = new TelegramRetryPolicy(config());
+        for (int i = 0; i < 100; i++) {
+            assertThat(jittered.retryDelayNanos(requestError(500, null), 3)).isBetween(2 * SECOND, 4 * SECOND);
+        }
+    }
+
+    private static TelegramBotProperties.Retry config() {
+        TelegramBotProperties.Retry retry = new TelegramBotProperties.Retry();
+        retry.setMaxAttempts(5);
+        retry.setInitialBackoff(Duration.ofSeconds(1));
+        retry.setMaxBackoff(Duration.ofSeconds(4));
+        retry.setMaxRetryAfter(Duration.ofMinutes(5));
+        return retry;
+    }
+
+    private static TelegramApiRequestException requestError(int code, Integer retryAfter) {
+        TelegramApiRequestException error = mock(TelegramApiRequestException.class);
+        when(error.getErrorCode()).thenReturn(code);
+        if (retryAfter != null) {
+            ResponseParameters parameters = mock(ResponseParameters.class);
+            when(parameters.getRetryAfter()).thenReturn(retryAfter);
+            when(error.getParameters()).thenReturn(parameters);
+        }
+        return error;
+    }
+}
@@ -0,0 +1,109 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.TelegramBotProperties;
+import com.basketbot.service.SystemSettingsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UpdateDeduplicatorTest {
+
+    private final SystemSettingsService systemSettingsService = mock(SystemSettingsService.class);
+
+    private UpdateDeduplicator deduplicator(long storedOffset) {
+        when(systemSettingsService.getTelegramUpdateOffset()).thenReturn(storedOffset);
+        UpdateDeduplicator deduplicator = new UpdateDeduplicator(new TelegramBotProperties(), systemSettingsService,
+                new SimpleMeterRegistry());
+        deduplicator.loadOffset();
+        return deduplicator;
+    }
+
+    @Test
+    void watermark_stopsBeforeOldestInFlight() {
+        UpdateDeduplicator deduplicator = deduplicator(100);
+        assertThat(deduplicator.tryAcquire(101)).isTrue();
+        assertThat(deduplicator.tryAcquire(102)).isTrue();
+        assertThat(deduplicator.tryAcquire(103)).isTrue();
+
+        deduplicator.complete(103);
+        deduplicator.complete(101);
+        assertThat(deduplicator.watermark()).isEqualTo(101);
+
+        deduplicator.complete(102);
+        assertThat(deduplicator.watermark()).isEqualTo(103);
+    }
+
+    @Test
+    void duplicateOfInFlightOrCompleted_isDropped() {
+        UpdateDeduplicator deduplicator = deduplicator(0);
+        assertThat(deduplicator.tryAcquire(5)).isTrue();
+        assertThat(deduplicator.tryAcquire(5)).isFalse();
+
+        deduplicator.complete(5);
+
+        assertThat(deduplicator.tryAcquire(5)).isFalse();
+        assertThat(deduplicator.tryAcquire(null)).isTrue();
+    }
+
+    @Test
+    void release_afterRejectedEnqueue_acceptsRedeliveryAndHoldsWatermark() {
+        UpdateDeduplicator deduplicator = deduplicator(10);
+        assertThat(deduplicator.tryAcquire(11)).isTrue();
+        assertThat(deduplicator.tryAcquire(12)).isTrue();
+
+        deduplicator.release(11);
+        deduplicator.complete(12);
+
+        // Отклонённый апдейт не засчитан обработанным, пока его не доставят повторно
+        assertThat(deduplicator.watermark()).isEqualTo(10);
+        assertThat(deduplicator.tryAcquire(11)).isTrue();
+        assertThat(deduplicator.watermark()).isEqualTo(10);
+        deduplicator.complete(11);
+        assertThat(deduplicator.watermark()).isEqualTo(12);
+    }
+
+    @Test
+    void farBelowKnownIds_startsNewSequence() {
+        UpdateDeduplicator deduplicator = deduplicator(100_000);
+        assertThat(deduplicator.tryAcquire(100_001)).isTrue();
+
+        assertThat(deduplicator.tryAcquire(7)).isTrue();
+
+        assertThat(deduplicator.watermark()).isEqualTo(6);
+        deduplicator.complete(7);
+        assertThat(deduplicator.watermark()).isEqualTo(7);
+        assertThat(deduplicator.tryAcquire(7)).isFalse();
+        assertThat(deduplicator.tryAcquire(8)).isTrue();
+    }
+
+    @Test
+    void loadOffset_dropsEverythingUpToStoredOffset() {
+        UpdateDeduplicator deduplicator = deduplicator(500);
+
+        assertThat(deduplicator.getResumeOffset()).isEqualTo(500);
+        assertThat(deduplicator.watermark()).isEqualTo(500);
+        assertThat(deduplicator.tryAcquire(500)).isFalse();
+        assertThat(deduplicator.tryAcquire(450)).isFalse();
+        assertThat(deduplicator.tryAcquire(501)).isTrue();
+    }
+
+    @Test
+    void flush_persistsWatermarkOnlyWhenItMoves() {
+        UpdateDeduplicator deduplicator = deduplicator(20);
+        deduplicator.tryAcquire(21);
+        deduplicator.tryAcquire(22);
+        deduplicator.complete(22);
+        deduplicator.flush();
+        verify(systemSettingsService, never()).setTelegramUpdateOffset(anyLong());
+
+        deduplicator.complete(21);
+        deduplicator.flush();
+        verify(systemSettingsService).setTelegramUpdateOffset(22);
+    }
+}
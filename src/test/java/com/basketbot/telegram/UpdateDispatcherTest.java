@@ -0,0 +1,263 @@
+package com.basketbot.telegram;
+
+import com.basketbot.config.TelegramBotProperties;
+import com.basketbot.service.SystemSettingsService;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Шардирование апдейтов по чату: порядок внутри чата, параллельность между чатами; полосы приоритета,
+ * политики переполнения, отбрасывание устаревших.
+ */
+class UpdateDispatcherTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TelegramBotProperties properties = new TelegramBotProperties();
+    private final OutboundDispatcher outbound = mock(OutboundDispatcher.class);
+    private final List<Integer> handled = new CopyOnWriteArrayList<>();
+    /** Держит поток шарда занятым (см. blockShard). */
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private UpdateDispatcher dispatcher;
+    private int nextUpdateId = 1;
+
+    @AfterEach
+    void tearDown() {
+        gate.countDown();
+        if (dispatcher != null) dispatcher.shutdown();
+    }
+
+    @Test
+    void sameChatInOrder_otherChatsInParallel() throws Exception {
+        properties.getDispatcher().setWorkers(4);
+        start();
+        long slowChat = 1;
+        long otherChat = 2;
+        while (dispatcher.shardOf(otherChat) == dispatcher.shardOf(slowChat)) otherChat++;
+        CountDownLatch otherChatHandled = new CountDownLatch(1);
+        AtomicBoolean ranInParallel = new AtomicBoolean();
+        List<Integer> slowChatOrder = new CopyOnWriteArrayList<>();
+
+        Update first = text(slowChat, "0");
+        dispatcher.dispatch(first, u -> {
+            // Первый апдейт медленного чата ждёт, пока обработается апдейт другого чата
+            ranInParallel.set(await(otherChatHandled));
+            slowChatOrder.add(0);
+        });
+        for (int i = 1; i < 50; i++) {
+            int n = i;
+            dispatcher.dispatch(text(slowChat, String.valueOf(i)), u -> slowChatOrder.add(n));
+        }
+        dispatcher.dispatch(text(otherChat, "other"), u -> otherChatHandled.countDown());
+
+        awaitCondition(() -> slowChatOrder.size() == 50);
+        assertThat(ranInParallel).isTrue();
+        assertThat(slowChatOrder).isSorted().hasSize(50);
+    }
+
+    @Test
+    void higherLaneFirst_commandDoesNotOvertakeTextOfSameChat() throws Exception {
+        properties.getDispatcher().setWorkers(1);
+        start();
+        blockShard();
+        Update text = text(10, "Привет");
+        Update command = text(11, "/team");
+        Update callback = callback(12, "attend:1:COMING");
+        Update textBeforeCommand = text(13, "Название команды");
+        Update commandAfterText = text(13, "/cancel");
+        for (Update u : List.of(text, command, callback, textBeforeCommand, commandAfterText)) {
+            dispatcher.dispatch(u, record());
+        }
+
+        gate.countDown();
+
+        awaitCondition(() -> handled.size() == 5);
+        assertThat(handled).containsExactly(callback.getUpdateId(), command.getUpdateId(), text.getUpdateId(),
+                textBeforeCommand.getUpdateId(), commandAfterText.getUpdateId());
+    }
+
+    @Test
+    void drop_shedsOverflowAndCountsIt() throws Exception {
+        properties.getDispatcher().setWorkers(1);
+        properties.getDispatcher().getText().setQueueCapacity(1);
+        properties.getDispatcher().getText().setOnFull("drop");
+        start();
+        blockShard();
+        Update queued = text(10, "1");
+        Update dropped = text(10, "2");
+
+        dispatcher.dispatch(queued, record());
+        dispatcher.dispatch(dropped, record());
+        gate.countDown();
+
+        awaitCondition(() -> handled.size() == 1);
+        assertThat(handled).containsExactly(queued.getUpdateId());
+        assertThat(dropped("text", "full")).isEqualTo(1.0);
+        verify(outbound, never()).submit(any(), any());
+    }
+
+    @Test
+    void replyBusy_shedsOverflowAndAnswersCallback() throws Exception {
+        when(outbound.submit(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        properties.getDispatcher().setWorkers(1);
+        properties.getDispatcher().getCallback().setQueueCapacity(1);
+        start();
+        blockShard();
+        Update queued = callback(10, "attend:1:COMING");
+        Update dropped = callback(10, "attend:1:LATE");
+
+        dispatcher.dispatch(queued, record());
+        dispatcher.dispatch(dropped, record());
+        gate.countDown();
+
+        awaitCondition(() -> handled.size() == 1);
+        assertThat(handled).containsExactly(queued.getUpdateId());
+        assertThat(dropped("callback", "full")).isEqualTo(1.0);
+        // Ответ на callback идёт без лимита чата
+        verify(outbound).submit(isNull(), any());
+    }
+
+    @Test
+    void block_waitsForRoom() throws Exception {
+        properties.getDispatcher().setWorkers(1);
+        properties.getDispatcher().getText().setQueueCapacity(1);
+        start();
+        blockShard();
+        dispatcher.dispatch(text(10, "1"), record());
+        Update waiting = text(10, "2");
+        Thread producer = new Thread(() -> dispatcher.dispatch(waiting, record()));
+        producer.start();
+
+        producer.join(300);
+        assertThat(producer.isAlive()).as("dispatch blocks while the lane is full").isTrue();
+        gate.countDown();
+        producer.join(5_000);
+
+        assertThat(producer.isAlive()).isFalse();
+        awaitCondition(() -> handled.contains(waiting.getUpdateId()));
+        assertThat(dropped("text", "full")).isZero();
+    }
+
+    @Test
+    void staleUpdate_isDroppedBeforeHandler() throws Exception {
+        properties.getDispatcher().setWorkers(1);
+        properties.getDispatcher().getText().setMaxAge(Duration.ofSeconds(30));
+        start();
+        Update stale = text(10, "давно", Instant.now().minusSeconds(120));
+        Update fresh = text(10, "сейчас");
+
+        dispatcher.dispatch(stale, record());
+        dispatcher.dispatch(fresh, record());
+
+        awaitCondition(() -> handled.size() == 1);
+        assertThat(handled).containsExactly(fresh.getUpdateId());
+        assertThat(dropped("text", "stale")).isEqualTo(1.0);
+    }
+
+    @Test
+    void tryDispatch_fullBlockLane_returnsFalseAndAcceptsRedelivery() throws Exception {
+        properties.getDispatcher().setWorkers(1);
+        properties.getDispatcher().getText().setQueueCapacity(1);
+        start();
+        blockShard();
+        assertThat(dispatcher.tryDispatch(text(10, "1"), record())).isTrue();
+        Update rejected = text(10, "2");
+
+        assertThat(dispatcher.tryDispatch(rejected, record())).isFalse();
+        gate.countDown();
+        awaitCondition(() -> handled.size() == 1);
+
+        // Повторная доставка того же update_id — не дубликат
+        assertThat(dispatcher.tryDispatch(rejected, record())).isTrue();
+        awaitCondition(() -> handled.contains(rejected.getUpdateId()));
+        assertThat(dropped("text", "full")).isZero();
+    }
+
+    private void start() {
+        SystemSettingsService systemSettingsService = mock(SystemSettingsService.class);
+        when(systemSettingsService.getTelegramUpdateOffset()).thenReturn(0L);
+        UpdateDeduplicator deduplicator = new UpdateDeduplicator(properties, systemSettingsService, meterRegistry);
+        deduplicator.loadOffset();
+        dispatcher = new UpdateDispatcher(properties, meterRegistry, deduplicator, outbound);
+    }
+
+    /** Занять поток шарда (workers=1) обработчиком, который ждёт gate: очередь дальше только копится. */
+    private void blockShard() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        dispatcher.dispatch(text(999, "blocker"), u -> {
+            started.countDown();
+            await(gate);
+        });
+        assertThat(await(started)).isTrue();
+    }
+
+    private Consumer<Update> record() {
+        return u -> handled.add(u.getUpdateId());
+    }
+
+    private double dropped(String lane, String reason) {
+        return meterRegistry.get("bot.dispatcher.dropped").tags("lane", lane, "reason", reason).counter().count();
+    }
+
+    private Update text(long chatId, String text) throws Exception {
+        return text(chatId, text, Instant.now());
+    }
+
+    private Update text(long chatId, String text, Instant sentAt) throws Exception {
+        return JSON.readValue("""
+                {"update_id": %d, "message": {"message_id": 1, "date": %d,
+                 "chat": {"id": %d, "type": "private"}, "text": %s}}
+                """.formatted(nextUpdateId++, sentAt.getEpochSecond(), chatId, JSON.writeValueAsString(text)), Update.class);
+    }
+
+    private Update callback(long chatId, String data) throws Exception {
+        return JSON.readValue("""
+                {"update_id": %d, "callback_query": {"id": "cb%d", "chat_instance": "1", "data": %s,
+                 "from": {"id": %d, "is_bot": false, "first_name": "Игрок"},
+                 "message": {"message_id": 1, "date": %d, "chat": {"id": %d, "type": "private"}}}}
+                """.formatted(nextUpdateId, nextUpdateId++, JSON.writeValueAsString(data), chatId,
+                Instant.now().getEpochSecond(), chatId), Update.class);
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).as("condition within 10 s").isTrue();
+    }
+}
@@ -0,0 +1,72 @@
+package com.basketbot.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Кэш состояния диалогов: вытеснение по LRU, TTL с продлением при чтении, очистка истёкших.
+ */
+class LongKeyLruCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final LongKeyLruCache<String> cache = new LongKeyLruCache<>(3, Duration.ofSeconds(10), clock::get);
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        cache.put(1L, "a");
+        cache.put(2L, "b");
+        cache.put(3L, "c");
+        assertThat(cache.get(1L)).isEqualTo("a");
+
+        cache.put(4L, "d");
+
+        assertThat(cache.get(2L)).isNull();
+        assertThat(cache.get(1L)).isEqualTo("a");
+        assertThat(cache.get(3L)).isEqualTo("c");
+        assertThat(cache.get(4L)).isEqualTo("d");
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.evictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void expiresAfterTtlAndReadExtendsIt() {
+        cache.put(-100L, "x");
+        cache.put(200L, "y");
+        clock.addAndGet(Duration.ofSeconds(8).toNanos());
+        assertThat(cache.get(-100L)).isEqualTo("x");
+
+        clock.addAndGet(Duration.ofSeconds(8).toNanos());
+
+        assertThat(cache.get(-100L)).isEqualTo("x");
+        assertThat(cache.get(200L)).isNull();
+        assertThat(cache.expirationCount()).isEqualTo(1);
+    }
+
+    @Test
+    void cleanUpRemovesOnlyExpired() {
+        cache.put(1L, "a");
+        cache.put(2L, "b", Duration.ofMinutes(5));
+        clock.addAndGet(Duration.ofSeconds(11).toNanos());
+
+        assertThat(cache.cleanUp()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.remove(2L)).isEqualTo("b");
+        assertThat(cache.remove(2L)).isNull();
+    }
+
+    @Test
+    void expireAfterWrite_readDoesNotExtendTtl() {
+        LongKeyLruCache<String> fixed = LongKeyLruCache.expireAfterWrite(3, Duration.ofSeconds(10), clock::get);
+        fixed.put(1L, "x");
+        clock.addAndGet(Duration.ofSeconds(8).toNanos());
+        assertThat(fixed.get(1L)).isEqualTo("x");
+
+        clock.addAndGet(Duration.ofSeconds(3).toNanos());
+
+        assertThat(fixed.get(1L)).isNull();
+    }
+}